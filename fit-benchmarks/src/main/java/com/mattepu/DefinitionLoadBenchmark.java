@@ -0,0 +1,100 @@
+package com.mattepu;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mattepu.definition.MenuDefinition;
+import com.mattepu.definition.OptionHandlers;
+
+// A definition of menuCount menus in a tree with ten sub menus per menu, where
+// every menu also holds ten options bound to a handler.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefinitionLoadBenchmark
+{
+	private static final int FANOUT = 10;
+	
+	@Param({ "5000" })
+	public int menuCount;
+	
+	private Path definition;
+	private Path snapshot;
+	private OptionHandlers handlers;
+	
+	@Setup
+	public void setUp() throws IOException
+	{
+		definition = Files.createTempFile("fit-menus", ".properties");
+		snapshot = Files.createTempFile("fit-menus", ".fitm");
+		try(Writer writer = Files.newBufferedWriter(definition, StandardCharsets.UTF_8))
+		{
+			writer.write("root = m0\n");
+			for(int i = 0; i < menuCount; i++)
+			{
+				writer.write("m" + i + ".name = " + MenuTreeGenerator.text(24, i).trim() + "\n");
+				writer.write("m" + i + ".options = ");
+				for(int j = 1; j <= FANOUT && i * FANOUT + j < menuCount; j++)
+				{
+					writer.write("m" + (i * FANOUT + j) + ", ");
+				}
+				for(int j = 0; j < FANOUT; j++)
+				{
+					writer.write("o" + i + "_" + j + (j < FANOUT - 1 ? ", " : "\n"));
+				}
+				for(int j = 0; j < FANOUT; j++)
+				{
+					writer.write("o" + i + "_" + j + ".name = Option " + j + " of menu " + i + "\n");
+					writer.write("o" + i + "_" + j + ".handler = " + OptionHandlers.BACK + "\n");
+				}
+			}
+		}
+		MenuDefinition.load(definition).writeSnapshot(snapshot);
+		handlers = new OptionHandlers();
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		Files.delete(definition);
+		Files.delete(snapshot);
+	}
+	
+	@Benchmark
+	public MenuDefinition parseDefinition() throws IOException
+	{
+		return MenuDefinition.load(definition);
+	}
+	
+	@Benchmark
+	public MenuDefinition loadSnapshot() throws IOException
+	{
+		return MenuDefinition.loadSnapshot(snapshot);
+	}
+	
+	@Benchmark
+	public Menu loadSnapshotAndBuild() throws IOException
+	{
+		return MenuDefinition.loadSnapshot(snapshot).build(handlers);
+	}
+}
@@ -0,0 +1,61 @@
+package com.mattepu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The same session from the root to the deepest option and out again, on a tree of
+// Menus and on the FrozenMenuTree made from it, and the cost of freezing the tree.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FrozenTreeBenchmark
+{
+	@Param({ "10000", "1000000" })
+	public int nodeCount;
+	
+	private Menu rootMenu;
+	private FrozenMenuTree frozenTree;
+	private ScriptedIODevice device;
+	
+	@Setup
+	public void setUp()
+	{
+		int fanout = (int)Math.sqrt(nodeCount);
+		int depth = nodeCount / fanout;
+		rootMenu = MenuTreeGenerator.generate(depth, fanout, 42);
+		frozenTree = rootMenu.freeze();
+		device = new ScriptedIODevice(MenuTreeGenerator.inputsToDeepestOptionAndExit(depth, fanout));
+	}
+	
+	@Benchmark
+	public OptionActionResult menuSession()
+	{
+		return new MenuSession(rootMenu, device).start();
+	}
+	
+	@Benchmark
+	public OptionActionResult frozenSession()
+	{
+		return new FrozenMenuSession(frozenTree, device).start();
+	}
+	
+	@Benchmark
+	public FrozenMenuTree freeze()
+	{
+		return rootMenu.freeze();
+	}
+}
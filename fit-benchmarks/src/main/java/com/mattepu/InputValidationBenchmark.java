@@ -0,0 +1,56 @@
+package com.mattepu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Turning an input into the option it selects, for valid and invalid input.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputValidationBenchmark
+{
+	@Param({ "42", "1000", "abc", "99999999999", "" })
+	public String input;
+	
+	private Menu menu;
+	private OptionsView options;
+	
+	@Setup
+	public void setUp()
+	{
+		menu = MenuTreeGenerator.generate(0, 100, 42);
+		menu.setPageSize(10);
+		options = menu.getOptionsManager().snapshot();
+	}
+	
+	@Benchmark
+	public IOption selectOption()
+	{
+		return options.tryGetOptionAt(Menu.parseSelection(input) - 1);
+	}
+	
+	@Benchmark
+	public int pageOrSelectOption()
+	{
+		int page = menu.changePage(options, input, 0);
+		if(page >= 0)
+		{
+			return page;
+		}
+		return options.tryGetOptionAt(Menu.parseSelection(input) - 1) == null ? -1 : 0;
+	}
+}
@@ -0,0 +1,100 @@
+package com.mattepu;
+
+import java.util.Random;
+
+// Builds synthetic menu trees for benchmarks. Every menu holds "fanout" entries
+// followed by an exit option. The first entry of every menu above the given depth
+// is a sub menu and the others are options, so a tree costs depth * fanout entries
+// however deep it is. Option names are a few words and a number drawn from a
+// seeded Random, so a tree is the same on every run for the same arguments.
+public final class MenuTreeGenerator
+{
+	private static final String[] WORDS = { "network", "display", "sound", "storage", "battery",
+			"security", "accounts", "language", "backup", "updates", "devices", "privacy" };
+	
+	private static final IOption SUCCESS_OPTION = new IOption() {
+		@Override
+		public OptionActionResult optionSelected() 
+		{
+			return OptionActionResult.SUCCESS;
+		}
+	};
+	
+	private static final IOption EXIT_OPTION = new IOption() {
+		@Override
+		public OptionActionResult optionSelected() 
+		{
+			return OptionActionResult.EXIT_MENU;
+		}
+	};
+	
+	private MenuTreeGenerator()
+	{
+	}
+	
+	public static Menu generate(int depth, int fanout, long seed)
+	{
+		Random random = new Random(seed);
+		Menu rootMenu = new Menu("Home", true);
+		Menu menu = rootMenu;
+		for(int level = 0; level <= depth; level++)
+		{
+			Menu subMenu = null;
+			for(int i = 0; i < fanout; i++)
+			{
+				if(i == 0 && level < depth)
+				{
+					subMenu = new Menu(name(random));
+					menu.addSubMenu(subMenu);
+				}
+				else
+				{
+					menu.addOption(name(random), SUCCESS_OPTION);
+				}
+			}
+			menu.addOption("Exit", EXIT_OPTION);
+			menu = subMenu;
+		}
+		return rootMenu;
+	}
+	
+	// Inputs entering the deepest menu, selecting its last option and exiting
+	public static String[] inputsToDeepestOptionAndExit(int depth, int fanout)
+	{
+		String[] inputs = new String[depth + 2];
+		for(int level = 0; level < depth; level++)
+		{
+			inputs[level] = "1";
+		}
+		inputs[depth] = Integer.toString(fanout);
+		inputs[depth + 1] = Integer.toString(fanout + 1);
+		return inputs;
+	}
+	
+	public static String text(int length, long seed)
+	{
+		Random random = new Random(seed);
+		StringBuilder text = new StringBuilder(length);
+		while(text.length() < length)
+		{
+			text.append(WORDS[random.nextInt(WORDS.length)]).append(text.length() % 80 > 70 ? '\n' : ' ');
+		}
+		text.setLength(length);
+		return text.toString();
+	}
+	
+	private static String name(Random random)
+	{
+		int words = 1 + random.nextInt(3);
+		StringBuilder name = new StringBuilder();
+		for(int i = 0; i < words; i++)
+		{
+			if(i > 0)
+			{
+				name.append(' ');
+			}
+			name.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return name.append(' ').append(random.nextInt(1000000)).toString();
+	}
+}
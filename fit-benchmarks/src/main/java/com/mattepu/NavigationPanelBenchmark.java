@@ -0,0 +1,70 @@
+package com.mattepu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Entering and leaving a sub menu with the panel already at the given depth.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigationPanelBenchmark
+{
+	@Param({ "1", "10", "1000" })
+	public int depth;
+	
+	private NavigationPanel navigation;
+	private NavigationPanel truncatedNavigation;
+	
+	@Setup
+	public void setUp()
+	{
+		navigation = new NavigationPanel();
+		truncatedNavigation = new NavigationPanel();
+		truncatedNavigation.setMaxDisplayedMenus(4);
+		for(int i = 1; i < depth; i++)
+		{
+			navigation.changeToSubMenu("Menu" + i);
+			truncatedNavigation.changeToSubMenu("Menu" + i);
+		}
+	}
+	
+	@Benchmark
+	public int pushPop()
+	{
+		navigation.changeToSubMenu("Wifi");
+		navigation.goUpMenu();
+		return navigation.getDepth();
+	}
+	
+	@Benchmark
+	public String pushDisplayPop()
+	{
+		navigation.changeToSubMenu("Wifi");
+		String display = navigation.toString();
+		navigation.goUpMenu();
+		return display;
+	}
+	
+	@Benchmark
+	public String pushDisplayPopTruncated()
+	{
+		truncatedNavigation.changeToSubMenu("Wifi");
+		String display = truncatedNavigation.toString();
+		truncatedNavigation.goUpMenu();
+		return display;
+	}
+}
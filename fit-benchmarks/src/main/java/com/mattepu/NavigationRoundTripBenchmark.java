@@ -0,0 +1,59 @@
+package com.mattepu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A whole session on a generated tree: from the root menu to the deepest option
+// and out of the menu again, rendered to a device that discards the frames, and
+// the same selections run headless.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigationRoundTripBenchmark
+{
+	@Param({ "wide", "deep" })
+	public String shape;
+	
+	private Menu rootMenu;
+	private ScriptedIODevice device;
+	private String script;
+	
+	@Setup
+	public void setUp()
+	{
+		int depth = shape.equals("wide") ? 2 : 200;
+		int fanout = shape.equals("wide") ? 1000 : 5;
+		rootMenu = MenuTreeGenerator.generate(depth, fanout, 42);
+		String[] inputs = MenuTreeGenerator.inputsToDeepestOptionAndExit(depth, fanout);
+		device = new ScriptedIODevice(inputs);
+		script = "/" + String.join(BatchRunner.PATH_SEPARATOR, inputs);
+	}
+	
+	@Benchmark
+	public OptionActionResult session()
+	{
+		return new MenuSession(rootMenu, device).start();
+	}
+	
+	@Benchmark
+	public int batch()
+	{
+		BatchRunner runner = new BatchRunner(rootMenu, new StringBuilder());
+		runner.execute(script);
+		return runner.getExecutedOptions();
+	}
+}
@@ -0,0 +1,63 @@
+package com.mattepu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A million options named like inventory items, kept by an OptionsManager or with
+// their names outside the heap, rendered a page at a time and selected by name.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class OffHeapOptionsBenchmark
+{
+	private static final int PAGE_SIZE = 20;
+	
+	@Param({ "heap", "offHeap" })
+	public String storage;
+	
+	@Param({ "1000000" })
+	public int optionCount;
+	
+	private AbstractOptionsManager options;
+	private StringBuilder page = new StringBuilder();
+	private int pageIndex = 0;
+	
+	@Setup
+	public void setUp()
+	{
+		options = storage.equals("heap") ? new OptionsManager() : new OffHeapOptionsManager();
+		for(int i = 0; i < optionCount; i++)
+		{
+			options.addOption("Item " + i + " of warehouse " + (i % 100), null);
+		}
+	}
+	
+	@Benchmark
+	public int renderPage()
+	{
+		pageIndex = (pageIndex + 7919) % (optionCount / PAGE_SIZE);
+		page.setLength(0);
+		options.appendTo(page, pageIndex * PAGE_SIZE, (pageIndex + 1) * PAGE_SIZE);
+		return page.length();
+	}
+	
+	@Benchmark
+	public int findByName()
+	{
+		return options.findOption("Item 424242 of warehouse 42");
+	}
+}
@@ -0,0 +1,77 @@
+package com.mattepu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Every mutating benchmark undoes its change, so the size stays at optionCount.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptionsManagerBenchmark
+{
+	@Param({ "10", "1000", "100000" })
+	public int optionCount;
+	
+	private AbstractOptionsManager options;
+	private int lookupIndex = 0;
+	
+	@Setup
+	public void setUp()
+	{
+		options = (AbstractOptionsManager)MenuTreeGenerator.generate(0, optionCount - 1, 42).getOptionsManager();
+	}
+	
+	@Benchmark
+	public boolean addAndRemoveLast()
+	{
+		options.addOption("backup", null);
+		return options.tryRemoveOption(options.size() - 1);
+	}
+	
+	@Benchmark
+	public boolean insertAndRemoveFirst()
+	{
+		options.addOption("backup", null, 0);
+		return options.tryRemoveOption(0);
+	}
+	
+	@Benchmark
+	public IOption lookup()
+	{
+		lookupIndex = (lookupIndex + 7919) % optionCount;
+		return options.tryGetOptionAt(lookupIndex);
+	}
+	
+	@Benchmark
+	public int findByName()
+	{
+		lookupIndex = (lookupIndex + 7919) % optionCount;
+		return options.findOption(options.getOptionNameAt(lookupIndex));
+	}
+	
+	@Benchmark
+	public int findByPrefix()
+	{
+		return options.findOption("secu");
+	}
+	
+	@Benchmark
+	public IOption lookupInvalid()
+	{
+		return options.tryGetOptionAt(optionCount);
+	}
+}
@@ -0,0 +1,71 @@
+package com.mattepu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Rendering of the part of a frame below the navigation panel, by option count
+// from ten to a million, where the time should grow linearly with the count, and
+// by the size of the header and footer.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark
+{
+	@Param({ "10", "100", "1000", "10000", "100000", "1000000" })
+	public int optionCount;
+	
+	@Param({ "0", "80", "2000" })
+	public int headerFooterSize;
+	
+	private Menu menu;
+	private OptionsView options;
+	
+	@Setup
+	public void setUp()
+	{
+		menu = MenuTreeGenerator.generate(0, optionCount, 42);
+		if(headerFooterSize > 0)
+		{
+			menu.setHeader(MenuTreeGenerator.text(headerFooterSize, 1));
+			menu.setFooter(MenuTreeGenerator.text(headerFooterSize, 2));
+		}
+		options = menu.getOptionsManager().snapshot();
+	}
+	
+	// Every call changes the menu, so the body is rendered again
+	@Benchmark
+	public String renderChanged()
+	{
+		menu.setPageSize(0);
+		return menu.renderBody(options, 0);
+	}
+	
+	@Benchmark
+	public String renderUnchanged()
+	{
+		return menu.renderBody(options, 0);
+	}
+	
+	// Every call changes an option line, so its line and the ones after it are formatted again
+	@Benchmark
+	public String renderAfterOptionChange()
+	{
+		menu.removeOptionOrSubMenu(options.size() - 2);
+		menu.addOption("backup", null, options.size() - 1);
+		return menu.renderBody(options, 0);
+	}
+}
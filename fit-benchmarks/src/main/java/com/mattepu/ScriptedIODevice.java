@@ -0,0 +1,39 @@
+package com.mattepu;
+
+// Device for benchmarks that discards every frame and answers with the given
+// inputs, starting over after the last one.
+public class ScriptedIODevice implements IODevice
+{
+	private String[] inputs;
+	private int nextInput = 0;
+	private int displayedChars = 0;
+	
+	public ScriptedIODevice(String... inputs)
+	{
+		this.inputs = inputs;
+	}
+	
+	@Override
+	public void display(String content) 
+	{
+		displayedChars += content.length();
+	}
+	
+	@Override
+	public String acceptInput() 
+	{
+		String input = inputs[nextInput];
+		nextInput = (nextInput + 1) % inputs.length;
+		return input;
+	}
+	
+	@Override
+	public void clearDisplay() 
+	{
+	}
+	
+	public int getDisplayedChars()
+	{
+		return displayedChars;
+	}
+}
@@ -0,0 +1,73 @@
+package com.mattepu;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Names of generated trees are made of a dozen words and a number, so a word alone
+// matches about a quarter of the tree, while a short number is the start of many
+// different words that all have to be read.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark
+{
+	@Param({ "10000", "1000000" })
+	public int nodeCount;
+	
+	private Menu rootMenu;
+	private MenuSearchIndex index;
+	private Menu deepestMenu;
+	
+	@Setup
+	public void setUp()
+	{
+		int fanout = (int)Math.sqrt(nodeCount);
+		rootMenu = MenuTreeGenerator.generate(nodeCount / fanout, fanout, 42);
+		index = rootMenu.enableSearch();
+		deepestMenu = rootMenu;
+		while(deepestMenu.getOptionsManager().tryGetOptionAt(0) instanceof Menu)
+		{
+			deepestMenu = (Menu)deepestMenu.getOptionsManager().getOptionAt(0);
+		}
+	}
+	
+	@Benchmark
+	public List<MenuSearchIndex.Match> searchNumber()
+	{
+		return index.search("4242", MenuSession.MAX_SEARCH_MATCHES);
+	}
+	
+	@Benchmark
+	public List<MenuSearchIndex.Match> searchWordAndNumber()
+	{
+		return index.search("secu 42", MenuSession.MAX_SEARCH_MATCHES);
+	}
+	
+	@Benchmark
+	public List<MenuSearchIndex.Match> searchCommonWord()
+	{
+		return index.search("network", MenuSession.MAX_SEARCH_MATCHES);
+	}
+	
+	@Benchmark
+	public boolean addAndRemoveDeepestOption()
+	{
+		deepestMenu.addOption("backup 4242", null);
+		return deepestMenu.removeOptionOrSubMenu(deepestMenu.getOptionsManager().size() - 1);
+	}
+}
@@ -1,5 +1,7 @@
 package com.mattepu;
 
+import com.mattepu.io.TerminalIODevice;
+
 public class App 
 {
     public static void main( String[] args )
@@ -38,13 +40,15 @@ public class App
 			}
 		};
 		
+		IOption asyncSimWork = new AsyncOption(simWork);
+		
     	Menu mainMenu = new Menu("Home", true);
     	mainMenu.addOption("Back", backOption);
     	mainMenu.addOption("Return Home", homeOption);
     	mainMenu.addOption("Exit", exitOption);
     	mainMenu.addOption("Null option", null);
     	mainMenu.addSubMenu("Empty sub menu", null, -1);
-    	mainMenu.addOption("Some process", simWork);
+    	mainMenu.addOption("Some process", asyncSimWork);
     	Menu wifiMenu = new Menu("Wifi");
     	mainMenu.addSubMenu(wifiMenu);
     	wifiMenu.addOption("Back", backOption);
@@ -55,8 +59,8 @@ public class App
     	networkMenu.addOption("Back", backOption);
     	networkMenu.addOption("Return Home", homeOption);
     	networkMenu.addOption("Exit", exitOption);
-    	networkMenu.addOption("Some process", simWork, 1);
-    	mainMenu.setIODevice(new InputOutputDevice());
+    	networkMenu.addOption("Some process", asyncSimWork, 1);
+    	mainMenu.setIODevice(new TerminalIODevice());
     	mainMenu.start();
     }
 }
@@ -0,0 +1,516 @@
+package com.mattepu;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.mattepu.exception.IODeviceNotSetException;
+
+// Holds everything that belongs to one user driving a menu tree: the IODevice,
+// the navigation path, the stack of entered menus and the page shown in each menu.
+// The tree itself is only read, so one tree can be shared by any number of
+// sessions.
+//
+// The tree is driven from a single loop shared by every kind of tree. Menus are
+// known to the loop only as ids of type M, whose options, frames and search
+// results of type R the session reads through the methods below. Entered sub menus
+// are kept on an explicit stack instead of being run recursively, so the depth of
+// the tree costs no Java stack and returning home is a reset of the stack depth.
+public abstract class AbstractMenuSession<M, R>
+{
+	static final String CANCEL_COMMAND = "c";
+	static final String BACKGROUND_COMMAND = "b";
+	static final int MAX_SEARCH_MATCHES = 10;
+	private static final String PROGRESS_INDICATOR = "|/-\\";
+	private static final int FRAME_SLOTS = 16;
+	
+	private Object[] menuStack = new Object[8];
+	private int depth = 0;
+	private NavigationPanel navigation = new NavigationPanel();
+	// Only the pages moved away from the first one are remembered
+	private Map<M, Integer> pages;
+	private IODevice ioDevice;
+	private Executor executor = null;
+	private IMenuMetrics metrics = IMenuMetrics.NONE;
+	private boolean headless = false;
+	// The frames last shown for a body, so a menu and page shown again under the same
+	// path is displayed as the same String, which devices like ChannelIODevice keep
+	// the encoded bytes of
+	private String[] frameBodies = new String[FRAME_SLOTS];
+	private String[] framePaths = new String[FRAME_SLOTS];
+	private String[] frames = new String[FRAME_SLOTS];
+	
+	AbstractMenuSession(M baseMenu, String baseMenuName, IODevice ioDevice, Map<M, Integer> pages)
+	{
+		this.ioDevice = ioDevice;
+		this.pages = pages;
+		navigation.setRootMenu(baseMenuName);
+		push(baseMenu);
+	}
+	
+	// Called before every frame, so the methods below read the menu as it is shown
+	abstract void show(M menu);
+	
+	abstract String menuName(M menu);
+	
+	abstract int optionCount(M menu);
+	
+	abstract int pageSize(M menu);
+	
+	// Returns what is displayed below the navigation panel for the page
+	abstract String renderBody(M menu, int page);
+	
+	abstract int findOption(M menu, String nameOrPrefix);
+	
+	abstract boolean hasOptionAt(M menu, int index);
+	
+	// Returns the menu the option enters, or null when it runs an action
+	abstract M subMenuAt(M menu, int index);
+	
+	// Returns null when the option has no action
+	abstract IOption optionAt(M menu, int index);
+	
+	abstract String optionNameAt(M menu, int index);
+	
+	// Sessions started below the root hand results they cannot act on back to the caller
+	abstract boolean startedAtRoot();
+	
+	// Returns the best matches first, or null when the session cannot search
+	abstract List<R> search(String query, int maxMatches);
+	
+	abstract String pathOf(R match);
+	
+	// The sub menus to enter from the base menu to show the match, or null when it is
+	// no longer in the tree
+	abstract List<M> menusTo(R match);
+	
+	// Position of the match among the options of the menu, or -1 when it is a sub menu
+	// or is not there
+	abstract int indexOf(R match, M menu);
+	
+	public void setExecutor(Executor executor)
+	{
+		this.executor = executor;
+	}
+	
+	public void setMetrics(IMenuMetrics metrics)
+	{
+		this.metrics = metrics == null ? IMenuMetrics.NONE : metrics;
+	}
+	
+	public NavigationPanel getNavigation()
+	{
+		return navigation;
+	}
+	
+	// A headless session displays nothing, and waits for asynchronous options instead
+	// of showing their progress, so it only takes input.
+	void setHeadless(boolean headless)
+	{
+		this.headless = headless;
+	}
+	
+	// Bodies the tree does not keep are new for every frame, so their frames are not kept either
+	boolean keepsBody(M menu)
+	{
+		return true;
+	}
+	
+	// Called after every option run, with a null result when it was cancelled
+	void optionExecuted(String menuPath, String optionName, OptionActionResult result)
+	{
+	}
+	
+	// Called with input that is neither a command nor an option of the current menu
+	void notSelected(String inputString)
+	{
+	}
+	
+	public OptionActionResult start() throws IODeviceNotSetException
+	{
+		if(ioDevice == null)
+		{
+			throw new IODeviceNotSetException();
+		}
+		metrics.menuEntered(navigation.getPath());
+		try
+		{
+			return run();
+		}
+		finally
+		{
+			metrics.menuExited(navigation.getPath());
+			flush(ioDevice);
+		}
+	}
+	
+	private OptionActionResult run()
+	{
+		while(true)
+		{
+			M menu = currentMenu();
+			show(menu);
+			int pageSize = pageSize(menu);
+			boolean hasAtleastOneOption = optionCount(menu) > 0;
+			int shownPage = Menu.clampPage(optionCount(menu), pageSize, pageOf(menu));
+			if(!headless)
+			{
+				metrics.frameRenderStarted(navigation.getPath());
+				long renderStart = System.nanoTime();
+				ioDevice.clearDisplay();
+				String body = renderBody(menu, shownPage);
+				String frame = keepsBody(menu) ? frame(navigation.toString(), body) : navigation.toString() + body;
+				ioDevice.display(frame);
+				metrics.frameRendered(navigation.getPath(), frame.length(), System.nanoTime() - renderStart);
+			}
+			
+			if(!hasAtleastOneOption)
+			{
+				if(depth == 1)
+				{
+					return OptionActionResult.SUCCESS;
+				}
+				goUp();
+				continue;
+			}
+			
+			metrics.inputAwaited(navigation.getPath());
+			long inputStart = System.nanoTime();
+			String inputString = ioDevice.acceptInput();
+			metrics.inputReceived(navigation.getPath(), System.nanoTime() - inputStart);
+			// Streamed options are read as they are rendered, so they are counted again
+			int page = Menu.changePage(optionCount(menu), pageSize, inputString, shownPage);
+			if(page >= 0)
+			{
+				setPage(menu, page);
+				continue;
+			}
+			int selection = Menu.parseSelection(inputString);
+			int selectedIndex = selection > 0 ? selection - 1 : findOption(menu, inputString);
+			if(selectedIndex < 0 || !hasOptionAt(menu, selectedIndex))
+			{
+				// An option named like a search is selected, so only other input searches
+				if(!(inputString != null && inputString.startsWith(Menu.SEARCH_COMMAND)
+						&& search(inputString.substring(Menu.SEARCH_COMMAND.length()))))
+				{
+					notSelected(inputString);
+				}
+				continue;
+			}
+			M subMenu = subMenuAt(menu, selectedIndex);
+			if(subMenu != null)
+			{
+				enter(subMenu);
+				continue;
+			}
+			IOption option = optionAt(menu, selectedIndex);
+			if(option == null)
+			{
+				continue;
+			}
+			
+			OptionActionResult result;
+			String optionName = optionNameAt(menu, selectedIndex);
+			metrics.optionStarted(navigation.getPath(), optionName);
+			long optionStart = System.nanoTime();
+			if(option instanceof IAsyncOption && headless)
+			{
+				result = join(((IAsyncOption)option).optionSelectedAsync(executor == null ? DefaultExecutorHolder.EXECUTOR : executor));
+			}
+			else if(option instanceof IAsyncOption)
+			{
+				result = awaitAsyncOption((IAsyncOption)option, optionName, navigation.toString(), ioDevice, executor);
+			}
+			else
+			{
+				result = option.optionSelected();
+			}
+			// Options cancelled or left running in the background have no latency to report
+			optionExecuted(navigation.getPath(), optionName, result);
+			if(result != null)
+			{
+				metrics.optionExecuted(navigation.getPath(), optionName, result, System.nanoTime() - optionStart);
+			}
+			if(result == OptionActionResult.EXIT_MENU)
+			{
+				if(startedAtRoot())
+				{
+					returnHome();
+					if(!headless)
+					{
+						ioDevice.clearDisplay();
+					}
+				}
+				else
+				{
+					while(depth > 1)
+					{
+						goUp();
+					}
+				}
+				return result;
+			}
+			else if(result == OptionActionResult.GO_UP)
+			{
+				if(depth > 1)
+				{
+					goUp();
+				}
+				else if(!startedAtRoot())
+				{
+					navigation.goUpMenu();
+					return OptionActionResult.SUCCESS;
+				}
+			}
+			else if(result == OptionActionResult.RETURN_HOME)
+			{
+				if(startedAtRoot())
+				{
+					returnHome();
+				}
+				else
+				{
+					navigation.goToRootMenu();
+					return result;
+				}
+			}
+		}
+	}
+	
+	// Keeps accepting input while the option runs. The progress frame is redrawn on
+	// every input, and the wait ends with null when the user cancels the option or
+	// leaves it running in the background. An option that fails throws its failure
+	// here, as it would have run synchronously. Options run in a shared pool of
+	// daemon threads when no executor is given.
+	static OptionActionResult awaitAsyncOption(IAsyncOption option, String optionName, String navigation, IODevice ioDevice,
+			Executor executor)
+	{
+		CompletableFuture<OptionActionResult> future = option.optionSelectedAsync(executor == null ? DefaultExecutorHolder.EXECUTOR : executor);
+		long startTime = System.nanoTime();
+		int refreshCount = 0;
+		while(!future.isDone())
+		{
+			long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime);
+			ioDevice.clearDisplay();
+			ioDevice.display(navigation + "\n" + PROGRESS_INDICATOR.charAt(refreshCount % PROGRESS_INDICATOR.length())
+					+ " Running " + optionName + " (" + elapsedSeconds + "s)\n"
+					+ "Enter " + CANCEL_COMMAND + " to cancel, " + BACKGROUND_COMMAND + " to continue in background or nothing to refresh : ");
+			refreshCount++;
+			String inputString = ioDevice.acceptInput();
+			if(CANCEL_COMMAND.equals(inputString))
+			{
+				future.cancel(true);
+				return null;
+			}
+			else if(BACKGROUND_COMMAND.equals(inputString))
+			{
+				return null;
+			}
+		}
+		return join(future);
+	}
+	
+	private static OptionActionResult join(CompletableFuture<OptionActionResult> future)
+	{
+		try
+		{
+			return future.join();
+		}
+		catch(CancellationException e)
+		{
+			return null;
+		}
+		catch(CompletionException e)
+		{
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+			{
+				throw (RuntimeException)cause;
+			}
+			if(cause instanceof Error)
+			{
+				throw (Error)cause;
+			}
+			throw e;
+		}
+	}
+	
+	// Bodies are shared by every session until their menu changes, so they are told
+	// apart by identity, while the path is rebuilt whenever the navigation changes
+	private String frame(String path, String body)
+	{
+		int slot = (System.identityHashCode(body) & Integer.MAX_VALUE) % FRAME_SLOTS;
+		if(frameBodies[slot] != body || !framePaths[slot].equals(path))
+		{
+			frameBodies[slot] = body;
+			framePaths[slot] = path;
+			frames[slot] = path + body;
+		}
+		return frames[slot];
+	}
+	
+	// Returns false when the session cannot search, so the input is taken as a selection
+	private boolean search(String query)
+	{
+		List<R> matches = search(query, MAX_SEARCH_MATCHES);
+		if(matches == null)
+		{
+			return false;
+		}
+		StringBuilder frame = new StringBuilder(navigation.toString());
+		frame.append("\nSearch results for ").append(query.trim());
+		if(matches.isEmpty())
+		{
+			frame.append("\nNo matches");
+		}
+		for(int i = 0; i < matches.size(); i++)
+		{
+			frame.append('\n').append(i + 1).append(" : ").append(pathOf(matches.get(i)));
+		}
+		frame.append("\nEnter the number of a result or nothing to go back : ");
+		ioDevice.clearDisplay();
+		ioDevice.display(frame.toString());
+		int selection = Menu.parseSelection(ioDevice.acceptInput());
+		if(selection >= 1 && selection <= matches.size())
+		{
+			goTo(matches.get(selection - 1));
+		}
+		return true;
+	}
+	
+	// Enters the menus from the base down to the match as if they were selected one
+	// by one, and shows the page holding the match when it is an option.
+	private void goTo(R match)
+	{
+		List<M> path = menusTo(match);
+		if(path == null)
+		{
+			return;
+		}
+		returnHome();
+		for(M subMenu : path)
+		{
+			enter(subMenu);
+		}
+		M menu = currentMenu();
+		int pageSize = pageSize(menu);
+		if(pageSize > 0)
+		{
+			int index = indexOf(match, menu);
+			if(index >= 0)
+			{
+				setPage(menu, index / pageSize);
+			}
+		}
+	}
+	
+	// Buffering devices may still hold the last clear or frame when the session ends
+	static void flush(IODevice ioDevice)
+	{
+		if(ioDevice instanceof Flushable)
+		{
+			try
+			{
+				((Flushable)ioDevice).flush();
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+	
+	private int pageOf(M menu)
+	{
+		Integer page = pages.get(menu);
+		return page == null ? 0 : page;
+	}
+	
+	private void setPage(M menu, int page)
+	{
+		if(page == 0)
+		{
+			pages.remove(menu);
+		}
+		else
+		{
+			pages.put(menu, page);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	M baseMenu()
+	{
+		return (M)menuStack[0];
+	}
+	
+	@SuppressWarnings("unchecked")
+	private M currentMenu()
+	{
+		return (M)menuStack[depth - 1];
+	}
+	
+	private void enter(M subMenu)
+	{
+		navigation.changeToSubMenu(menuName(subMenu));
+		push(subMenu);
+		metrics.menuEntered(navigation.getPath());
+	}
+	
+	private void push(M menu)
+	{
+		if(depth == menuStack.length)
+		{
+			Object[] grownStack = new Object[depth * 2];
+			System.arraycopy(menuStack, 0, grownStack, 0, depth);
+			menuStack = grownStack;
+		}
+		menuStack[depth++] = menu;
+	}
+	
+	private void goUp()
+	{
+		if(metrics != IMenuMetrics.NONE)
+		{
+			metrics.menuExited(navigation.getPath());
+		}
+		depth--;
+		navigation.goUpMenu();
+	}
+	
+	// Entries above the base are menus of the tree itself, so they are left in the
+	// array to be overwritten rather than cleared one by one. Only the menu that was
+	// shown is reported as exited.
+	void returnHome()
+	{
+		if(metrics != IMenuMetrics.NONE && depth > 1)
+		{
+			metrics.menuExited(navigation.getPath());
+		}
+		depth = 1;
+		navigation.goToRootMenu();
+	}
+	
+	// Runs asynchronous options and the reads ahead of a StreamingOptionsManager
+	static class DefaultExecutorHolder
+	{
+		static final Executor EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "fit-worker");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+}
@@ -0,0 +1,28 @@
+package com.mattepu;
+
+import com.mattepu.exception.InvalidIndexException;
+
+// Options that a Menu adds to and removes from. Implementations keep the options
+// however suits the menu, from the lists of an OptionsManager to the names outside
+// the heap of an OffHeapOptionsManager.
+public abstract class AbstractOptionsManager extends OptionsView
+{
+	// Adds the option at the index, or after the last option when the index is not
+	// one of an option, and returns the index it was added at
+	public abstract int addOption(String optionName, IOption option, int atIndex);
+	
+	public int addOption(String optionName, IOption option)
+	{
+		return addOption(optionName, option, -1);
+	}
+	
+	public void removeOption(int atIndex) throws InvalidIndexException
+	{
+		if(!tryRemoveOption(atIndex))
+		{
+			throw new InvalidIndexException(atIndex);
+		}
+	}
+	
+	public abstract boolean tryRemoveOption(int atIndex);
+}
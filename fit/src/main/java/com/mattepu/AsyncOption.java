@@ -0,0 +1,44 @@
+package com.mattepu;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+public class AsyncOption implements IAsyncOption
+{
+	private IOption work;
+	
+	public AsyncOption(IOption work)
+	{
+		this.work = work;
+	}
+	
+	@Override
+	public CompletableFuture<OptionActionResult> optionSelectedAsync(Executor executor) 
+	{
+		final CompletableFuture<OptionActionResult> result = new CompletableFuture<OptionActionResult>();
+		final FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+			@Override
+			public void run() 
+			{
+				try
+				{
+					result.complete(work == null ? OptionActionResult.SUCCESS : work.optionSelected());
+				}
+				catch(Throwable e)
+				{
+					result.completeExceptionally(e);
+				}
+			}
+		}, null);
+		// Cancelling the returned future interrupts the thread running the work
+		result.whenComplete((value, error) -> {
+			if(result.isCancelled())
+			{
+				task.cancel(true);
+			}
+		});
+		executor.execute(task);
+		return result;
+	}
+}
@@ -0,0 +1,203 @@
+package com.mattepu;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+import com.mattepu.exception.InvalidSelectionException;
+import com.mattepu.io.ChannelLineReader;
+
+// Drives a menu tree from a script without rendering anything. Every line of the
+// script holds selections separated by "/", each being the number of an option,
+// its name, a unique prefix of its name or a page command, and a line starting
+// with "/" begins at the root menu. A "/" or "\" in a name is written "\/" or
+// "\\". Empty lines and lines starting with "#" are skipped.
+//
+// The selections are the input of a headless MenuSession, so they select options
+// and their results are handled exactly as in a session, and only the result of
+// every executed option is written to the output, one per line, with CANCELLED for
+// an asynchronous option that was cancelled. An option exiting
+// the menu ends the current procedure, so the next selection starts again at the
+// root menu.
+public class BatchRunner
+{
+	public static final String PATH_SEPARATOR = "/";
+	public static final String COMMENT = "#";
+	private static final char ESCAPE = '\\';
+	// Written for an asynchronous option that was cancelled
+	private static final String CANCELLED = "CANCELLED";
+	
+	private MenuSession session;
+	private Appendable output;
+	private ArrayDeque<String> selections = new ArrayDeque<String>();
+	private int lineNumber = 0;
+	private int executedOptions = 0;
+	
+	public BatchRunner(Menu rootMenu, Appendable output)
+	{
+		this.output = output;
+		session = new MenuSession(rootMenu, new ScriptDevice()) {
+			@Override
+			void notSelected(String inputString)
+			{
+				selections.clear();
+				throw new InvalidSelectionException(lineNumber, inputString, getNavigation().getPath());
+			}
+			
+			@Override
+			void optionExecuted(String menuPath, String optionName, OptionActionResult result)
+			{
+				executedOptions++;
+				writeResult(menuPath, optionName, result);
+			}
+		};
+		session.setHeadless(true);
+	}
+	
+	// Metrics see the batch as they see any session
+	public void setMetrics(IMenuMetrics metrics)
+	{
+		session.setMetrics(metrics);
+	}
+	
+	public int run(Path script) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(script, StandardOpenOption.READ))
+		{
+			return run(channel, StandardCharsets.UTF_8);
+		}
+	}
+	
+	// Returns the number of options executed by the script
+	public int run(ReadableByteChannel script, Charset charset) throws IOException
+	{
+		ChannelLineReader reader = new ChannelLineReader(script, charset);
+		int executedBefore = executedOptions;
+		String line;
+		while((line = reader.readLine()) != null)
+		{
+			execute(line);
+		}
+		return executedOptions - executedBefore;
+	}
+	
+	public void execute(String line) throws InvalidSelectionException
+	{
+		lineNumber++;
+		if(line.isEmpty() || line.startsWith(COMMENT))
+		{
+			return;
+		}
+		int from = 0;
+		if(line.startsWith(PATH_SEPARATOR))
+		{
+			session.returnHome();
+			from = PATH_SEPARATOR.length();
+		}
+		addSelections(line, from);
+		// The session ends when the device runs out of selections, or earlier when an
+		// option exits the menu, and is started again at the root for the rest
+		while(!selections.isEmpty())
+		{
+			int pending = selections.size();
+			try
+			{
+				session.start();
+			}
+			catch(UncheckedIOException e)
+			{
+				if(!(e.getCause() instanceof EOFException))
+				{
+					throw e;
+				}
+			}
+			if(selections.size() == pending)
+			{
+				String selection = selections.poll();
+				selections.clear();
+				throw new InvalidSelectionException(lineNumber, selection, session.getNavigation().getPath());
+			}
+		}
+	}
+	
+	public int getExecutedOptions()
+	{
+		return executedOptions;
+	}
+	
+	private void addSelections(String line, int from)
+	{
+		StringBuilder selection = new StringBuilder();
+		for(int i = from; i < line.length(); i++)
+		{
+			char c = line.charAt(i);
+			if(c == ESCAPE && i + 1 < line.length())
+			{
+				selection.append(line.charAt(++i));
+			}
+			else if(line.startsWith(PATH_SEPARATOR, i))
+			{
+				addSelection(selection);
+				i += PATH_SEPARATOR.length() - 1;
+			}
+			else
+			{
+				selection.append(c);
+			}
+		}
+		addSelection(selection);
+	}
+	
+	private void addSelection(StringBuilder selection)
+	{
+		if(selection.length() > 0)
+		{
+			selections.add(selection.toString());
+			selection.setLength(0);
+		}
+	}
+	
+	private void writeResult(String menuPath, String optionName, OptionActionResult result)
+	{
+		try
+		{
+			output.append(menuPath).append(PATH_SEPARATOR).append(optionName).append(" : ").append(result == null ? CANCELLED : result.name()).append('\n');
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	// Hands the selections to the session one by one and shows nothing
+	private class ScriptDevice implements IODevice
+	{
+		@Override
+		public void display(String content)
+		{
+		}
+		
+		@Override
+		public String acceptInput()
+		{
+			String selection = selections.poll();
+			if(selection == null)
+			{
+				throw new UncheckedIOException(new EOFException("End of the selections of line " + lineNumber + " reached"));
+			}
+			return selection;
+		}
+		
+		@Override
+		public void clearDisplay()
+		{
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package com.mattepu;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.mattepu.exception.InvalidIndexException;
+
+// Options manager that can be changed from any thread while menus are rendered.
+// Every change copies the options into a new immutable snapshot and publishes it
+// atomically, so readers never lock and never see the names and actions out of sync.
+// Once a snapshot was searched by name, each change copies its name index with the
+// change made rather than sorting the names again.
+public class ConcurrentOptionsManager extends AbstractOptionsManager
+{
+	private volatile Snapshot current = new Snapshot(new String[0], new IOption[0], 0, null);
+	
+	@Override
+	public synchronized int addOption(String optionName, IOption option, int atIndex)
+	{
+		if(optionName == null)
+		{
+			optionName = "";
+		}
+		Snapshot snapshot = current;
+		int size = snapshot.names.length;
+		int addedAtIndex = (atIndex < 0 || atIndex >= size) ? size : atIndex;
+		String[] names = new String[size + 1];
+		IOption[] actions = new IOption[size + 1];
+		System.arraycopy(snapshot.names, 0, names, 0, addedAtIndex);
+		System.arraycopy(snapshot.actions, 0, actions, 0, addedAtIndex);
+		names[addedAtIndex] = optionName;
+		actions[addedAtIndex] = option;
+		System.arraycopy(snapshot.names, addedAtIndex, names, addedAtIndex + 1, size - addedAtIndex);
+		System.arraycopy(snapshot.actions, addedAtIndex, actions, addedAtIndex + 1, size - addedAtIndex);
+		OptionNameIndex nameIndex = snapshot.nameIndex;
+		if(nameIndex != null)
+		{
+			nameIndex = nameIndex.copy();
+			nameIndex.added(addedAtIndex, optionName);
+		}
+		current = new Snapshot(names, actions, snapshot.version + 1, nameIndex);
+		return addedAtIndex;
+	}
+	
+	@Override
+	public synchronized boolean tryRemoveOption(int atIndex)
+	{
+		Snapshot snapshot = current;
+		int size = snapshot.names.length;
+		if(atIndex < 0 || atIndex >= size)
+		{
+			return false;
+		}
+		String[] names = new String[size - 1];
+		IOption[] actions = new IOption[size - 1];
+		System.arraycopy(snapshot.names, 0, names, 0, atIndex);
+		System.arraycopy(snapshot.actions, 0, actions, 0, atIndex);
+		System.arraycopy(snapshot.names, atIndex + 1, names, atIndex, size - atIndex - 1);
+		System.arraycopy(snapshot.actions, atIndex + 1, actions, atIndex, size - atIndex - 1);
+		OptionNameIndex nameIndex = snapshot.nameIndex;
+		if(nameIndex != null)
+		{
+			nameIndex = nameIndex.copy();
+			nameIndex.removed(atIndex, snapshot.names[atIndex]);
+		}
+		current = new Snapshot(names, actions, snapshot.version + 1, nameIndex);
+		return true;
+	}
+	
+	@Override
+	public IOption getOptionAt(int index) throws InvalidIndexException
+	{
+		return current.getOptionAt(index);
+	}
+	
+	@Override
+	public String getOptionNameAt(int index) throws InvalidIndexException
+	{
+		return current.getOptionNameAt(index);
+	}
+	
+	@Override
+	public int size()
+	{
+		return current.size();
+	}
+	
+	@Override
+	public boolean hasOptionAt(int index)
+	{
+		return current.hasOptionAt(index);
+	}
+	
+	@Override
+	public IOption tryGetOptionAt(int index)
+	{
+		return current.tryGetOptionAt(index);
+	}
+	
+	@Override
+	public int findOption(String nameOrPrefix)
+	{
+		return current.findOption(nameOrPrefix);
+	}
+	
+	@Override
+	public void appendTo(StringBuilder builder, int fromIndex, int toIndex)
+	{
+		current.appendTo(builder, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void appendTo(StringBuilder builder)
+	{
+		current.appendTo(builder);
+	}
+	
+	@Override
+	public void appendTo(Appendable appendable) throws IOException
+	{
+		current.appendTo(appendable);
+	}
+	
+	@Override
+	public OptionsView snapshot()
+	{
+		return current;
+	}
+	
+	@Override
+	int getVersion()
+	{
+		return current.version;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return current.toString();
+	}
+	
+	private static final class Snapshot extends OptionsView
+	{
+		private final String[] names;
+		private final IOption[] actions;
+		private final int version;
+		private volatile String rendered = null;
+		private volatile OptionNameIndex nameIndex;
+		
+		Snapshot(String[] names, IOption[] actions, int version, OptionNameIndex nameIndex)
+		{
+			this.names = names;
+			this.actions = actions;
+			this.version = version;
+			this.nameIndex = nameIndex;
+		}
+		
+		@Override
+		public IOption getOptionAt(int index) throws InvalidIndexException
+		{
+			if(!hasOptionAt(index))
+			{
+				throw new InvalidIndexException(index);
+			}
+			return actions[index];
+		}
+		
+		@Override
+		public String getOptionNameAt(int index) throws InvalidIndexException
+		{
+			if(!hasOptionAt(index))
+			{
+				throw new InvalidIndexException(index);
+			}
+			return names[index];
+		}
+		
+		@Override
+		public int size()
+		{
+			return names.length;
+		}
+		
+		// The index is only read once built, so it is built completely before it is shared
+		@Override
+		public int findOption(String nameOrPrefix)
+		{
+			OptionNameIndex index = nameIndex;
+			if(index == null)
+			{
+				index = new OptionNameIndex(Arrays.asList(names));
+				nameIndex = index;
+			}
+			return index.find(nameOrPrefix);
+		}
+		
+		@Override
+		public void appendTo(StringBuilder builder, int fromIndex, int toIndex)
+		{
+			fromIndex = Math.max(fromIndex, 0);
+			toIndex = Math.min(toIndex, names.length);
+			for(int i = fromIndex; i < toIndex; i++)
+			{
+				if(i != fromIndex)
+				{
+					builder.append('\n');
+				}
+				builder.append(i + 1).append(" : ").append(names[i]);
+			}
+		}
+		
+		@Override
+		public void appendTo(StringBuilder builder)
+		{
+			builder.append(toString());
+		}
+		
+		@Override
+		public void appendTo(Appendable appendable) throws IOException
+		{
+			appendable.append(toString());
+		}
+		
+		@Override
+		int getVersion()
+		{
+			return version;
+		}
+		
+		// Racing readers may both render the text, but they produce the same string
+		@Override
+		public String toString()
+		{
+			String text = rendered;
+			if(text == null)
+			{
+				StringBuilder builder = new StringBuilder();
+				appendTo(builder, 0, names.length);
+				text = builder.toString();
+				rendered = text;
+			}
+			return text;
+		}
+	}
+}
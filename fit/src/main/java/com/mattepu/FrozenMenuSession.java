@@ -0,0 +1,115 @@
+package com.mattepu;
+
+import java.util.HashMap;
+import java.util.List;
+
+// A MenuSession for a FrozenMenuTree. Menus are the ids of the frozen tree, and
+// only the pages moved away from the first one are remembered, so a session costs
+// the same on a tree of any size.
+public class FrozenMenuSession extends AbstractMenuSession<Integer, Integer>
+{
+	private final FrozenMenuTree tree;
+	
+	public FrozenMenuSession(FrozenMenuTree tree, IODevice ioDevice)
+	{
+		super(0, tree.getMenuName(0), ioDevice, new HashMap<Integer, Integer>());
+		this.tree = tree;
+	}
+	
+	@Override
+	void show(Integer menu)
+	{
+	}
+	
+	@Override
+	String menuName(Integer menu)
+	{
+		return tree.getMenuName(menu);
+	}
+	
+	@Override
+	int optionCount(Integer menu)
+	{
+		return tree.getOptionCount(menu);
+	}
+	
+	@Override
+	int pageSize(Integer menu)
+	{
+		return tree.getPageSize(menu);
+	}
+	
+	@Override
+	String renderBody(Integer menu, int page)
+	{
+		return tree.renderBody(menu, page);
+	}
+	
+	@Override
+	int findOption(Integer menu, String nameOrPrefix)
+	{
+		return tree.findOption(menu, nameOrPrefix);
+	}
+	
+	@Override
+	boolean hasOptionAt(Integer menu, int index)
+	{
+		return index < tree.getOptionCount(menu);
+	}
+	
+	@Override
+	Integer subMenuAt(Integer menu, int index)
+	{
+		int subMenu = tree.getSubMenu(menu, index);
+		return subMenu == FrozenMenuTree.NONE ? null : subMenu;
+	}
+	
+	@Override
+	IOption optionAt(Integer menu, int index)
+	{
+		return tree.getAction(menu, index);
+	}
+	
+	@Override
+	String optionNameAt(Integer menu, int index)
+	{
+		return tree.getOptionName(menu, index);
+	}
+	
+	// A frozen tree is always driven from its root
+	@Override
+	boolean startedAtRoot()
+	{
+		return true;
+	}
+	
+	@Override
+	List<Integer> search(String query, int maxMatches)
+	{
+		FrozenSearchIndex searchIndex = tree.getSearchIndex();
+		return searchIndex == null ? null : searchIndex.search(query, maxMatches);
+	}
+	
+	@Override
+	String pathOf(Integer match)
+	{
+		return tree.getSearchIndex().pathOf(match);
+	}
+	
+	@Override
+	List<Integer> menusTo(Integer match)
+	{
+		return tree.getSearchIndex().menusTo(match);
+	}
+	
+	@Override
+	int indexOf(Integer match, Integer menu)
+	{
+		int index = match - tree.getFirstOption(menu);
+		if(tree.menuOf(match) != menu || tree.getSubMenu(menu, index) != FrozenMenuTree.NONE)
+		{
+			return -1;
+		}
+		return index;
+	}
+}
@@ -0,0 +1,515 @@
+package com.mattepu;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// An immutable copy of a menu tree kept as parallel arrays instead of objects, made
+// by Menu.freeze(). Menus are numbered breadth first from the root, which is menu 0,
+// and the options of menu m are the entries firstOption[m] to firstOption[m + 1] - 1.
+// Every name, header and footer is an index into one table of distinct strings, kept
+// UTF-8 encoded end to end in one array and decoded when read, so a tree of millions
+// of nodes costs a few ints and the bytes of its names per node, without a String
+// per name, and walking it touches a few arrays rather than a graph of Menus,
+// OptionsManagers and lists. Unpaired surrogates in names are stored as '?'.
+//
+// Sessions on a frozen tree are FrozenMenuSessions, which show the same frames and
+// take the same input as a MenuSession on the tree it was frozen from, searching
+// included. A menu shared by several menus is frozen once and stays shared.
+public final class FrozenMenuTree
+{
+	static final int NONE = -1;
+	// Ignores case the way String.CASE_INSENSITIVE_ORDER does, one char at a time, as
+	// names are compared while they are decoded
+	private static final Comparator<String> NAME_ORDER = new Comparator<String>() {
+		@Override
+		public int compare(String first, String second)
+		{
+			int length = Math.min(first.length(), second.length());
+			for(int i = 0; i < length; i++)
+			{
+				int comparison = compareIgnoringCase(first.charAt(i), second.charAt(i));
+				if(comparison != 0)
+				{
+					return comparison;
+				}
+			}
+			return Integer.compare(first.length(), second.length());
+		}
+	};
+	
+	// String s is the bytes from stringStarts[s] to stringStarts[s + 1] - 1
+	private final byte[] stringBytes;
+	private final int[] stringStarts;
+	private final int[] menuNames;
+	private final int[] menuHeaders;
+	private final int[] menuFooters;
+	private final int[] pageSizes;
+	private final int[] firstOption;
+	private final int[] optionNames;
+	// The options of every menu by name ignoring case, then by position, so that
+	// findOption is a binary search. Entry firstOption[m] + i is a position in menu m.
+	private final int[] optionOrder;
+	// The menu an option enters, or NONE when the option runs its action
+	private final int[] optionMenus;
+	private final IOption[] optionActions;
+	// The option a menu was first found through, or NONE for the root
+	private final int[] menuEntries;
+	// The body of the page last shown of every menu, as every Menu keeps its own. A
+	// frozen page never changes, so a body of the shown page is always current.
+	private final AtomicReferenceArray<RenderedBody> renderedBodies;
+	private volatile FrozenSearchIndex searchIndex = null;
+	
+	private FrozenMenuTree(byte[] stringBytes, int[] stringStarts, int[] menuNames, int[] menuHeaders, int[] menuFooters, int[] pageSizes,
+			int[] firstOption, int[] optionNames, int[] optionOrder, int[] optionMenus, IOption[] optionActions, int[] menuEntries)
+	{
+		this.stringBytes = stringBytes;
+		this.stringStarts = stringStarts;
+		this.menuNames = menuNames;
+		this.menuHeaders = menuHeaders;
+		this.menuFooters = menuFooters;
+		this.pageSizes = pageSizes;
+		this.firstOption = firstOption;
+		this.optionNames = optionNames;
+		this.optionOrder = optionOrder;
+		this.optionMenus = optionMenus;
+		this.optionActions = optionActions;
+		this.menuEntries = menuEntries;
+		renderedBodies = new AtomicReferenceArray<RenderedBody>(menuNames.length);
+	}
+	
+	// Every menu is read through one snapshot of its options, so the frozen options
+	// of a menu are options it had at one moment even while it is being changed.
+	static FrozenMenuTree freeze(Menu rootMenu)
+	{
+		Map<Menu, Integer> menuIds = new IdentityHashMap<Menu, Integer>();
+		List<Menu> menus = new ArrayList<Menu>();
+		List<OptionsView> menuOptions = new ArrayList<OptionsView>();
+		List<Integer> entries = new ArrayList<Integer>();
+		menuIds.put(rootMenu, 0);
+		menus.add(rootMenu);
+		entries.add(NONE);
+		int optionCount = 0;
+		for(int i = 0; i < menus.size(); i++)
+		{
+			OptionsView options = menus.get(i).getOptionsManager().snapshot();
+			menuOptions.add(options);
+			int size = options.size();
+			for(int j = 0; j < size; j++)
+			{
+				Menu subMenu = LazySubMenu.subMenuOf(options.getOptionAt(j));
+				if(subMenu != null && !menuIds.containsKey(subMenu))
+				{
+					menuIds.put(subMenu, menus.size());
+					menus.add(subMenu);
+					entries.add(optionCount + j);
+				}
+			}
+			optionCount += size;
+		}
+		
+		StringTable table = new StringTable();
+		int menuCount = menus.size();
+		int[] menuNames = new int[menuCount];
+		int[] menuHeaders = new int[menuCount];
+		int[] menuFooters = new int[menuCount];
+		int[] pageSizes = new int[menuCount];
+		int[] menuEntries = new int[menuCount];
+		int[] firstOption = new int[menuCount + 1];
+		int[] optionNames = new int[optionCount];
+		int[] optionOrder = new int[optionCount];
+		int[] optionMenus = new int[optionCount];
+		IOption[] optionActions = new IOption[optionCount];
+		int option = 0;
+		for(int i = 0; i < menuCount; i++)
+		{
+			Menu menu = menus.get(i);
+			menuNames[i] = table.indexOf(menu.getName());
+			menuHeaders[i] = table.indexOf(menu.getHeader());
+			menuFooters[i] = table.indexOf(menu.getFooter());
+			pageSizes[i] = menu.getPageSize();
+			menuEntries[i] = entries.get(i);
+			firstOption[i] = option;
+			OptionsView options = menuOptions.get(i);
+			int size = options.size();
+			sortByName(options, optionOrder, option);
+			for(int j = 0; j < size; j++, option++)
+			{
+				IOption action = options.getOptionAt(j);
+				Menu subMenu = LazySubMenu.subMenuOf(action);
+				optionNames[option] = table.indexOf(options.getOptionNameAt(j));
+				optionMenus[option] = subMenu == null ? NONE : menuIds.get(subMenu);
+				optionActions[option] = subMenu == null ? action : null;
+			}
+		}
+		firstOption[menuCount] = option;
+		FrozenMenuTree tree = new FrozenMenuTree(table.toBytes(), table.toStarts(), menuNames, menuHeaders, menuFooters, pageSizes, firstOption,
+				optionNames, optionOrder, optionMenus, optionActions, menuEntries);
+		if(rootMenu.getSearchIndex() != null)
+		{
+			tree.enableSearch();
+		}
+		return tree;
+	}
+	
+	public int getMenuCount()
+	{
+		return menuNames.length;
+	}
+	
+	public int getOptionCount()
+	{
+		return optionNames.length;
+	}
+	
+	public int getStringCount()
+	{
+		return stringStarts.length - 1;
+	}
+	
+	public OptionActionResult start(IODevice ioDevice)
+	{
+		return new FrozenMenuSession(this, ioDevice).start();
+	}
+	
+	// Indexes the names of every option and sub menu so that sessions can search them
+	// as they search the tree it was frozen from. Trees frozen from a tree with search
+	// enabled are indexed while freezing.
+	public synchronized void enableSearch()
+	{
+		if(searchIndex == null)
+		{
+			searchIndex = new FrozenSearchIndex(this);
+		}
+	}
+	
+	FrozenSearchIndex getSearchIndex()
+	{
+		return searchIndex;
+	}
+	
+	String getMenuName(int menu)
+	{
+		return string(menuNames[menu]);
+	}
+	
+	int getPageSize(int menu)
+	{
+		return pageSizes[menu];
+	}
+	
+	int getOptionCount(int menu)
+	{
+		return firstOption[menu + 1] - firstOption[menu];
+	}
+	
+	String getOptionName(int menu, int index)
+	{
+		return string(optionNames[firstOption[menu] + index]);
+	}
+	
+	int getFirstOption(int menu)
+	{
+		return firstOption[menu];
+	}
+	
+	int getMenuEntry(int menu)
+	{
+		return menuEntries[menu];
+	}
+	
+	// The menu holding the option, where options are numbered through the whole tree
+	int menuOf(int option)
+	{
+		int low = 0;
+		int high = menuNames.length - 1;
+		while(low < high)
+		{
+			int middle = (low + high + 1) >>> 1;
+			if(firstOption[middle] <= option)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+	
+	int getSubMenu(int menu, int index)
+	{
+		return optionMenus[firstOption[menu] + index];
+	}
+	
+	IOption getAction(int menu, int index)
+	{
+		return optionActions[firstOption[menu] + index];
+	}
+	
+	// Same rules as the OptionNameIndex of an OptionsManager: a unique name equal to
+	// the input ignoring case, else the only name starting with it. Names are found
+	// by a binary search of the order of the menu, comparing the encoded names.
+	int findOption(int menu, String nameOrPrefix)
+	{
+		if(nameOrPrefix == null || nameOrPrefix.isEmpty())
+		{
+			return NONE;
+		}
+		int from = firstOption[menu];
+		int low = from;
+		int high = firstOption[menu + 1];
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if(compareName(from + optionOrder[middle], nameOrPrefix, false) < 0)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		if(low == firstOption[menu + 1])
+		{
+			return NONE;
+		}
+		int first = from + optionOrder[low];
+		int next = low + 1 < firstOption[menu + 1] ? from + optionOrder[low + 1] : NONE;
+		if(compareName(first, nameOrPrefix, false) == 0)
+		{
+			return next != NONE && compareName(next, nameOrPrefix, false) == 0 ? NONE : first - from;
+		}
+		if(compareName(first, nameOrPrefix, true) == 0 && !(next != NONE && compareName(next, nameOrPrefix, true) == 0))
+		{
+			return first - from;
+		}
+		return NONE;
+	}
+	
+	// Compares the name of the option with the query in NAME_ORDER, decoding only the
+	// chars compared. With prefix set, a name starting with the query compares equal.
+	private int compareName(int option, String query, boolean prefix)
+	{
+		int position = stringStarts[optionNames[option]];
+		int end = stringStarts[optionNames[option] + 1];
+		char lowSurrogate = 0;
+		for(int i = 0; ; i++)
+		{
+			if(lowSurrogate == 0 && position == end)
+			{
+				return i == query.length() ? 0 : -1;
+			}
+			if(i == query.length())
+			{
+				return prefix ? 0 : 1;
+			}
+			char c;
+			if(lowSurrogate != 0)
+			{
+				c = lowSurrogate;
+				lowSurrogate = 0;
+			}
+			else
+			{
+				int first = stringBytes[position++];
+				if(first >= 0)
+				{
+					c = (char)first;
+				}
+				else if((first & 0xE0) == 0xC0)
+				{
+					c = (char)(((first & 0x1F) << 6) | (stringBytes[position++] & 0x3F));
+				}
+				else if((first & 0xF0) == 0xE0)
+				{
+					int second = stringBytes[position++] & 0x3F;
+					c = (char)(((first & 0x0F) << 12) | (second << 6) | (stringBytes[position++] & 0x3F));
+				}
+				else
+				{
+					int second = stringBytes[position++] & 0x3F;
+					int third = stringBytes[position++] & 0x3F;
+					int codePoint = ((first & 0x07) << 18) | (second << 12) | (third << 6) | (stringBytes[position++] & 0x3F);
+					c = Character.highSurrogate(codePoint);
+					lowSurrogate = Character.lowSurrogate(codePoint);
+				}
+			}
+			int comparison = compareIgnoringCase(c, query.charAt(i));
+			if(comparison != 0)
+			{
+				return comparison;
+			}
+		}
+	}
+	
+	private static int compareIgnoringCase(char first, char second)
+	{
+		if(first != second)
+		{
+			first = Character.toUpperCase(first);
+			second = Character.toUpperCase(second);
+			if(first != second)
+			{
+				return Character.toLowerCase(first) - Character.toLowerCase(second);
+			}
+		}
+		return 0;
+	}
+	
+	// Fills the order of the options from the given entry on
+	private static void sortByName(OptionsView options, int[] optionOrder, int from)
+	{
+		final String[] names = new String[options.size()];
+		Integer[] order = new Integer[names.length];
+		for(int i = 0; i < names.length; i++)
+		{
+			names[i] = asStored(options.getOptionNameAt(i));
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second)
+			{
+				int comparison = NAME_ORDER.compare(names[first], names[second]);
+				return comparison != 0 ? comparison : first.compareTo(second);
+			}
+		});
+		for(int i = 0; i < order.length; i++)
+		{
+			optionOrder[from + i] = order[i];
+		}
+	}
+	
+	// Returns what Menu renders below the navigation panel for the page
+	String renderBody(int menu, int page)
+	{
+		RenderedBody body = renderedBodies.get(menu);
+		if(body == null || body.page != page)
+		{
+			StringBuilder builder = new StringBuilder();
+			appendBody(builder, menu, page);
+			body = new RenderedBody(page, builder.toString());
+			renderedBodies.set(menu, body);
+		}
+		return body.text;
+	}
+	
+	private void appendBody(StringBuilder builder, int menu, int page)
+	{
+		int optionCount = getOptionCount(menu);
+		int pageSize = pageSizes[menu];
+		appendLine(builder, menuHeaders[menu]);
+		if(optionCount > 0)
+		{
+			int fromIndex = pageSize == 0 ? 0 : page * pageSize;
+			int toIndex = pageSize == 0 ? optionCount : Math.min(fromIndex + pageSize, optionCount);
+			for(int i = fromIndex; i < toIndex; i++)
+			{
+				builder.append('\n').append(i + 1).append(" : ").append(getOptionName(menu, i));
+			}
+			if(pageSize > 0)
+			{
+				Menu.appendPageFooter(builder, page, Menu.pageCount(optionCount, pageSize), true);
+			}
+		}
+		appendLine(builder, menuFooters[menu]);
+		if(optionCount > 0)
+		{
+			builder.append('\n').append(Menu.CHOICE_PROMPT);
+		}
+	}
+	
+	private void appendLine(StringBuilder builder, int string)
+	{
+		if(string != NONE)
+		{
+			builder.append('\n').append(string(string));
+		}
+	}
+	
+	private String string(int string)
+	{
+		int start = stringStarts[string];
+		return new String(stringBytes, start, stringStarts[string + 1] - start, StandardCharsets.UTF_8);
+	}
+	
+	// Names are ordered as they are stored, where unpaired surrogates became '?'
+	private static String asStored(String name)
+	{
+		for(int i = 0; i < name.length(); i++)
+		{
+			if(Character.isSurrogate(name.charAt(i)))
+			{
+				return new String(name.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+			}
+		}
+		return name;
+	}
+	
+	private static final class RenderedBody
+	{
+		final int page;
+		final String text;
+		
+		RenderedBody(int page, String text)
+		{
+			this.page = page;
+			this.text = text;
+		}
+	}
+	
+	// Strings are kept as Strings only while freezing, to find the ones already added
+	private static final class StringTable
+	{
+		private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private int[] starts = new int[64];
+		private int size = 0;
+		
+		int indexOf(String string)
+		{
+			if(string == null)
+			{
+				return NONE;
+			}
+			Integer index = indexes.get(string);
+			if(index == null)
+			{
+				byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+				if((long)bytes.size() + encoded.length > Integer.MAX_VALUE - 8)
+				{
+					throw new OutOfMemoryError("Names of the tree do not fit in one array");
+				}
+				if(size + 1 == starts.length)
+				{
+					starts = Arrays.copyOf(starts, starts.length * 2);
+				}
+				bytes.write(encoded, 0, encoded.length);
+				index = size;
+				starts[++size] = bytes.size();
+				indexes.put(string, index);
+			}
+			return index;
+		}
+		
+		byte[] toBytes()
+		{
+			return bytes.toByteArray();
+		}
+		
+		int[] toStarts()
+		{
+			return Arrays.copyOf(starts, size + 1);
+		}
+	}
+}
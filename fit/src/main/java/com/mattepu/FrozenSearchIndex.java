@@ -0,0 +1,331 @@
+package com.mattepu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// The MenuSearchIndex of a FrozenMenuTree, kept as arrays like the tree itself. The
+// distinct words of every name are sorted in one array, and the options having
+// word w are postings[firstPosting[w]] to postings[firstPosting[w + 1] - 1], in the
+// order of places MenuSearchIndex keeps them in. Queries match, rank and stop early
+// and correct misspelt words the way they do in a MenuSearchIndex, so both find the
+// same matches. Options are
+// numbered through the whole tree, and a match is the number of its option.
+final class FrozenSearchIndex
+{
+	private final FrozenMenuTree tree;
+	private final int[] menuDepths;
+	// The order a MenuSearchIndex indexes the menus in, which orders names that are
+	// the same in every other way
+	private final int[] menuRanks;
+	private final String[] words;
+	private final int[] firstPosting;
+	private final int[] postings;
+	// Closer to the root, then shorter, then by name and by the order they were indexed
+	private final Comparator<Integer> placeOrder = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer first, Integer second)
+		{
+			return comparePlaces(first, second);
+		}
+	};
+	private final Comparator<Match> bestFirst = new Comparator<Match>() {
+		@Override
+		public int compare(Match first, Match second)
+		{
+			int comparison = Integer.compare(second.score, first.score);
+			return comparison != 0 ? comparison : comparePlaces(first.option, second.option);
+		}
+	};
+	
+	FrozenSearchIndex(FrozenMenuTree tree)
+	{
+		this.tree = tree;
+		int menuCount = tree.getMenuCount();
+		menuDepths = new int[menuCount];
+		// Menus are numbered breadth first, so the menu holding the entry of a menu comes before it
+		for(int menu = 1; menu < menuCount; menu++)
+		{
+			menuDepths[menu] = menuDepths[tree.menuOf(tree.getMenuEntry(menu))] + 1;
+		}
+		menuRanks = new int[menuCount];
+		boolean[] found = new boolean[menuCount];
+		int[] pending = new int[menuCount];
+		int pendingCount = 0;
+		pending[pendingCount++] = 0;
+		found[0] = true;
+		for(int rank = 0; pendingCount > 0; rank++)
+		{
+			int menu = pending[--pendingCount];
+			menuRanks[menu] = rank;
+			for(int i = 0; i < tree.getOptionCount(menu); i++)
+			{
+				int subMenu = tree.getSubMenu(menu, i);
+				if(subMenu != FrozenMenuTree.NONE && !found[subMenu])
+				{
+					found[subMenu] = true;
+					pending[pendingCount++] = subMenu;
+				}
+			}
+		}
+		
+		int optionCount = tree.getOptionCount();
+		Map<String, int[]> counts = new HashMap<String, int[]>();
+		for(int option = 0; option < optionCount; option++)
+		{
+			for(String word : MenuSearchIndex.wordsOf(nameOf(option)))
+			{
+				int[] count = counts.get(word);
+				if(count == null)
+				{
+					count = new int[1];
+					counts.put(word, count);
+				}
+				count[0]++;
+			}
+		}
+		words = counts.keySet().toArray(new String[counts.size()]);
+		Arrays.sort(words);
+		firstPosting = new int[words.length + 1];
+		for(int i = 0; i < words.length; i++)
+		{
+			int[] count = counts.get(words[i]);
+			firstPosting[i + 1] = firstPosting[i] + count[0];
+			// From here on the count is where the next posting of the word goes
+			count[0] = firstPosting[i];
+		}
+		postings = new int[firstPosting[words.length]];
+		for(int option = 0; option < optionCount; option++)
+		{
+			for(String word : MenuSearchIndex.wordsOf(nameOf(option)))
+			{
+				postings[counts.get(word)[0]++] = option;
+			}
+		}
+		for(int i = 0; i < words.length; i++)
+		{
+			sortPlaces(firstPosting[i], firstPosting[i + 1]);
+		}
+	}
+	
+	// Returns at most the given number of options matching the query, best first
+	List<Integer> search(String query, int maxMatches)
+	{
+		String[] queryWords = MenuSearchIndex.wordsOf(query);
+		if(queryWords.length == 0 || maxMatches <= 0)
+		{
+			return Collections.emptyList();
+		}
+		String corrected = correct(queryWords);
+		if(corrected != null)
+		{
+			query = corrected;
+			queryWords = MenuSearchIndex.wordsOf(corrected);
+		}
+		String rarestWord = null;
+		int rarestFrom = 0;
+		int rarestTo = 0;
+		int rarestCount = Integer.MAX_VALUE;
+		for(String queryWord : queryWords)
+		{
+			int from = firstWordFrom(queryWord);
+			int to = firstWordFrom(queryWord + Character.MAX_VALUE);
+			int count = firstPosting[to] - firstPosting[from];
+			if(count < rarestCount)
+			{
+				rarestWord = queryWord;
+				rarestFrom = from;
+				rarestTo = to;
+				rarestCount = count;
+			}
+		}
+		String lowerQuery = query.trim().toLowerCase(Locale.ROOT);
+		int otherWordsScore = (queryWords.length - 1) * MenuSearchIndex.EXACT_WORD_SCORE + MenuSearchIndex.NAME_PREFIX_SCORE;
+		PriorityQueue<Match> best = new PriorityQueue<Match>(maxMatches + 1, Collections.reverseOrder(bestFirst));
+		for(int i = rarestFrom; i < rarestTo; i++)
+		{
+			String word = words[i];
+			int highestScore = otherWordsScore
+					+ (word.equals(rarestWord) ? MenuSearchIndex.EXACT_WORD_SCORE : MenuSearchIndex.PREFIX_WORD_SCORE);
+			for(int posting = firstPosting[i]; posting < firstPosting[i + 1]; posting++)
+			{
+				int option = postings[posting];
+				if(best.size() == maxMatches && !canRankAbove(option, highestScore, best.peek()))
+				{
+					break;
+				}
+				String name = nameOf(option);
+				String[] nameWords = MenuSearchIndex.wordsOf(name);
+				// A name with several words starting with the query word is seen once for each
+				if(!word.equals(MenuSearchIndex.firstWordStartingWith(nameWords, rarestWord)))
+				{
+					continue;
+				}
+				int score = MenuSearchIndex.score(nameWords, name.toLowerCase(Locale.ROOT), queryWords, lowerQuery);
+				if(score < 0)
+				{
+					continue;
+				}
+				Match match = new Match(option, score);
+				if(best.size() < maxMatches)
+				{
+					best.add(match);
+				}
+				else if(bestFirst.compare(match, best.peek()) < 0)
+				{
+					best.poll();
+					best.add(match);
+				}
+			}
+		}
+		List<Match> sorted = new ArrayList<Match>(best);
+		Collections.sort(sorted, bestFirst);
+		List<Integer> matches = new ArrayList<Integer>(sorted.size());
+		for(Match match : sorted)
+		{
+			matches.add(match.option);
+		}
+		return matches;
+	}
+	
+	// Names of the menus from the root to the option followed by its own name
+	String pathOf(int option)
+	{
+		int menu = tree.menuOf(option);
+		String[] names = new String[menuDepths[menu] + 2];
+		names[names.length - 1] = nameOf(option);
+		for(; menu != 0; menu = tree.menuOf(tree.getMenuEntry(menu)))
+		{
+			names[menuDepths[menu]] = tree.getMenuName(menu);
+		}
+		names[0] = tree.getMenuName(0);
+		StringBuilder path = new StringBuilder(names[0]);
+		for(int i = 1; i < names.length; i++)
+		{
+			path.append(MenuSearchIndex.PATH_SEPARATOR).append(names[i]);
+		}
+		return path.toString();
+	}
+	
+	// The sub menus to enter from the root to show the option
+	List<Integer> menusTo(int option)
+	{
+		int menu = tree.menuOf(option);
+		int subMenu = tree.getSubMenu(menu, option - tree.getFirstOption(menu));
+		Integer[] menus = new Integer[menuDepths[menu] + (subMenu != FrozenMenuTree.NONE ? 1 : 0)];
+		if(subMenu != FrozenMenuTree.NONE)
+		{
+			menus[menus.length - 1] = subMenu;
+		}
+		for(; menu != 0; menu = tree.menuOf(tree.getMenuEntry(menu)))
+		{
+			menus[menuDepths[menu] - 1] = menu;
+		}
+		return Arrays.asList(menus);
+	}
+	
+	// Returns the query with every misspelt word corrected, or null when no word was
+	private String correct(String[] queryWords)
+	{
+		boolean corrected = false;
+		String[] correctedWords = queryWords.clone();
+		for(int i = 0; i < queryWords.length; i++)
+		{
+			String queryWord = queryWords[i];
+			if(queryWord.length() < MenuSearchIndex.MIN_CORRECTED_LENGTH
+					|| firstWordFrom(queryWord) < firstWordFrom(queryWord + Character.MAX_VALUE))
+			{
+				continue;
+			}
+			String correction = null;
+			int correctionCount = 0;
+			String firstLetter = queryWord.substring(0, 1);
+			int to = firstWordFrom(firstLetter + Character.MAX_VALUE);
+			for(int word = firstWordFrom(firstLetter); word < to; word++)
+			{
+				String candidate = MenuSearchIndex.correctionOf(queryWord, words[word]);
+				int count = firstPosting[word + 1] - firstPosting[word];
+				if(candidate != null && count > correctionCount)
+				{
+					correction = candidate;
+					correctionCount = count;
+				}
+			}
+			if(correction != null)
+			{
+				correctedWords[i] = correction;
+				corrected = true;
+			}
+		}
+		return corrected ? String.join(" ", correctedWords) : null;
+	}
+	
+	private String nameOf(int option)
+	{
+		int menu = tree.menuOf(option);
+		return tree.getOptionName(menu, option - tree.getFirstOption(menu));
+	}
+	
+	private int firstWordFrom(String word)
+	{
+		int index = Arrays.binarySearch(words, word);
+		return index >= 0 ? index : -index - 1;
+	}
+	
+	private boolean canRankAbove(int option, int highestScore, Match match)
+	{
+		return highestScore > match.score || (highestScore == match.score && comparePlaces(option, match.option) < 0);
+	}
+	
+	private int comparePlaces(int first, int second)
+	{
+		int comparison = Integer.compare(menuDepths[tree.menuOf(first)], menuDepths[tree.menuOf(second)]);
+		if(comparison == 0)
+		{
+			String firstName = nameOf(first);
+			String secondName = nameOf(second);
+			comparison = Integer.compare(firstName.length(), secondName.length());
+			if(comparison == 0)
+			{
+				comparison = firstName.toLowerCase(Locale.ROOT).compareTo(secondName.toLowerCase(Locale.ROOT));
+			}
+		}
+		if(comparison == 0)
+		{
+			comparison = Integer.compare(menuRanks[tree.menuOf(first)], menuRanks[tree.menuOf(second)]);
+		}
+		return comparison != 0 ? comparison : Integer.compare(first, second);
+	}
+	
+	private void sortPlaces(int from, int to)
+	{
+		Integer[] options = new Integer[to - from];
+		for(int i = 0; i < options.length; i++)
+		{
+			options[i] = postings[from + i];
+		}
+		Arrays.sort(options, placeOrder);
+		for(int i = 0; i < options.length; i++)
+		{
+			postings[from + i] = options[i];
+		}
+	}
+	
+	private static final class Match
+	{
+		final int option;
+		final int score;
+		
+		Match(int option, int score)
+		{
+			this.option = option;
+			this.score = score;
+		}
+	}
+}
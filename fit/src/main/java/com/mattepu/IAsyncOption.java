@@ -0,0 +1,15 @@
+package com.mattepu;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public interface IAsyncOption extends IOption
+{
+	CompletableFuture<OptionActionResult> optionSelectedAsync(Executor executor);
+	
+	@Override
+	default OptionActionResult optionSelected()
+	{
+		return optionSelectedAsync(Runnable::run).join();
+	}
+}
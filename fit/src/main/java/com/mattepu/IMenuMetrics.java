@@ -0,0 +1,48 @@
+package com.mattepu;
+
+// Receives timings from every MenuSession of a menu tree. Sessions on different
+// threads call it concurrently. Menu paths are the full path of the navigation
+// panel of the session, with every menu even when fewer are displayed, which is
+// only rebuilt when the session moves between menus.
+//
+// Each timing is reported once the work is done. The started calls mark, on the
+// same session thread, the moment the work they precede begins, for metrics that
+// record spans rather than durations.
+public interface IMenuMetrics
+{
+	IMenuMetrics NONE = new IMenuMetrics() {
+	};
+	
+	default void menuEntered(String menuPath)
+	{
+	}
+	
+	default void menuExited(String menuPath)
+	{
+	}
+	
+	default void frameRenderStarted(String menuPath)
+	{
+	}
+	
+	// Clearing the display, building the frame and displaying it
+	default void frameRendered(String menuPath, int frameLength, long nanos)
+	{
+	}
+	
+	default void inputAwaited(String menuPath)
+	{
+	}
+	
+	default void inputReceived(String menuPath, long waitNanos)
+	{
+	}
+	
+	default void optionStarted(String menuPath, String optionName)
+	{
+	}
+	
+	default void optionExecuted(String menuPath, String optionName, OptionActionResult result, long nanos)
+	{
+	}
+}
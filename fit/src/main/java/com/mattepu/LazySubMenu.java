@@ -0,0 +1,77 @@
+package com.mattepu;
+
+import java.util.function.Supplier;
+
+import com.mattepu.exception.RootMenuAsSubMenuException;
+
+// A sub menu that is built by a supplier when it is entered rather than when the
+// tree is built, and kept in a SubMenuCache shared by any number of lazy sub menus.
+// A tree of lazy sub menus only takes the time and heap of the menus users visit.
+//
+// The options of a lazy sub menu are not part of the tree until it is built, so the
+// search index of the tree finds the lazy sub menu by its own name only.
+public class LazySubMenu implements IOption
+{
+	private final Supplier<Menu> builder;
+	private final SubMenuCache cache;
+	private int builds = 0;
+	
+	public LazySubMenu(Supplier<Menu> builder, SubMenuCache cache)
+	{
+		this.builder = builder;
+		this.cache = cache;
+	}
+	
+	// Sessions entering the sub menu at the same time wait for one build
+	public synchronized Menu getMenu() throws RootMenuAsSubMenuException
+	{
+		Menu menu = cache.get(this);
+		if(menu == null)
+		{
+			menu = builder.get();
+			if(menu == null)
+			{
+				menu = new Menu("");
+			}
+			else if(menu.isRoot())
+			{
+				throw new RootMenuAsSubMenuException();
+			}
+			builds++;
+			cache.put(this, menu);
+		}
+		return menu;
+	}
+	
+	// Drops the built menu, so the next entry builds it again from the supplier
+	public void invalidate()
+	{
+		cache.remove(this);
+	}
+	
+	public synchronized int getBuilds()
+	{
+		return builds;
+	}
+	
+	@Override
+	public OptionActionResult optionSelected()
+	{
+		return getMenu().optionSelected();
+	}
+	
+	// Returns the menu to enter for a selected option, building it when it is lazy,
+	// or null when the option is not a sub menu.
+	static Menu subMenuOf(IOption option)
+	{
+		if(option instanceof Menu)
+		{
+			return (Menu)option;
+		}
+		else if(option instanceof LazySubMenu)
+		{
+			return ((LazySubMenu)option).getMenu();
+		}
+		return null;
+	}
+}
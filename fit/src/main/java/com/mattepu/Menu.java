@@ -1,35 +1,61 @@
 package com.mattepu;
 
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.mattepu.exception.ActionOnlyForRootMenuException;
 import com.mattepu.exception.IODeviceNotSetException;
-import com.mattepu.exception.InvalidIndexException;
 import com.mattepu.exception.RootMenuAsSubMenuException;
 import com.mattepu.exception.SubMenuDoesNotExistException;
 
 public class Menu implements IOption
 {
+	public static final String NEXT_PAGE_COMMAND = ">";
+	public static final String PREVIOUS_PAGE_COMMAND = "<";
+	public static final String GO_TO_PAGE_COMMAND = "#";
+	public static final String SEARCH_COMMAND = "?";
+	static final String CHOICE_PROMPT = "Enter your choice : ";
+	private static final MenuSearchIndex[] NO_SEARCH_INDEXES = new MenuSearchIndex[0];
+	
 	private String menuName = "";
 	private boolean isRootMenu = false;
 	private String header = null;
 	private String footer = null;
-	private OptionsManager optionsManager = new OptionsManager();
+	private OptionsView optionsManager;
+	private AbstractOptionsManager changeableOptions;
 	private IODevice ioDevice = null;
-	private NavigationPanel navigation = null;
+	private Executor executor = null;
+	private IMenuMetrics metrics = null;
+	private int pageSize = 0;
+	// Counts the changes to the menu, each one made before the count is raised, so a
+	// body rendered while a change is made is never kept as the body of the new count
+	private final AtomicInteger version = new AtomicInteger();
+	private volatile RenderedBody renderedBody = null;
+	// Every index holding the menu, since a menu may be shared by trees indexed apart
+	private volatile MenuSearchIndex[] searchIndexes = NO_SEARCH_INDEXES;
 	
-	public Menu(String name, boolean isRoot)
+	// Options that are only read, such as a StreamingOptionsManager, cannot be changed
+	// through the menu: adding an option returns -1 and removing one returns false.
+	public Menu(String name, boolean isRoot, OptionsView optionsManager)
 	{
 		if(name != null)
 		{
 			menuName = name;
 		}
 		isRootMenu = isRoot;
-		if(isRoot)
+		this.optionsManager = optionsManager == null ? new OptionsManager() : optionsManager;
+		if(this.optionsManager instanceof AbstractOptionsManager)
 		{
-			navigation = new NavigationPanel();
-			navigation.setRootMenu(name);
+			changeableOptions = (AbstractOptionsManager)this.optionsManager;
 		}
 	}
 	
+	public Menu(String name, boolean isRoot)
+	{
+		this(name, isRoot, null);
+	}
+	
 	public Menu(String name)
 	{
 		this(name, false);
@@ -49,23 +75,24 @@ public class Menu implements IOption
 			header = header.equals("") ? null : header;
 			this.header = header;
 		}
+		changed();
 	}
 	
 	public int addOption(String optionName, IOption option, int atIndex)
 	{
-		return optionsManager.addOption(optionName, option, atIndex);
+		return add(optionName, option, atIndex);
 	}
 	
 	public int addOption(String optionName, IOption option)
 	{
-		return optionsManager.addOption(optionName, option);
+		return add(optionName, option, -1);
 	}
 	
 	public int addSubMenu(String menuName, Menu subMenu, int atIndex) throws RootMenuAsSubMenuException
 	{
 		if(subMenu == null)
 		{
-			return optionsManager.addOption(menuName, subMenu, atIndex);
+			return add(menuName, subMenu, atIndex);
 		}
 		else if(subMenu.isRootMenu)
 		{
@@ -73,7 +100,7 @@ public class Menu implements IOption
 		}
 		else
 		{
-			return optionsManager.addOption(menuName, subMenu, atIndex);
+			return add(menuName, subMenu, atIndex);
 		}
 	}
 	
@@ -94,25 +121,33 @@ public class Menu implements IOption
 	
 	public Menu getSubMenu(int atIndex) throws SubMenuDoesNotExistException
 	{
-		IOption option = optionsManager.getOptionAt(atIndex);
-		if(!(option instanceof Menu))
+		Menu subMenu = LazySubMenu.subMenuOf(optionsManager.getOptionAt(atIndex));
+		if(subMenu == null)
 		{
 			throw new SubMenuDoesNotExistException();
 		}
-		return (Menu)option;
+		return subMenu;
 	}
 	
 	public boolean removeOptionOrSubMenu(int at)
 	{
-		try
+		OptionsView options = optionsManager.snapshot();
+		if(!options.hasOptionAt(at))
 		{
-			optionsManager.removeOption(at);
-			return true;
+			return false;
 		}
-		catch(InvalidIndexException e)
+		String optionName = options.getOptionNameAt(at);
+		IOption option = options.getOptionAt(at);
+		if(changeableOptions == null || !changeableOptions.tryRemoveOption(at))
 		{
 			return false;
 		}
+		changed();
+		for(MenuSearchIndex index : searchIndexes)
+		{
+			index.removed(this, optionName, option);
+		}
+		return true;
 	}
 	
 	public void setFooter(String footer)
@@ -129,6 +164,28 @@ public class Menu implements IOption
 			footer = footer.equals("") ? null : footer;
 			this.footer = footer;
 		}
+		changed();
+	}
+	
+	public void setPageSize(int pageSize)
+	{
+		this.pageSize = pageSize < 0 ? 0 : pageSize;
+		changed();
+	}
+	
+	public int getPageSize()
+	{
+		return pageSize;
+	}
+	
+	public void setExecutor(Executor executor)
+	{
+		this.executor = executor;
+	}
+	
+	public void setMetrics(IMenuMetrics metrics)
+	{
+		this.metrics = metrics;
 	}
 	
 	public void setIODevice(IODevice ioDevice)
@@ -152,92 +209,271 @@ public class Menu implements IOption
 		}
 	}
 	
+	public String getName()
+	{
+		return menuName;
+	}
+	
 	public boolean isRoot()
 	{
 		return isRootMenu;
 	}
-
+	
+	// Indexes the names of every option and sub menu of the tree so that sessions can
+	// search them with SEARCH_COMMAND followed by the words to find.
+	public MenuSearchIndex enableSearch() throws ActionOnlyForRootMenuException
+	{
+		if(!isRootMenu)
+		{
+			throw new ActionOnlyForRootMenuException();
+		}
+		MenuSearchIndex index = getSearchIndex();
+		if(index == null)
+		{
+			index = new MenuSearchIndex(this);
+		}
+		return index;
+	}
+	
+	// Compiles the tree into a FrozenMenuTree, which drives the same way with a
+	// fraction of the heap. Lazy sub menus are built while freezing, and changes to
+	// the menus after freezing are not seen by the frozen tree.
+	public FrozenMenuTree freeze() throws ActionOnlyForRootMenuException
+	{
+		if(!isRootMenu)
+		{
+			throw new ActionOnlyForRootMenuException();
+		}
+		return FrozenMenuTree.freeze(this);
+	}
+	
+	String getHeader()
+	{
+		return header;
+	}
+	
+	String getFooter()
+	{
+		return footer;
+	}
+	
+	// The index of the tree rooted at this menu, or null when its search is not enabled
+	MenuSearchIndex getSearchIndex()
+	{
+		for(MenuSearchIndex index : searchIndexes)
+		{
+			if(index.getRootMenu() == this)
+			{
+				return index;
+			}
+		}
+		return null;
+	}
+	
+	synchronized void addSearchIndex(MenuSearchIndex index)
+	{
+		MenuSearchIndex[] indexes = Arrays.copyOf(searchIndexes, searchIndexes.length + 1);
+		indexes[indexes.length - 1] = index;
+		searchIndexes = indexes;
+	}
+	
+	synchronized void removeSearchIndex(MenuSearchIndex index)
+	{
+		MenuSearchIndex[] indexes = searchIndexes;
+		for(int i = 0; i < indexes.length; i++)
+		{
+			if(indexes[i] == index)
+			{
+				MenuSearchIndex[] remaining = Arrays.copyOf(indexes, indexes.length - 1);
+				System.arraycopy(indexes, i + 1, remaining, i, remaining.length - i);
+				searchIndexes = remaining;
+				return;
+			}
+		}
+	}
+	
 	@Override
 	public OptionActionResult optionSelected() 
 	{
-		while(true)
+		MenuSession session = new MenuSession(this, ioDevice);
+		if(executor != null)
+		{
+			session.setExecutor(executor);
+		}
+		if(metrics != null)
+		{
+			session.setMetrics(metrics);
+		}
+		return session.start();
+	}
+	
+	OptionsView getOptionsManager()
+	{
+		return optionsManager;
+	}
+	
+	private void changed()
+	{
+		version.incrementAndGet();
+	}
+	
+	private int add(String optionName, IOption option, int atIndex)
+	{
+		if(changeableOptions == null)
 		{
-			ioDevice.clearDisplay();
-			
-			String toDisplay = "";
-			
-			toDisplay += navigation.toString();
-			toDisplay += nonEmptyHeader();
-			boolean hasAtleastOneOption = hasAtleastOneOption();
-			if(hasAtleastOneOption)
+			return -1;
+		}
+		int addedAtIndex = changeableOptions.addOption(optionName, option, atIndex);
+		changed();
+		for(MenuSearchIndex index : searchIndexes)
+		{
+			index.added(this, optionName == null ? "" : optionName, option);
+		}
+		return addedAtIndex;
+	}
+	
+	// The part of a frame below the navigation panel is the same for every session
+	// showing the same page of the same options, so it is rendered once per change
+	// and shared. The options are passed as the snapshot the session resolves
+	// selections against, so the frame and the selection always agree.
+	String renderBody(OptionsView options, int page)
+	{
+		if(!keepsBody(options))
+		{
+			return buildBody(options, page);
+		}
+		RenderedBody body = renderedBody;
+		if(body == null || !body.isFor(version.get(), options, page))
+		{
+			body = renderBodySynchronized(options, page);
+		}
+		return body.text;
+	}
+	
+	private synchronized RenderedBody renderBodySynchronized(OptionsView options, int page)
+	{
+		RenderedBody body = renderedBody;
+		int bodyVersion = version.get();
+		if(body == null || !body.isFor(bodyVersion, options, page))
+		{
+			body = new RenderedBody(bodyVersion, options, options.getVersion(), page, buildBody(options, page));
+			renderedBody = body;
+		}
+		return body;
+	}
+	
+	// A whole menu of off heap options is not kept, as it would hold every name on the heap
+	boolean keepsBody(OptionsView options)
+	{
+		return pageSize > 0 || !(options instanceof OffHeapOptionsManager);
+	}
+	
+	private String buildBody(OptionsView options, int page)
+	{
+		boolean hasAtleastOneOption = options.size() > 0;
+		StringBuilder toDisplay = new StringBuilder();
+		toDisplay.append(nonEmptyHeader());
+		if(hasAtleastOneOption)
+		{
+			toDisplay.append("\n");
+			if(pageSize == 0)
 			{
-				toDisplay += "\n" + optionsManager.toString();
+				options.appendTo(toDisplay);
 			}
-			toDisplay += nonEmptyFooter();
-			
-			if(hasAtleastOneOption)
+			else
 			{
-				toDisplay += "\n" + "Enter your choice : ";
-				ioDevice.display(toDisplay);
-				String inputString = ioDevice.acceptInput();
-				if(isValidInputString(inputString))
-				{
-					IOption option = optionsManager.getOptionAt(Integer.parseInt(inputString) - 1);
-					if(option == null)
-					{
-						continue;
-					}
-					else if(option instanceof Menu)
-					{
-						Menu menuAsOption = (Menu)option;
-						menuAsOption.setIODevice(ioDevice);
-						navigation.changeToSubMenu(menuAsOption.menuName);
-						menuAsOption.navigation = navigation;
-					}
-					OptionActionResult result = option.optionSelected();
-					if(result == OptionActionResult.SUCCESS)
-					{
-						continue;
-					}
-					else if(result == OptionActionResult.EXIT_MENU)
-					{
-						if(isRootMenu)
-						{
-							ioDevice.clearDisplay();
-						}
-						return result;
-					}
-					else if(result == OptionActionResult.GO_UP)
-					{
-						if(isRootMenu)
-						{
-							continue;
-						}
-						navigation.goUpMenu();
-						return OptionActionResult.SUCCESS;
-					}
-					else if(result == OptionActionResult.RETURN_HOME)
-					{
-						if(isRootMenu)
-						{
-							continue;
-						}
-						navigation.goToRootMenu();
-						return result;
-					}
-				}
-				else
-				{
-					continue;
-				}
+				appendPage(toDisplay, options, page);
 			}
-			else
+		}
+		toDisplay.append(nonEmptyFooter());
+		if(hasAtleastOneOption)
+		{
+			toDisplay.append("\n").append(CHOICE_PROMPT);
+		}
+		return toDisplay.toString();
+	}
+	
+	int clampPage(OptionsView options, int page)
+	{
+		return clampPage(options.size(), pageSize, page);
+	}
+	
+	// Returns the page to show after the input when it is a page command, or -1 when
+	// it is not one. Commands that lead outside the existing pages keep the current page.
+	int changePage(OptionsView options, String inputString, int currentPage)
+	{
+		if(pageSize == 0 || inputString == null)
+		{
+			return -1;
+		}
+		return changePage(options.size(), pageSize, inputString, currentPage);
+	}
+	
+	private void appendPage(StringBuilder toDisplay, OptionsView options, int page)
+	{
+		int fromIndex = page * pageSize;
+		options.appendTo(toDisplay, fromIndex, fromIndex + pageSize);
+		appendPageFooter(toDisplay, page, pageCount(options.size(), pageSize), options.isComplete());
+	}
+	
+	// The paging rules work on counts alone, so that a FrozenMenuTree pages the same way
+	static int pageCount(int optionCount, int pageSize)
+	{
+		return (optionCount + pageSize - 1) / pageSize;
+	}
+	
+	static int clampPage(int optionCount, int pageSize, int page)
+	{
+		if(pageSize == 0)
+		{
+			return 0;
+		}
+		return Math.max(0, Math.min(page, pageCount(optionCount, pageSize) - 1));
+	}
+	
+	static int changePage(int optionCount, int pageSize, String inputString, int currentPage)
+	{
+		if(pageSize == 0 || inputString == null)
+		{
+			return -1;
+		}
+		int page = currentPage;
+		if(inputString.equals(NEXT_PAGE_COMMAND))
+		{
+			page++;
+		}
+		else if(inputString.equals(PREVIOUS_PAGE_COMMAND))
+		{
+			page--;
+		}
+		else if(inputString.startsWith(GO_TO_PAGE_COMMAND))
+		{
+			page = parseSelection(inputString, GO_TO_PAGE_COMMAND.length()) - 1;
+			if(page < 0)
 			{
-				ioDevice.display(toDisplay);
-				return OptionActionResult.SUCCESS;
+				return -1;
 			}
-			
 		}
+		else
+		{
+			return -1;
+		}
+		if(page >= 0 && page < pageCount(optionCount, pageSize))
+		{
+			return page;
+		}
+		return currentPage;
+	}
+	
+	static void appendPageFooter(StringBuilder toDisplay, int page, int pageCount, boolean isComplete)
+	{
+		toDisplay.append("\n").append("Page ").append(page + 1).append(" of ").append(pageCount);
+		if(!isComplete)
+		{
+			toDisplay.append('+');
+		}
+		toDisplay.append(" (" + PREVIOUS_PAGE_COMMAND + " : previous, " + NEXT_PAGE_COMMAND + " : next, ");
+		toDisplay.append(GO_TO_PAGE_COMMAND + "n : go to page n)");
 	}
 	
 	private String nonEmptyHeader()
@@ -258,30 +494,63 @@ public class Menu implements IOption
 		return "";
 	}
 	
-	private boolean hasAtleastOneOption()
+	static int parseSelection(String inputString)
 	{
-		try
+		return parseSelection(inputString, 0);
+	}
+	
+	// Parses a positive decimal number without allocating or throwing, so that
+	// mistyped input is as cheap to reject as valid input is to accept.
+	// Returns -1 when the input is not a number that fits in an int.
+	static int parseSelection(String inputString, int fromIndex)
+	{
+		if(inputString == null)
 		{
-			optionsManager.getOptionAt(0);
-			return true;
+			return -1;
 		}
-		catch (InvalidIndexException e) 
+		int length = inputString.length();
+		if(fromIndex < length && inputString.charAt(fromIndex) == '+')
 		{
-			return false;
+			fromIndex++;
 		}
+		if(fromIndex >= length)
+		{
+			return -1;
+		}
+		int value = 0;
+		for(int i = fromIndex; i < length; i++)
+		{
+			int digit = inputString.charAt(i) - '0';
+			if(digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10)
+			{
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
 	}
 	
-	private boolean isValidInputString(String inputString)
+	private static final class RenderedBody
 	{
-		try
+		final int version;
+		final OptionsView options;
+		final int optionsVersion;
+		final int page;
+		final String text;
+		
+		RenderedBody(int version, OptionsView options, int optionsVersion, int page, String text)
 		{
-			int inputValue = Integer.parseInt(inputString);
-			optionsManager.getOptionAt(inputValue - 1);
-			return true;
+			this.version = version;
+			this.options = options;
+			this.optionsVersion = optionsVersion;
+			this.page = page;
+			this.text = text;
 		}
-		catch(Exception e)
+		
+		boolean isFor(int version, OptionsView options, int page)
 		{
-			return false;
+			return this.version == version && this.options == options
+					&& this.optionsVersion == options.getVersion() && this.page == page;
 		}
 	}
 }
@@ -0,0 +1,603 @@
+package com.mattepu;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Inverted index from the words in the names of every option and sub menu of a
+// menu tree to the places they appear. Names are split into lower case words at
+// every character that is not a letter or digit, and a query matches a name when
+// each of its words starts a word of the name, so "net wi" finds "Wifi Network".
+//
+// The index follows changes made through the menus of the tree, so it is built
+// once. A query walks only the names having a word that starts with the query word
+// shared by the fewest names, which keeps queries on trees with millions of names
+// in milliseconds. A menu that appears in more than one place of the tree is
+// indexed under the first place it was found, and under one of its other places
+// once that place is removed.
+//
+// A query word starting no word of any name is taken as misspelt, and replaced by
+// the start of the most used word that is one edit away from it, so "netwrok" finds
+// "Network". The first letter is taken as typed, which keeps the words compared to
+// the few sharing it, and words shorter than MIN_CORRECTED_LENGTH are not corrected.
+public class MenuSearchIndex
+{
+	static final String PATH_SEPARATOR = "/";
+	static final int EXACT_WORD_SCORE = 3;
+	static final int PREFIX_WORD_SCORE = 1;
+	static final int NAME_PREFIX_SCORE = 2;
+	static final int MIN_CORRECTED_LENGTH = 3;
+	// Closer to the root, then shorter, then by name and by the order they were indexed
+	private static final Comparator<Entry> PLACE_ORDER = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry first, Entry second)
+		{
+			int comparison = Integer.compare(first.parent.depth, second.parent.depth);
+			if(comparison == 0)
+			{
+				comparison = Integer.compare(first.name.length(), second.name.length());
+			}
+			if(comparison == 0)
+			{
+				comparison = first.lowerName.compareTo(second.lowerName);
+			}
+			return comparison != 0 ? comparison : Long.compare(first.id, second.id);
+		}
+	};
+	private static final Comparator<Match> BEST_FIRST = new Comparator<Match>() {
+		@Override
+		public int compare(Match first, Match second)
+		{
+			int comparison = Integer.compare(second.score, first.score);
+			return comparison != 0 ? comparison : PLACE_ORDER.compare(first.entry, second.entry);
+		}
+	};
+	
+	private final Menu rootMenu;
+	private final Map<Menu, Node> nodes = new IdentityHashMap<Menu, Node>();
+	private final TreeMap<String, TreeSet<Entry>> postings = new TreeMap<String, TreeSet<Entry>>();
+	private int size = 0;
+	private long nextId = 0;
+	
+	MenuSearchIndex(Menu rootMenu)
+	{
+		this.rootMenu = rootMenu;
+		Node root = new Node(rootMenu, null, 0);
+		nodes.put(rootMenu, root);
+		rootMenu.addSearchIndex(this);
+		indexTree(root);
+	}
+	
+	public Menu getRootMenu()
+	{
+		return rootMenu;
+	}
+	
+	// Number of options and sub menus in the index
+	public synchronized int size()
+	{
+		return size;
+	}
+	
+	// Returns at most the given number of matches, best first. Names matching more
+	// query words exactly rank higher, then names starting with the whole query, then
+	// names closer to the root and shorter names.
+	//
+	// The names sharing a word are kept in that order of places, so a word shared by
+	// much of the tree is only read until no later name could rank among the matches.
+	public synchronized List<Match> search(String query, int maxMatches)
+	{
+		String[] queryWords = wordsOf(query);
+		if(queryWords.length == 0 || maxMatches <= 0)
+		{
+			return Collections.emptyList();
+		}
+		String corrected = correct(queryWords);
+		if(corrected != null)
+		{
+			query = corrected;
+			queryWords = wordsOf(corrected);
+		}
+		String rarestWord = null;
+		SortedMap<String, TreeSet<Entry>> rarest = null;
+		int rarestCount = Integer.MAX_VALUE;
+		for(String queryWord : queryWords)
+		{
+			SortedMap<String, TreeSet<Entry>> range = wordsStartingWith(queryWord);
+			int count = 0;
+			for(TreeSet<Entry> entries : range.values())
+			{
+				count += entries.size();
+				if(count >= rarestCount)
+				{
+					break;
+				}
+			}
+			if(count < rarestCount)
+			{
+				rarestWord = queryWord;
+				rarest = range;
+				rarestCount = count;
+			}
+		}
+		String lowerQuery = query.trim().toLowerCase(Locale.ROOT);
+		int otherWordsScore = (queryWords.length - 1) * EXACT_WORD_SCORE + NAME_PREFIX_SCORE;
+		PriorityQueue<Match> best = new PriorityQueue<Match>(maxMatches + 1, Collections.reverseOrder(BEST_FIRST));
+		for(Map.Entry<String, TreeSet<Entry>> posting : rarest.entrySet())
+		{
+			String word = posting.getKey();
+			int highestScore = otherWordsScore + (word.equals(rarestWord) ? EXACT_WORD_SCORE : PREFIX_WORD_SCORE);
+			for(Entry entry : posting.getValue())
+			{
+				if(best.size() == maxMatches && !canRankAbove(entry, highestScore, best.peek()))
+				{
+					break;
+				}
+				// A name with several words starting with the query word is seen once for each
+				if(!word.equals(firstWordStartingWith(entry.words, rarestWord)))
+				{
+					continue;
+				}
+				int score = score(entry.words, entry.lowerName, queryWords, lowerQuery);
+				if(score < 0)
+				{
+					continue;
+				}
+				Match match = new Match(entry, score);
+				if(best.size() < maxMatches)
+				{
+					best.add(match);
+				}
+				else if(BEST_FIRST.compare(match, best.peek()) < 0)
+				{
+					best.poll();
+					best.add(match);
+				}
+			}
+		}
+		List<Match> matches = new ArrayList<Match>(best);
+		Collections.sort(matches, BEST_FIRST);
+		for(Match match : matches)
+		{
+			match.path = pathOf(match.entry);
+		}
+		return matches;
+	}
+	
+	// Returns the query with every misspelt word corrected, or null when no word was
+	private String correct(String[] queryWords)
+	{
+		boolean corrected = false;
+		String[] correctedWords = queryWords.clone();
+		for(int i = 0; i < queryWords.length; i++)
+		{
+			String queryWord = queryWords[i];
+			if(queryWord.length() < MIN_CORRECTED_LENGTH || !wordsStartingWith(queryWord).isEmpty())
+			{
+				continue;
+			}
+			String correction = null;
+			int correctionCount = 0;
+			for(Map.Entry<String, TreeSet<Entry>> posting : wordsStartingWith(queryWord.substring(0, 1)).entrySet())
+			{
+				String candidate = correctionOf(queryWord, posting.getKey());
+				if(candidate != null && posting.getValue().size() > correctionCount)
+				{
+					correction = candidate;
+					correctionCount = posting.getValue().size();
+				}
+			}
+			if(correction != null)
+			{
+				correctedWords[i] = correction;
+				corrected = true;
+			}
+		}
+		return corrected ? String.join(" ", correctedWords) : null;
+	}
+	
+	private static boolean canRankAbove(Entry entry, int highestScore, Match match)
+	{
+		return highestScore > match.score || (highestScore == match.score && PLACE_ORDER.compare(entry, match.entry) < 0);
+	}
+	
+	// The sub menus to enter from the root to show the match, or null when it was
+	// removed from the tree since it was found.
+	synchronized Menu[] menusTo(Match match)
+	{
+		Entry entry = match.entry;
+		if(entry.removed)
+		{
+			return null;
+		}
+		Node node = entry.parent;
+		boolean intoSubMenu = match.isSubMenu();
+		Menu[] menus = new Menu[node.depth + (intoSubMenu ? 1 : 0)];
+		if(intoSubMenu)
+		{
+			menus[menus.length - 1] = (Menu)entry.option;
+		}
+		for(; node.entry != null; node = node.entry.parent)
+		{
+			menus[node.depth - 1] = node.menu;
+		}
+		return menus;
+	}
+	
+	synchronized void added(Menu menu, String name, IOption option)
+	{
+		Node parent = nodes.get(menu);
+		if(parent == null)
+		{
+			return;
+		}
+		Node subMenu = add(parent, name, option);
+		if(subMenu != null)
+		{
+			indexTree(subMenu);
+		}
+	}
+	
+	synchronized void removed(Menu menu, String name, IOption option)
+	{
+		Node parent = nodes.get(menu);
+		if(parent == null)
+		{
+			return;
+		}
+		for(int i = 0; i < parent.entries.size(); i++)
+		{
+			Entry entry = parent.entries.get(i);
+			if(entry.option == option && entry.name.equals(name))
+			{
+				parent.entries.remove(i);
+				remove(entry);
+				return;
+			}
+		}
+	}
+	
+	private void indexTree(Node top)
+	{
+		Deque<Node> pending = new ArrayDeque<Node>();
+		pending.push(top);
+		while(!pending.isEmpty())
+		{
+			Node node = pending.pop();
+			OptionsView options = node.menu.getOptionsManager().snapshot();
+			for(int i = 0; i < options.size(); i++)
+			{
+				Node subMenu = add(node, options.getOptionNameAt(i), options.tryGetOptionAt(i));
+				if(subMenu != null)
+				{
+					pending.push(subMenu);
+				}
+			}
+		}
+	}
+	
+	// Returns the node of a sub menu new to the index, whose options are still to be indexed
+	private Node add(Node parent, String name, IOption option)
+	{
+		Entry entry = new Entry(name, option, parent, nextId++);
+		parent.entries.add(entry);
+		for(String word : entry.words)
+		{
+			TreeSet<Entry> entries = postings.get(word);
+			if(entries == null)
+			{
+				entries = new TreeSet<Entry>(PLACE_ORDER);
+				postings.put(word, entries);
+			}
+			entries.add(entry);
+		}
+		size++;
+		if(option instanceof Menu)
+		{
+			Node node = nodes.get(option);
+			if(node != null)
+			{
+				node.places.add(entry);
+				return null;
+			}
+			return addNode((Menu)option, entry);
+		}
+		return null;
+	}
+	
+	private Node addNode(Menu menu, Entry entry)
+	{
+		Node node = new Node(menu, entry, entry.parent.depth + 1);
+		node.places.add(entry);
+		nodes.put(menu, node);
+		menu.addSearchIndex(this);
+		return node;
+	}
+	
+	// Removes the entry and, when it is the place a sub menu was indexed under, everything
+	// below it. Sub menus dropped that way which are still found in other places are
+	// indexed again under the first of them.
+	private void remove(Entry removedEntry)
+	{
+		List<Node> dropped = new ArrayList<Node>();
+		Deque<Entry> pending = new ArrayDeque<Entry>();
+		pending.push(removedEntry);
+		while(!pending.isEmpty())
+		{
+			Entry entry = pending.pop();
+			entry.removed = true;
+			for(String word : entry.words)
+			{
+				TreeSet<Entry> entries = postings.get(word);
+				entries.remove(entry);
+				if(entries.isEmpty())
+				{
+					postings.remove(word);
+				}
+			}
+			size--;
+			Node node = entry.option instanceof Menu ? nodes.get(entry.option) : null;
+			if(node != null)
+			{
+				node.places.remove(entry);
+			}
+			if(node != null && node.entry == entry)
+			{
+				nodes.remove(node.menu);
+				node.menu.removeSearchIndex(this);
+				dropped.add(node);
+				for(Entry child : node.entries)
+				{
+					pending.push(child);
+				}
+			}
+		}
+		for(Node node : dropped)
+		{
+			List<Entry> places = new ArrayList<Entry>();
+			for(Entry place : node.places)
+			{
+				if(!place.removed)
+				{
+					places.add(place);
+				}
+			}
+			// Indexing another dropped sub menu again may have found this one already
+			Node indexed = nodes.get(node.menu);
+			if(indexed != null)
+			{
+				indexed.places.addAll(places);
+			}
+			else if(!places.isEmpty())
+			{
+				Node moved = addNode(node.menu, places.get(0));
+				moved.places.addAll(places.subList(1, places.size()));
+				indexTree(moved);
+			}
+		}
+	}
+	
+	private SortedMap<String, TreeSet<Entry>> wordsStartingWith(String prefix)
+	{
+		return postings.subMap(prefix, prefix + Character.MAX_VALUE);
+	}
+	
+	private String pathOf(Entry entry)
+	{
+		String[] names = new String[entry.parent.depth + 2];
+		names[names.length - 1] = entry.name;
+		for(Node node = entry.parent; node != null; node = node.entry == null ? null : node.entry.parent)
+		{
+			names[node.depth] = node.menu.getName();
+		}
+		StringBuilder path = new StringBuilder(names[0]);
+		for(int i = 1; i < names.length; i++)
+		{
+			path.append(PATH_SEPARATOR).append(names[i]);
+		}
+		return path.toString();
+	}
+	
+	static String[] wordsOf(String name)
+	{
+		if(name == null)
+		{
+			return new String[0];
+		}
+		List<String> words = new ArrayList<String>(2);
+		int length = name.length();
+		int start = -1;
+		for(int i = 0; i <= length; i++)
+		{
+			boolean isWordCharacter = i < length && Character.isLetterOrDigit(name.charAt(i));
+			if(isWordCharacter && start < 0)
+			{
+				start = i;
+			}
+			else if(!isWordCharacter && start >= 0)
+			{
+				String word = name.substring(start, i).toLowerCase(Locale.ROOT);
+				if(!words.contains(word))
+				{
+					words.add(word);
+				}
+				start = -1;
+			}
+		}
+		return words.toArray(new String[words.size()]);
+	}
+	
+	// Returns the start of the word that is one substitution, insertion, deletion or
+	// swap of neighbouring letters away from the query word after its first letter,
+	// or null when there is none
+	static String correctionOf(String queryWord, String word)
+	{
+		int length = queryWord.length();
+		int same = 0;
+		while(same < length && same < word.length() && queryWord.charAt(same) == word.charAt(same))
+		{
+			same++;
+		}
+		if(same == 0 || same == length)
+		{
+			return null;
+		}
+		int rest = length - same - 1;
+		if(word.regionMatches(same + 1, queryWord, same + 1, rest))
+		{
+			return word.substring(0, length);
+		}
+		if(word.regionMatches(same + 1, queryWord, same, rest + 1))
+		{
+			return word.substring(0, length + 1);
+		}
+		if(word.regionMatches(same, queryWord, same + 1, rest))
+		{
+			return word.substring(0, length - 1);
+		}
+		if(rest > 0 && word.length() > same + 1 && word.charAt(same) == queryWord.charAt(same + 1)
+				&& word.charAt(same + 1) == queryWord.charAt(same) && word.regionMatches(same + 2, queryWord, same + 2, rest - 1))
+		{
+			return word.substring(0, length);
+		}
+		return null;
+	}
+	
+	static String firstWordStartingWith(String[] words, String prefix)
+	{
+		for(String word : words)
+		{
+			if(word.startsWith(prefix))
+			{
+				return word;
+			}
+		}
+		return null;
+	}
+	
+	// Scores a name split into words by wordsOf, and returns -1 when a query word
+	// starts none of the words of the name
+	static int score(String[] words, String lowerName, String[] queryWords, String lowerQuery)
+	{
+		int score = 0;
+		for(String queryWord : queryWords)
+		{
+			int wordScore = 0;
+			for(String word : words)
+			{
+				if(word.equals(queryWord))
+				{
+					wordScore = EXACT_WORD_SCORE;
+					break;
+				}
+				else if(word.startsWith(queryWord))
+				{
+					wordScore = PREFIX_WORD_SCORE;
+				}
+			}
+			if(wordScore == 0)
+			{
+				return -1;
+			}
+			score += wordScore;
+		}
+		return lowerName.startsWith(lowerQuery) ? score + NAME_PREFIX_SCORE : score;
+	}
+	
+	public static class Match
+	{
+		private final Entry entry;
+		private final int score;
+		private String path;
+		
+		Match(Entry entry, int score)
+		{
+			this.entry = entry;
+			this.score = score;
+		}
+		
+		public String getName()
+		{
+			return entry.name;
+		}
+		
+		// Names of the menus from the root to the match followed by its own name
+		public String getPath()
+		{
+			return path;
+		}
+		
+		public boolean isSubMenu()
+		{
+			return entry.option instanceof Menu;
+		}
+		
+		// Position of the match in the given options of its menu, or -1 when it is not there
+		int indexIn(OptionsView options)
+		{
+			for(int i = 0; i < options.size(); i++)
+			{
+				if(options.tryGetOptionAt(i) == entry.option && entry.name.equals(options.getOptionNameAt(i)))
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return path;
+		}
+	}
+	
+	private static final class Node
+	{
+		final Menu menu;
+		final Entry entry;
+		final int depth;
+		final List<Entry> entries = new ArrayList<Entry>();
+		// Every entry of the menu in the index, the one it is indexed under included
+		final List<Entry> places = new ArrayList<Entry>(1);
+		
+		Node(Menu menu, Entry entry, int depth)
+		{
+			this.menu = menu;
+			this.entry = entry;
+			this.depth = depth;
+		}
+	}
+	
+	private static final class Entry
+	{
+		final String name;
+		final String lowerName;
+		final String[] words;
+		final IOption option;
+		final Node parent;
+		final long id;
+		boolean removed = false;
+		
+		Entry(String name, IOption option, Node parent, long id)
+		{
+			this.name = name;
+			this.lowerName = name.toLowerCase(Locale.ROOT);
+			this.words = wordsOf(name);
+			this.option = option;
+			this.parent = parent;
+			this.id = id;
+		}
+		
+	}
+}
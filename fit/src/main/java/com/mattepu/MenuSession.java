@@ -0,0 +1,123 @@
+package com.mattepu;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.WeakHashMap;
+
+// A session on a tree of Menus. The part of a frame below the navigation path is
+// rendered once per menu and page for all the sessions of the tree, and every
+// frame is resolved against one snapshot of the options of its menu, so the frame
+// and the selection made from it always agree.
+//
+// Pages are kept by Menu weakly, so menus dropped from a SubMenuCache take their
+// page with them when collected.
+public class MenuSession extends AbstractMenuSession<Menu, MenuSearchIndex.Match>
+{
+	private OptionsView options;
+	
+	public MenuSession(Menu rootMenu, IODevice ioDevice)
+	{
+		super(rootMenu, rootMenu.getName(), ioDevice, new WeakHashMap<Menu, Integer>());
+	}
+	
+	@Override
+	void show(Menu menu)
+	{
+		options = menu.getOptionsManager().snapshot();
+	}
+	
+	@Override
+	String menuName(Menu menu)
+	{
+		return menu.getName();
+	}
+	
+	@Override
+	int optionCount(Menu menu)
+	{
+		return options.size();
+	}
+	
+	@Override
+	int pageSize(Menu menu)
+	{
+		return menu.getPageSize();
+	}
+	
+	@Override
+	String renderBody(Menu menu, int page)
+	{
+		return menu.renderBody(options, page);
+	}
+	
+	@Override
+	boolean keepsBody(Menu menu)
+	{
+		return menu.keepsBody(options);
+	}
+	
+	@Override
+	int findOption(Menu menu, String nameOrPrefix)
+	{
+		return options.findOption(nameOrPrefix);
+	}
+	
+	@Override
+	boolean hasOptionAt(Menu menu, int index)
+	{
+		return options.hasOptionAt(index);
+	}
+	
+	@Override
+	Menu subMenuAt(Menu menu, int index)
+	{
+		return LazySubMenu.subMenuOf(options.tryGetOptionAt(index));
+	}
+	
+	@Override
+	IOption optionAt(Menu menu, int index)
+	{
+		return options.tryGetOptionAt(index);
+	}
+	
+	@Override
+	String optionNameAt(Menu menu, int index)
+	{
+		return options.getOptionNameAt(index);
+	}
+	
+	@Override
+	boolean startedAtRoot()
+	{
+		return baseMenu().isRoot();
+	}
+	
+	// Searching is offered only by sessions started at the root of the indexed tree,
+	// where every match can be reached by entering sub menus from the base menu.
+	@Override
+	List<MenuSearchIndex.Match> search(String query, int maxMatches)
+	{
+		MenuSearchIndex searchIndex = baseMenu().getSearchIndex();
+		return searchIndex == null ? null : searchIndex.search(query, maxMatches);
+	}
+	
+	@Override
+	String pathOf(MenuSearchIndex.Match match)
+	{
+		return match.getPath();
+	}
+	
+	@Override
+	List<Menu> menusTo(MenuSearchIndex.Match match)
+	{
+		MenuSearchIndex searchIndex = baseMenu().getSearchIndex();
+		Menu[] path = searchIndex == null ? null : searchIndex.menusTo(match);
+		return path == null ? null : Arrays.asList(path);
+	}
+	
+	@Override
+	int indexOf(MenuSearchIndex.Match match, Menu menu)
+	{
+		return match.isSubMenu() ? -1 : match.indexIn(menu.getOptionsManager().snapshot());
+	}
+}
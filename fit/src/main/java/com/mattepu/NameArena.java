@@ -0,0 +1,302 @@
+package com.mattepu;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// A list of names kept UTF-8 encoded in one direct buffer outside the heap, where
+// name i is the bytes from offsets[i] of length lengths[i]. The heap holds two ints
+// per name, and a third once a name is found, instead of a String and its array,
+// and a name is decoded only when it is read, straight into the builder it is
+// rendered to.
+//
+// Names are only ever appended to the buffer. Removing a name leaves its bytes
+// unused until they are half of the bytes written, when the buffer is compacted.
+// Unpaired surrogates in names are stored as '?', as String.getBytes stores them.
+// Positions and limits are set through Buffer, since the ByteBuffer overrides added
+// in Java 9 do not exist on Java 8.
+final class NameArena
+{
+	private static final Comparator<String> NAME_ORDER = String.CASE_INSENSITIVE_ORDER;
+	private static final int MIN_CAPACITY = 64;
+	
+	private ByteBuffer bytes;
+	private int[] offsets = new int[16];
+	private int[] lengths = new int[16];
+	private int size = 0;
+	private int usedBytes = 0;
+	private int unusedBytes = 0;
+	// Indexes of the names in case insensitive order, sorted on the first find and
+	// then kept in order as names are added and removed. It is published complete,
+	// so sessions finding names at the same time never see it half sorted.
+	private volatile int[] sorted = null;
+	
+	NameArena(int initialCapacity)
+	{
+		bytes = ByteBuffer.allocateDirect(Math.max(initialCapacity, MIN_CAPACITY));
+	}
+	
+	int size()
+	{
+		return size;
+	}
+	
+	// Bytes of the buffer outside the heap, including the ones not used yet
+	int capacity()
+	{
+		return bytes.capacity();
+	}
+	
+	void add(int index, String name)
+	{
+		byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+		ensureCapacity(encoded.length);
+		if(size == offsets.length)
+		{
+			offsets = Arrays.copyOf(offsets, size * 2);
+			lengths = Arrays.copyOf(lengths, size * 2);
+		}
+		System.arraycopy(offsets, index, offsets, index + 1, size - index);
+		System.arraycopy(lengths, index, lengths, index + 1, size - index);
+		offsets[index] = usedBytes;
+		lengths[index] = encoded.length;
+		((Buffer)bytes).position(usedBytes);
+		bytes.put(encoded);
+		usedBytes += encoded.length;
+		size++;
+		int[] order = sorted;
+		if(order != null)
+		{
+			addToOrder(order, index, name);
+		}
+	}
+	
+	void remove(int index)
+	{
+		int[] order = sorted;
+		if(order != null)
+		{
+			removeFromOrder(order, index);
+		}
+		unusedBytes += lengths[index];
+		System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+		System.arraycopy(lengths, index + 1, lengths, index, size - index - 1);
+		size--;
+		if(unusedBytes > usedBytes / 2)
+		{
+			compact(bytes.capacity());
+		}
+	}
+	
+	String get(int index)
+	{
+		StringBuilder decoded = new StringBuilder(lengths[index]);
+		appendTo(decoded, index);
+		return decoded.toString();
+	}
+	
+	void appendTo(StringBuilder builder, int index)
+	{
+		int position = offsets[index];
+		int end = position + lengths[index];
+		while(position < end)
+		{
+			int first = bytes.get(position++);
+			if(first >= 0)
+			{
+				builder.append((char)first);
+			}
+			else if((first & 0xE0) == 0xC0)
+			{
+				builder.append((char)(((first & 0x1F) << 6) | (bytes.get(position++) & 0x3F)));
+			}
+			else if((first & 0xF0) == 0xE0)
+			{
+				int second = bytes.get(position++) & 0x3F;
+				builder.append((char)(((first & 0x0F) << 12) | (second << 6) | (bytes.get(position++) & 0x3F)));
+			}
+			else
+			{
+				int second = bytes.get(position++) & 0x3F;
+				int third = bytes.get(position++) & 0x3F;
+				builder.appendCodePoint(((first & 0x07) << 18) | (second << 12) | (third << 6) | (bytes.get(position++) & 0x3F));
+			}
+		}
+	}
+	
+	// Returns the index of the only name equal to the query ignoring case, or else of
+	// the only name starting with it, or -1, as OptionNameIndex.find does. The names
+	// are searched through the sorted order, decoding only the ones the search visits.
+	int find(String query)
+	{
+		if(query == null || query.isEmpty())
+		{
+			return -1;
+		}
+		int[] order = sorted;
+		if(order == null)
+		{
+			order = sortNames();
+			sorted = order;
+		}
+		int low = 0;
+		int high = size;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if(NAME_ORDER.compare(get(order[middle]), query) < 0)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		if(low == size)
+		{
+			return -1;
+		}
+		String first = get(order[low]);
+		String next = low + 1 < size ? get(order[low + 1]) : null;
+		if(first.equalsIgnoreCase(query))
+		{
+			return next != null && next.equalsIgnoreCase(query) ? -1 : order[low];
+		}
+		if(startsWith(first, query) && !(next != null && startsWith(next, query)))
+		{
+			return order[low];
+		}
+		return -1;
+	}
+	
+	private static boolean startsWith(String name, String prefix)
+	{
+		return name.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+	
+	// The names decoded once to be sorted are dropped afterwards, so the order costs
+	// one int per name on the heap.
+	private int[] sortNames()
+	{
+		final String[] names = new String[size];
+		Integer[] order = new Integer[size];
+		for(int i = 0; i < size; i++)
+		{
+			names[i] = get(i);
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second)
+			{
+				int comparison = NAME_ORDER.compare(names[first], names[second]);
+				return comparison != 0 ? comparison : first.compareTo(second);
+			}
+		});
+		int[] sortedOrder = new int[offsets.length];
+		for(int i = 0; i < size; i++)
+		{
+			sortedOrder[i] = order[i];
+		}
+		return sortedOrder;
+	}
+	
+	// Called once the name at the index was added
+	private void addToOrder(int[] order, int index, String name)
+	{
+		int count = size - 1;
+		if(count == order.length)
+		{
+			order = Arrays.copyOf(order, offsets.length);
+		}
+		for(int i = 0; i < count; i++)
+		{
+			if(order[i] >= index)
+			{
+				order[i]++;
+			}
+		}
+		int slot = slotOf(order, count, name, index);
+		System.arraycopy(order, slot, order, slot + 1, count - slot);
+		order[slot] = index;
+		sorted = order;
+	}
+	
+	// Called before the name at the index is removed
+	private void removeFromOrder(int[] order, int index)
+	{
+		int slot = slotOf(order, size, get(index), index);
+		System.arraycopy(order, slot + 1, order, slot, size - slot - 1);
+		for(int i = 0; i < size - 1; i++)
+		{
+			if(order[i] > index)
+			{
+				order[i]--;
+			}
+		}
+	}
+	
+	// Names equal ignoring case are ordered by index, so every name has one place
+	private int slotOf(int[] order, int count, String name, int index)
+	{
+		int low = 0;
+		int high = count;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			int comparison = NAME_ORDER.compare(get(order[middle]), name);
+			if(comparison == 0)
+			{
+				comparison = Integer.compare(order[middle], index);
+			}
+			if(comparison < 0)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		return low;
+	}
+	
+	private void ensureCapacity(int extraBytes)
+	{
+		if(usedBytes + extraBytes <= bytes.capacity())
+		{
+			return;
+		}
+		long needed = (long)usedBytes - unusedBytes + extraBytes;
+		if(needed > Integer.MAX_VALUE)
+		{
+			throw new OutOfMemoryError("Option names do not fit in one arena");
+		}
+		int capacity = bytes.capacity();
+		while(capacity < needed + needed / 2 && capacity < Integer.MAX_VALUE)
+		{
+			capacity = capacity > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : capacity * 2;
+		}
+		compact(capacity);
+	}
+	
+	// Copies the names in use into a new buffer, in their order
+	private void compact(int capacity)
+	{
+		ByteBuffer compacted = ByteBuffer.allocateDirect(capacity);
+		for(int i = 0; i < size; i++)
+		{
+			ByteBuffer name = bytes.duplicate();
+			((Buffer)name).limit(offsets[i] + lengths[i]);
+			((Buffer)name).position(offsets[i]);
+			offsets[i] = compacted.position();
+			compacted.put(name);
+		}
+		bytes = compacted;
+		usedBytes = compacted.position();
+		unusedBytes = 0;
+	}
+}
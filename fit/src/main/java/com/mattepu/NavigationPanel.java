@@ -1,15 +1,23 @@
 package com.mattepu;
 
-public class NavigationPanel 
+public class NavigationPanel
 {
-	private String navigationPanelDisplay = "";
+	private static final String TRUNCATION_MARKER = "...";
+	
+	private String[] menus = new String[] { "" };
+	private int depth = 1;
 	private String menuSeperator = "/";
+	private int maxDisplayedMenus = 0;
+	private String navigationPanelDisplay = "";
+	private String path = "";
 	
 	public void setSeperator(String seperator)
 	{
 		if(seperator != null && !(seperator.equals("")))
 		{
 			menuSeperator = seperator;
+			navigationPanelDisplay = null;
+			path = null;
 		}
 	}
 	
@@ -17,46 +25,96 @@ public class NavigationPanel
 	{
 		if(rootMenuName != null)
 		{
-			String[] menus = navigationPanelDisplay.split(menuSeperator);
 			menus[0] = rootMenuName;
-			navigationPanelDisplay = "";
-			for(int i = 0; i < menus.length; i++)
-			{
-				navigationPanelDisplay += menus[i];
-			}
+			navigationPanelDisplay = null;
+			path = null;
 		}
 	}
 	
+	// Limits the breadcrumb to the root menu followed by the innermost menus, with
+	// the menus in between replaced by "...". Zero or less shows every menu.
+	public void setMaxDisplayedMenus(int maxDisplayedMenus)
+	{
+		this.maxDisplayedMenus = maxDisplayedMenus;
+		navigationPanelDisplay = null;
+	}
+	
 	public void changeToSubMenu(String subMenuName)
 	{
 		if(subMenuName == null)
 		{
 			subMenuName = "";
 		}
-		navigationPanelDisplay += (menuSeperator + subMenuName);
+		if(depth == menus.length)
+		{
+			String[] grownMenus = new String[depth * 2];
+			System.arraycopy(menus, 0, grownMenus, 0, depth);
+			menus = grownMenus;
+		}
+		menus[depth++] = subMenuName;
+		navigationPanelDisplay = null;
+		path = null;
 	}
 	
 	public void goUpMenu()
 	{
-		if(navigationPanelDisplay.contains(menuSeperator))
+		if(depth > 1)
 		{
-			int stripStringFromIndex = navigationPanelDisplay.lastIndexOf(menuSeperator);
-			navigationPanelDisplay = navigationPanelDisplay.substring(0, stripStringFromIndex);
+			menus[--depth] = null;
+			navigationPanelDisplay = null;
+			path = null;
 		}
 	}
 	
 	public void goToRootMenu()
 	{
-		if(navigationPanelDisplay.contains(menuSeperator))
+		if(depth > 1)
 		{
-			int stripStringFromIndex = navigationPanelDisplay.indexOf(menuSeperator);
-			navigationPanelDisplay = navigationPanelDisplay.substring(0, stripStringFromIndex);
+			depth = 1;
+			navigationPanelDisplay = null;
+			path = null;
 		}
 	}
 	
+	public int getDepth()
+	{
+		return depth;
+	}
+	
+	// Every menu from the root to the current one, however many are displayed
+	public String getPath()
+	{
+		if(path == null)
+		{
+			path = maxDisplayedMenus > 0 && depth > maxDisplayedMenus ? build(1, false) : toString();
+		}
+		return path;
+	}
+	
+	// The breadcrumb is only rebuilt when it is displayed after a change, so moving
+	// between menus costs a push or pop of the menu name.
 	@Override
 	public String toString()
 	{
+		if(navigationPanelDisplay == null)
+		{
+			boolean truncated = maxDisplayedMenus > 0 && depth > maxDisplayedMenus;
+			navigationPanelDisplay = build(truncated ? depth - Math.max(maxDisplayedMenus - 1, 1) : 1, truncated);
+		}
 		return navigationPanelDisplay;
 	}
+	
+	private String build(int firstDisplayedMenu, boolean truncated)
+	{
+		StringBuilder display = new StringBuilder(menus[0]);
+		if(truncated)
+		{
+			display.append(menuSeperator).append(TRUNCATION_MARKER);
+		}
+		for(int i = firstDisplayedMenu; i < depth; i++)
+		{
+			display.append(menuSeperator).append(menus[i]);
+		}
+		return display.toString();
+	}
 }
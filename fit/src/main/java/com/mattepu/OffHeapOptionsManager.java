@@ -0,0 +1,144 @@
+package com.mattepu;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mattepu.exception.InvalidIndexException;
+
+// Options manager for menus of millions of options, such as menus generated from
+// an inventory, that keeps the option names UTF-8 encoded in a NameArena outside
+// the heap. The heap holds a few bytes per option instead of a String per name and
+// a formatted line per shown option, so large menus cost the collector little.
+//
+// Names are decoded only when they are read. Rendering decodes them straight into
+// the frame, getOptionNameAt makes a new String on every call, and selecting by
+// name binary searches the names in their sorted order, decoding a few of them. A
+// search index enabled on the tree keeps every name it indexes as a String.
+//
+// A menu without a page size over these options renders all of them for every
+// frame and keeps nothing, since keeping its body would hold every name on the
+// heap. Give large menus a page size, so that a frame decodes only its page and
+// the page is kept as in any menu.
+public class OffHeapOptionsManager extends AbstractOptionsManager
+{
+	private static final int DEFAULT_CAPACITY = 4096;
+	
+	private final NameArena names;
+	private final List<IOption> actions = new ArrayList<IOption>();
+	private int version = 0;
+	
+	// The capacity is the number of bytes of names to make room for up front
+	public OffHeapOptionsManager(int initialCapacity)
+	{
+		names = new NameArena(initialCapacity);
+	}
+	
+	public OffHeapOptionsManager()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+	
+	@Override
+	public int addOption(String optionName, IOption option, int atIndex)
+	{
+		if(optionName == null)
+		{
+			optionName = "";
+		}
+		int addedAtIndex = (atIndex < 0 || atIndex >= actions.size()) ? actions.size() : atIndex;
+		names.add(addedAtIndex, optionName);
+		actions.add(addedAtIndex, option);
+		version++;
+		return addedAtIndex;
+	}
+	
+	@Override
+	public boolean tryRemoveOption(int atIndex)
+	{
+		if(!hasOptionAt(atIndex))
+		{
+			return false;
+		}
+		names.remove(atIndex);
+		actions.remove(atIndex);
+		version++;
+		return true;
+	}
+	
+	@Override
+	public IOption getOptionAt(int index) throws InvalidIndexException
+	{
+		if(!hasOptionAt(index))
+		{
+			throw new InvalidIndexException(index);
+		}
+		return actions.get(index);
+	}
+	
+	@Override
+	public String getOptionNameAt(int index) throws InvalidIndexException
+	{
+		if(!hasOptionAt(index))
+		{
+			throw new InvalidIndexException(index);
+		}
+		return names.get(index);
+	}
+	
+	@Override
+	public int size()
+	{
+		return actions.size();
+	}
+	
+	@Override
+	public int findOption(String nameOrPrefix)
+	{
+		return names.find(nameOrPrefix);
+	}
+	
+	@Override
+	public void appendTo(StringBuilder builder, int fromIndex, int toIndex)
+	{
+		fromIndex = Math.max(fromIndex, 0);
+		toIndex = Math.min(toIndex, actions.size());
+		for(int i = fromIndex; i < toIndex; i++)
+		{
+			if(i != fromIndex)
+			{
+				builder.append('\n');
+			}
+			builder.append(i + 1).append(" : ");
+			names.appendTo(builder, i);
+		}
+	}
+	
+	@Override
+	public void appendTo(Appendable appendable) throws IOException
+	{
+		StringBuilder line = new StringBuilder();
+		for(int i = 0; i < actions.size(); i++)
+		{
+			line.setLength(0);
+			if(i != 0)
+			{
+				line.append('\n');
+			}
+			appendTo(line, i, i + 1);
+			appendable.append(line);
+		}
+	}
+	
+	// Bytes held outside the heap for the names
+	public int getOffHeapBytes()
+	{
+		return names.capacity();
+	}
+	
+	@Override
+	int getVersion()
+	{
+		return version;
+	}
+}
@@ -0,0 +1,238 @@
+package com.mattepu;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Option names sorted case insensitively, so that an option can be found by its
+// name or a prefix of it with a binary search. The index is built from the
+// options on the first lookup and then kept up to date as options are added and
+// removed, so menus that are only selected by number never pay for it. Owners
+// share an index only once it is built, through a volatile field or their lock,
+// so sessions looking up names at the same time never see one half built. The first
+// characters of every sorted name are also packed into an array of longs, so most
+// steps of a search compare numbers next to each other in memory instead of
+// following references to the names.
+final class OptionNameIndex
+{
+	private static final Comparator<String> NAME_ORDER = String.CASE_INSENSITIVE_ORDER;
+	private static final int KEY_CHARS = 8;
+	private static final int KEY_CHAR_LIMIT = 0xFF;
+	
+	private String[] names;
+	private long[] keys;
+	private int[] positions;
+	private int size;
+	
+	// The names are the names of the options in their order
+	OptionNameIndex(List<String> optionNames)
+	{
+		size = optionNames.size();
+		Entry[] entries = new Entry[size];
+		for(int i = 0; i < size; i++)
+		{
+			entries[i] = new Entry(optionNames.get(i), i);
+		}
+		Arrays.sort(entries, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry first, Entry second)
+			{
+				return first.compareTo(second.key, second.name, second.index);
+			}
+		});
+		int capacity = Math.max(size, 8);
+		names = new String[capacity];
+		keys = new long[capacity];
+		positions = new int[capacity];
+		for(int i = 0; i < size; i++)
+		{
+			names[i] = entries[i].name;
+			keys[i] = entries[i].key;
+			positions[i] = entries[i].index;
+		}
+	}
+	
+	private OptionNameIndex(OptionNameIndex index, int capacity)
+	{
+		size = index.size;
+		names = Arrays.copyOf(index.names, capacity);
+		keys = Arrays.copyOf(index.keys, capacity);
+		positions = Arrays.copyOf(index.positions, capacity);
+	}
+	
+	// A copy to change while this index is still read, with room for one more name.
+	// It costs three array copies, against the sort of building an index again.
+	OptionNameIndex copy()
+	{
+		return new OptionNameIndex(this, Math.max(size + 1, 8));
+	}
+	
+	void added(int index, String name)
+	{
+		if(size == names.length)
+		{
+			names = Arrays.copyOf(names, size * 2);
+			keys = Arrays.copyOf(keys, size * 2);
+			positions = Arrays.copyOf(positions, size * 2);
+		}
+		for(int i = 0; i < size; i++)
+		{
+			if(positions[i] >= index)
+			{
+				positions[i]++;
+			}
+		}
+		long key = keyOf(name);
+		int sortedIndex = -(search(key, name, index) + 1);
+		System.arraycopy(names, sortedIndex, names, sortedIndex + 1, size - sortedIndex);
+		System.arraycopy(keys, sortedIndex, keys, sortedIndex + 1, size - sortedIndex);
+		System.arraycopy(positions, sortedIndex, positions, sortedIndex + 1, size - sortedIndex);
+		names[sortedIndex] = name;
+		keys[sortedIndex] = key;
+		positions[sortedIndex] = index;
+		size++;
+	}
+	
+	// The name is the one of the option removed, which places it in the index
+	void removed(int index, String name)
+	{
+		int sortedIndex = search(keyOf(name), name, index);
+		System.arraycopy(names, sortedIndex + 1, names, sortedIndex, size - sortedIndex - 1);
+		System.arraycopy(keys, sortedIndex + 1, keys, sortedIndex, size - sortedIndex - 1);
+		System.arraycopy(positions, sortedIndex + 1, positions, sortedIndex, size - sortedIndex - 1);
+		size--;
+		names[size] = null;
+		for(int i = 0; i < size; i++)
+		{
+			if(positions[i] > index)
+			{
+				positions[i]--;
+			}
+		}
+	}
+	
+	// Returns the index of the only option named as the query, or else of the only
+	// option whose name starts with it, ignoring case. Returns -1 when there is no
+	// such option or more than one.
+	int find(String query)
+	{
+		if(query == null || query.isEmpty())
+		{
+			return -1;
+		}
+		long queryKey = keyOf(query);
+		int low = 0;
+		int high = size;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			int comparison = Long.compareUnsigned(keys[middle], queryKey);
+			if(comparison < 0 || (comparison == 0 && NAME_ORDER.compare(names[middle], query) < 0))
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		if(low == size)
+		{
+			return -1;
+		}
+		String first = names[low];
+		boolean hasNext = low + 1 < size;
+		if(first.equalsIgnoreCase(query))
+		{
+			return hasNext && names[low + 1].equalsIgnoreCase(query) ? -1 : positions[low];
+		}
+		if(startsWith(first, query) && !(hasNext && startsWith(names[low + 1], query)))
+		{
+			return positions[low];
+		}
+		return -1;
+	}
+	
+	private static boolean startsWith(String name, String prefix)
+	{
+		return name.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+	
+	// Names equal ignoring case are ordered by position, so every name has one place
+	private int search(long key, String name, int index)
+	{
+		int low = 0;
+		int high = size - 1;
+		while(low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			int comparison = compare(keys[middle], names[middle], positions[middle], key, name, index);
+			if(comparison < 0)
+			{
+				low = middle + 1;
+			}
+			else if(comparison > 0)
+			{
+				high = middle - 1;
+			}
+			else
+			{
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+	
+	private static int compare(long key, String name, int index, long otherKey, String otherName, int otherIndex)
+	{
+		int comparison = Long.compareUnsigned(key, otherKey);
+		if(comparison == 0)
+		{
+			comparison = NAME_ORDER.compare(name, otherName);
+		}
+		return comparison != 0 ? comparison : Integer.compare(index, otherIndex);
+	}
+	
+	// Characters are folded as String.CASE_INSENSITIVE_ORDER folds them, one byte
+	// each, and missing ones are 0. A character that does not fit in a byte ends the
+	// key, so two keys only order differently from their names when they are equal.
+	private static long keyOf(String name)
+	{
+		long key = 0;
+		boolean ended = false;
+		for(int i = 0; i < KEY_CHARS; i++)
+		{
+			int c = 0;
+			if(!ended && i < name.length())
+			{
+				c = Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+				if(c >= KEY_CHAR_LIMIT)
+				{
+					c = KEY_CHAR_LIMIT;
+					ended = true;
+				}
+			}
+			key = (key << Byte.SIZE) | c;
+		}
+		return key;
+	}
+	
+	private static final class Entry
+	{
+		final String name;
+		final long key;
+		final int index;
+		
+		Entry(String name, int index)
+		{
+			this.name = name;
+			this.key = keyOf(name);
+			this.index = index;
+		}
+		
+		int compareTo(long otherKey, String otherName, int otherIndex)
+		{
+			return compare(key, name, index, otherKey, otherName, otherIndex);
+		}
+	}
+}
@@ -1,19 +1,27 @@
 package com.mattepu;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.mattepu.exception.InvalidIndexException;
 
-public class OptionsManager 
+public class OptionsManager extends AbstractOptionsManager
 {	
+	private static final int MAX_CACHED_LINES = 256;
+	
 	private List<String> optionNames;
 	private List<IOption> optionActions;
+	private List<String> optionLines;
+	private int linesFrom = 0;
+	private volatile OptionNameIndex nameIndex = null;
+	private int version = 0;
 	
 	public OptionsManager()
 	{
 		optionNames = new ArrayList<String>();
 		optionActions = new ArrayList<IOption>();
+		optionLines = new ArrayList<String>();
 	}
 	
 	public int addOption(String optionName, IOption option, int atIndex)
@@ -34,7 +42,14 @@ public class OptionsManager
 			optionNames.add(atIndex, optionName);
 			optionActions.add(atIndex, option);
 			addedAtIndex = atIndex;
+			invalidateLinesFrom(atIndex);
+		}
+		OptionNameIndex index = nameIndex;
+		if(index != null)
+		{
+			index.added(addedAtIndex, optionName);
 		}
+		version++;
 		return addedAtIndex;
 	}
 	
@@ -45,15 +60,28 @@ public class OptionsManager
 	
 	public void removeOption(int atIndex) throws InvalidIndexException
 	{
-		if(atIndex < 0 || (atIndex >= optionNames.size()))
+		if(!tryRemoveOption(atIndex))
 		{
 			throw new InvalidIndexException(atIndex);
 		}
-		else
+	}
+	
+	public boolean tryRemoveOption(int atIndex)
+	{
+		if(atIndex < 0 || (atIndex >= optionNames.size()))
+		{
+			return false;
+		}
+		String optionName = optionNames.remove(atIndex);
+		optionActions.remove(atIndex);
+		invalidateLinesFrom(atIndex);
+		OptionNameIndex index = nameIndex;
+		if(index != null)
 		{
-			optionNames.remove(atIndex);
-			optionActions.remove(atIndex);
+			index.removed(atIndex, optionName);
 		}
+		version++;
+		return true;
 	}
 	
 	public IOption getOptionAt(int index) throws InvalidIndexException
@@ -68,18 +96,139 @@ public class OptionsManager
 		}
 	}
 	
-	@Override
-	public String toString()
+	public String getOptionNameAt(int index) throws InvalidIndexException
 	{
-		String result = "";
-		for(int i = 0; i < optionNames.size(); i++)
+		if(index < 0 || (index >= optionNames.size()))
+		{
+			throw new InvalidIndexException(index);
+		}
+		else
 		{
-			result += Integer.toString((i + 1)) + " : " + optionNames.get(i);
-			if(i != (optionNames.size() - 1))
+			return optionNames.get(index);
+		}
+	}
+	
+	public int size()
+	{
+		return optionNames.size();
+	}
+	
+	public boolean hasOptionAt(int index)
+	{
+		return index >= 0 && index < optionNames.size();
+	}
+	
+	public IOption tryGetOptionAt(int index)
+	{
+		if(hasOptionAt(index))
+		{
+			return optionActions.get(index);
+		}
+		return null;
+	}
+	
+	// Returns the index of the option with the given name, or else of the only option
+	// whose name starts with it, ignoring case. Returns -1 when there is no such
+	// option or more than one.
+	public int findOption(String nameOrPrefix)
+	{
+		OptionNameIndex index = nameIndex;
+		if(index == null)
+		{
+			index = new OptionNameIndex(optionNames);
+			nameIndex = index;
+		}
+		return index.find(nameOrPrefix);
+	}
+	
+	public void appendTo(StringBuilder builder)
+	{
+		appendTo(builder, 0, optionNames.size());
+	}
+	
+	public void appendTo(StringBuilder builder, int fromIndex, int toIndex)
+	{
+		fromIndex = Math.max(fromIndex, 0);
+		toIndex = Math.min(toIndex, optionNames.size());
+		moveLinesTo(fromIndex);
+		for(int i = fromIndex; i < toIndex; i++)
+		{
+			if(i != fromIndex)
+			{
+				builder.append('\n');
+			}
+			builder.append(optionLineAt(i));
+		}
+	}
+	
+	public void appendTo(Appendable appendable) throws IOException
+	{
+		int size = optionNames.size();
+		moveLinesTo(0);
+		for(int i = 0; i < size; i++)
+		{
+			if(i != 0)
 			{
-				result += "\n";
+				appendable.append('\n');
 			}
+			appendable.append(optionLineAt(i));
+		}
+	}
+	
+	// This manager is not thread safe, so the view is the manager itself
+	@Override
+	public OptionsView snapshot()
+	{
+		return this;
+	}
+	
+	@Override
+	int getVersion()
+	{
+		return version;
+	}
+	
+	int getCachedLines()
+	{
+		return optionLines.size();
+	}
+	
+	// Formatted lines are kept for the window of options last rendered, starting at
+	// its first option and at most MAX_CACHED_LINES long, so that showing a page
+	// again formats nothing while the lines of a large menu are not all kept next to
+	// its names. Lines past the window are formatted on the fly.
+	private String optionLineAt(int index)
+	{
+		int cached = index - linesFrom;
+		if(cached >= 0 && cached < optionLines.size())
+		{
+			return optionLines.get(cached);
+		}
+		String line = Integer.toString(index + 1) + " : " + optionNames.get(index);
+		if(cached == optionLines.size() && cached < MAX_CACHED_LINES)
+		{
+			optionLines.add(line);
+		}
+		return line;
+	}
+	
+	private void moveLinesTo(int index)
+	{
+		if(index != linesFrom)
+		{
+			optionLines.clear();
+			linesFrom = index;
+		}
+	}
+	
+	// Lines are numbered by position, so inserting or removing an option only
+	// invalidates the lines from that position onwards.
+	private void invalidateLinesFrom(int index)
+	{
+		int cached = Math.max(index - linesFrom, 0);
+		if(cached < optionLines.size())
+		{
+			optionLines.subList(cached, optionLines.size()).clear();
 		}
-		return result;
 	}
 }
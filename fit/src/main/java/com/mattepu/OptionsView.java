@@ -0,0 +1,69 @@
+package com.mattepu;
+
+import java.io.IOException;
+
+import com.mattepu.exception.InvalidIndexException;
+
+// The options of a menu as a session reads them: the frame is rendered from a view
+// and the selection is resolved against it. A view cannot be changed through
+// itself, AbstractOptionsManager adds the changes a Menu makes to its options.
+public abstract class OptionsView
+{
+	public abstract IOption getOptionAt(int index) throws InvalidIndexException;
+	
+	public abstract String getOptionNameAt(int index) throws InvalidIndexException;
+	
+	public abstract int size();
+	
+	public boolean hasOptionAt(int index)
+	{
+		return index >= 0 && index < size();
+	}
+	
+	public IOption tryGetOptionAt(int index)
+	{
+		return hasOptionAt(index) ? getOptionAt(index) : null;
+	}
+	
+	// Returns the index of the option with the given name, or else of the only option
+	// whose name starts with it, ignoring case. Returns -1 when there is no such
+	// option or more than one.
+	public abstract int findOption(String nameOrPrefix);
+	
+	public void appendTo(StringBuilder builder)
+	{
+		appendTo(builder, 0, size());
+	}
+	
+	public abstract void appendTo(StringBuilder builder, int fromIndex, int toIndex);
+	
+	public void appendTo(Appendable appendable) throws IOException
+	{
+		appendable.append(toString());
+	}
+	
+	// False while more options may still be read from a source, so the number of
+	// pages is not known yet
+	public boolean isComplete()
+	{
+		return true;
+	}
+	
+	// Returns a view of the options that a frame can be rendered from and a selection
+	// resolved against, which does not change while it is read
+	public OptionsView snapshot()
+	{
+		return this;
+	}
+	
+	// Changes whenever the options change, so that what is rendered from them can be kept
+	abstract int getVersion();
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder result = new StringBuilder();
+		appendTo(result);
+		return result.toString();
+	}
+}
@@ -0,0 +1,557 @@
+package com.mattepu;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+import java.util.stream.Stream;
+
+import com.mattepu.exception.InvalidIndexException;
+
+// Options read from an iterator or a stream as they are needed, for listings too
+// large or too slow to add up front, such as the files of a large directory or the
+// rows of a paged query. Rendering a page reads the options up to the first one of
+// the next page, so a menu shows its first page after reading one page, and the
+// following pages are read by another thread while the user looks at it.
+//
+// The options read so far are the options of the manager: size() grows as more are
+// read, and a page command can only reach pages that were read. The options are
+// only read, so a Menu over them cannot add or remove options. Selecting an option
+// by number reads up to it, and selecting by name only finds options that are kept.
+// Without a page size on the menu the whole source is read on the first render.
+//
+// An iterator or a stream can be read once, so every option read from it is kept
+// until the manager is dropped. A listing too large to keep is read from a supplier
+// of streams that give the same items each time: only the given number of options
+// around the last ones read are kept, and an option dropped before is read again
+// from a new stream, skipping the items before it.
+public class StreamingOptionsManager extends OptionsView implements Closeable
+{
+	static final int PREFETCH_PAGES = 2;
+	private static final int READ_BATCH = 64;
+	
+	private final Source<?> source;
+	private final int retainedOptions;
+	private final Executor prefetchExecutor;
+	private final Object readLock = new Object();
+	private final Object prefetchLock = new Object();
+	// The options kept, the first one being option firstRetained. Changed holding
+	// both the read lock and the manager, so holding either one is enough to read them.
+	private final List<String> names = new ArrayList<String>();
+	private final List<IOption> actions = new ArrayList<IOption>();
+	private int firstRetained = 0;
+	private OptionNameIndex nameIndex = null;
+	// Index of the next option of the source, guarded by the read lock
+	private int position = 0;
+	private boolean passEnded = false;
+	private boolean closed = false;
+	private volatile int readCount = 0;
+	private volatile int version = 0;
+	private volatile boolean exhausted = false;
+	private volatile RuntimeException prefetchFailure = null;
+	private int prefetchTarget = 0;
+	private boolean prefetching = false;
+	
+	public <T> StreamingOptionsManager(Iterator<? extends T> items, Function<? super T, String> names,
+			Function<? super T, ? extends IOption> actions, Executor prefetchExecutor)
+	{
+		this(new Source<T>(items, null, null, names, actions), Integer.MAX_VALUE, prefetchExecutor);
+	}
+	
+	public <T> StreamingOptionsManager(Iterator<? extends T> items, Function<? super T, String> names,
+			Function<? super T, ? extends IOption> actions)
+	{
+		this(items, names, actions, null);
+	}
+	
+	private StreamingOptionsManager(Source<?> source, int retainedOptions, Executor prefetchExecutor)
+	{
+		this.source = source;
+		this.retainedOptions = Math.max(retainedOptions, 2 * READ_BATCH);
+		this.prefetchExecutor = prefetchExecutor == null ? AbstractMenuSession.DefaultExecutorHolder.EXECUTOR : prefetchExecutor;
+	}
+	
+	// The stream is closed once it is read to the end or the manager is closed
+	public static <T> StreamingOptionsManager of(Stream<? extends T> items, Function<? super T, String> names,
+			Function<? super T, ? extends IOption> actions, Executor prefetchExecutor)
+	{
+		return new StreamingOptionsManager(new Source<T>(items.iterator(), items, null, names, actions), Integer.MAX_VALUE,
+				prefetchExecutor);
+	}
+	
+	public static <T> StreamingOptionsManager of(Stream<? extends T> items, Function<? super T, String> names,
+			Function<? super T, ? extends IOption> actions)
+	{
+		return of(items, names, actions, null);
+	}
+	
+	// Keeps at most retainedOptions options, at least a few pages worth. Each stream
+	// is closed once it is read to the end, replaced or the manager is closed.
+	public static <T> StreamingOptionsManager of(Supplier<? extends Stream<? extends T>> items, Function<? super T, String> names,
+			Function<? super T, ? extends IOption> actions, int retainedOptions, Executor prefetchExecutor)
+	{
+		return new StreamingOptionsManager(new Source<T>(null, null, items, names, actions), retainedOptions, prefetchExecutor);
+	}
+	
+	public static <T> StreamingOptionsManager of(Supplier<? extends Stream<? extends T>> items, Function<? super T, String> names,
+			Function<? super T, ? extends IOption> actions, int retainedOptions)
+	{
+		return of(items, names, actions, retainedOptions, null);
+	}
+	
+	// True once every option of the source was read
+	@Override
+	public boolean isComplete()
+	{
+		return exhausted;
+	}
+	
+	// Stops reading the source, keeping the options kept so far. Options that were
+	// dropped cannot be read again once the manager is closed.
+	@Override
+	public void close()
+	{
+		synchronized(readLock)
+		{
+			closed = true;
+			endPass();
+		}
+	}
+	
+	@Override
+	public IOption getOptionAt(int index) throws InvalidIndexException
+	{
+		if(!hasOptionAt(index))
+		{
+			throw new InvalidIndexException(index);
+		}
+		synchronized(this)
+		{
+			if(isRetained(index))
+			{
+				return actions.get(index - firstRetained);
+			}
+		}
+		synchronized(readLock)
+		{
+			retain(index);
+			return actions.get(index - firstRetained);
+		}
+	}
+	
+	@Override
+	public String getOptionNameAt(int index) throws InvalidIndexException
+	{
+		if(!hasOptionAt(index))
+		{
+			throw new InvalidIndexException(index);
+		}
+		synchronized(this)
+		{
+			if(isRetained(index))
+			{
+				return names.get(index - firstRetained);
+			}
+		}
+		synchronized(readLock)
+		{
+			retain(index);
+			return names.get(index - firstRetained);
+		}
+	}
+	
+	// Number of options read so far. The first option is read to tell an empty
+	// source from one that was not read yet.
+	@Override
+	public int size()
+	{
+		readUntil(1);
+		return readCount;
+	}
+	
+	@Override
+	public boolean hasOptionAt(int index)
+	{
+		if(index < 0)
+		{
+			return false;
+		}
+		readUntil(index + 1);
+		return index < readCount;
+	}
+	
+	// Once the first option was read, building the index reads nothing more, so it
+	// never waits for the source while holding the options.
+	@Override
+	public int findOption(String nameOrPrefix)
+	{
+		readUntil(1);
+		synchronized(this)
+		{
+			if(nameIndex == null)
+			{
+				nameIndex = new OptionNameIndex(names);
+			}
+			int index = nameIndex.find(nameOrPrefix);
+			return index < 0 ? -1 : firstRetained + index;
+		}
+	}
+	
+	@Override
+	public void appendTo(StringBuilder builder)
+	{
+		appendTo(builder, 0, Integer.MAX_VALUE);
+	}
+	
+	// Reads one option past the range, so that a next page exists as soon as the
+	// source has more, and starts reading the following pages in the background,
+	// never so far ahead that the range would be dropped.
+	@Override
+	public void appendTo(StringBuilder builder, int fromIndex, int toIndex)
+	{
+		fromIndex = Math.max(fromIndex, 0);
+		readUntil(toIndex == Integer.MAX_VALUE ? toIndex : toIndex + 1);
+		if(toIndex != Integer.MAX_VALUE)
+		{
+			long ahead = toIndex + 1 + PREFETCH_PAGES * (long)Math.max(toIndex - fromIndex, 0);
+			prefetch((int)Math.min(ahead, (long)fromIndex + retainedOptions));
+		}
+		toIndex = Math.min(toIndex, readCount);
+		int index = fromIndex;
+		while(index < toIndex)
+		{
+			synchronized(this)
+			{
+				for(; index < toIndex && isRetained(index); index++)
+				{
+					if(index != fromIndex)
+					{
+						builder.append('\n');
+					}
+					builder.append(index + 1).append(" : ").append(names.get(index - firstRetained));
+				}
+			}
+			if(index < toIndex)
+			{
+				synchronized(readLock)
+				{
+					try
+					{
+						retain(index);
+					}
+					catch(InvalidIndexException e)
+					{
+						return;
+					}
+				}
+			}
+		}
+	}
+	
+	// Options are only ever appended, so positions read so far never change
+	@Override
+	public OptionsView snapshot()
+	{
+		return this;
+	}
+	
+	@Override
+	int getVersion()
+	{
+		return version;
+	}
+	
+	// Number of options kept in memory
+	synchronized int getRetainedOptions()
+	{
+		return names.size();
+	}
+	
+	private boolean isRetained(int index)
+	{
+		return index >= firstRetained && index < firstRetained + names.size();
+	}
+	
+	// Holds the read lock. Reads a batch past the option, from a new stream starting a
+	// little before it when it was dropped, so that going back a page keeps the pages
+	// after it.
+	private void retain(int index)
+	{
+		if(index < firstRetained)
+		{
+			if(closed || !source.canReopen())
+			{
+				throw new InvalidIndexException(index);
+			}
+			reopenAt(Math.max(0, index - retainedOptions / 2));
+		}
+		read(index + READ_BATCH);
+		if(!isRetained(index))
+		{
+			throw new InvalidIndexException(index);
+		}
+	}
+	
+	// Holds the read lock
+	private void reopenAt(int index)
+	{
+		synchronized(this)
+		{
+			names.clear();
+			actions.clear();
+			nameIndex = null;
+		}
+		source.reopen();
+		position = 0;
+		passEnded = false;
+		while(position < index && source.skip())
+		{
+			position++;
+		}
+		synchronized(this)
+		{
+			firstRetained = position;
+		}
+	}
+	
+	// Reads in the calling thread until the given number of options was read. A
+	// failure of the source in the background is thrown here, once.
+	private void readUntil(int count)
+	{
+		if(count <= readCount || exhausted)
+		{
+			throwPrefetchFailure();
+			return;
+		}
+		synchronized(readLock)
+		{
+			read(count);
+		}
+		throwPrefetchFailure();
+	}
+	
+	private void throwPrefetchFailure()
+	{
+		RuntimeException failure = prefetchFailure;
+		if(failure != null)
+		{
+			prefetchFailure = null;
+			throw failure;
+		}
+	}
+	
+	// The prefetch target is kept apart from the read lock, so that asking for more
+	// never waits for a read in progress.
+	private void prefetch(int count)
+	{
+		synchronized(prefetchLock)
+		{
+			if(exhausted || count <= Math.max(readCount, prefetchTarget))
+			{
+				return;
+			}
+			prefetchTarget = count;
+			if(prefetching)
+			{
+				return;
+			}
+			prefetching = true;
+		}
+		prefetchExecutor.execute(new Runnable() {
+			@Override
+			public void run()
+			{
+				int target;
+				do
+				{
+					synchronized(prefetchLock)
+					{
+						target = prefetchTarget;
+					}
+					try
+					{
+						synchronized(readLock)
+						{
+							read(target);
+						}
+					}
+					catch(RuntimeException e)
+					{
+						prefetchFailure = e;
+					}
+				}
+				while(!prefetched(target));
+			}
+		});
+	}
+	
+	private boolean prefetched(int target)
+	{
+		synchronized(prefetchLock)
+		{
+			if(target == prefetchTarget || exhausted)
+			{
+				prefetching = false;
+				return true;
+			}
+			return false;
+		}
+	}
+	
+	// Holds the read lock. Options are published a batch at a time, so readers of
+	// the options kept wait for a batch to be added but not for the source.
+	private void read(int count)
+	{
+		List<String> readNames = new ArrayList<String>();
+		List<IOption> readActions = new ArrayList<IOption>();
+		try
+		{
+			while(!passEnded && position < count)
+			{
+				int batch = Math.min(READ_BATCH, count - position);
+				boolean hasNext = true;
+				while(hasNext && readNames.size() < batch)
+				{
+					hasNext = source.next(readNames, readActions);
+				}
+				publish(readNames, readActions);
+				readNames.clear();
+				readActions.clear();
+				if(!hasNext)
+				{
+					endPass();
+				}
+			}
+		}
+		catch(RuntimeException e)
+		{
+			publish(readNames, readActions);
+			endPass();
+			throw e;
+		}
+	}
+	
+	// Drops the first options kept once more than retainedOptions are kept. Options
+	// read again after a new stream was opened were counted already.
+	private synchronized void publish(List<String> readNames, List<IOption> readActions)
+	{
+		int dropped = names.size() + readNames.size() - retainedOptions;
+		for(int i = 0; i < readNames.size(); i++)
+		{
+			if(nameIndex != null && dropped <= 0)
+			{
+				nameIndex.added(names.size(), readNames.get(i));
+			}
+			names.add(readNames.get(i));
+			actions.add(readActions.get(i));
+		}
+		if(dropped > 0)
+		{
+			names.subList(0, dropped).clear();
+			actions.subList(0, dropped).clear();
+			firstRetained += dropped;
+			nameIndex = null;
+		}
+		position += readNames.size();
+		if(position > readCount)
+		{
+			readCount = position;
+			version++;
+		}
+	}
+	
+	// Holds the read lock. The end of the first stream read to the end, or of the
+	// manager being closed, is the end of the options.
+	private void endPass()
+	{
+		passEnded = true;
+		source.close();
+		if(!exhausted)
+		{
+			exhausted = true;
+			version++;
+		}
+	}
+	
+	private static final class Source<T>
+	{
+		private final Supplier<? extends Stream<? extends T>> streams;
+		private final Function<? super T, String> names;
+		private final Function<? super T, ? extends IOption> actions;
+		private Iterator<? extends T> items;
+		private BaseStream<?, ?> stream;
+		
+		Source(Iterator<? extends T> items, BaseStream<?, ?> stream, Supplier<? extends Stream<? extends T>> streams,
+				Function<? super T, String> names, Function<? super T, ? extends IOption> actions)
+		{
+			this.items = items;
+			this.stream = stream;
+			this.streams = streams;
+			this.names = names;
+			this.actions = actions;
+		}
+		
+		boolean canReopen()
+		{
+			return streams != null;
+		}
+		
+		boolean next(List<String> readNames, List<IOption> readActions)
+		{
+			if(!open().hasNext())
+			{
+				return false;
+			}
+			T item = items.next();
+			String name = names.apply(item);
+			readNames.add(name == null ? "" : name);
+			readActions.add(actions.apply(item));
+			return true;
+		}
+		
+		// Skips an item without making an option of it
+		boolean skip()
+		{
+			if(!open().hasNext())
+			{
+				return false;
+			}
+			items.next();
+			return true;
+		}
+		
+		void reopen()
+		{
+			close();
+			open();
+		}
+		
+		void close()
+		{
+			if(stream != null)
+			{
+				stream.close();
+				stream = null;
+			}
+			if(streams != null)
+			{
+				items = null;
+			}
+		}
+		
+		private Iterator<? extends T> open()
+		{
+			if(items == null)
+			{
+				Stream<? extends T> opened = streams.get();
+				stream = opened;
+				items = opened.iterator();
+			}
+			return items;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.mattepu;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// Least recently used cache of the menus built by lazy sub menus. Every cached menu
+// weighs something, one by default, and the least recently entered menus are
+// evicted once the total weight is over the limit. The menu built last always
+// stays, even when it weighs more than the limit alone.
+//
+// Sessions showing an evicted menu keep showing it. The lazy sub menu builds a new
+// one the next time it is entered.
+public class SubMenuCache
+{
+	static final long MENU_BYTES = 256;
+	static final long OPTION_BYTES = 96;
+	
+	private final long maxWeight;
+	private final ToLongFunction<Menu> weigher;
+	private final LinkedHashMap<LazySubMenu, CachedMenu> menus = new LinkedHashMap<LazySubMenu, CachedMenu>(16, 0.75f, true);
+	private long weight = 0;
+	private long evictions = 0;
+	
+	public SubMenuCache(long maxWeight, ToLongFunction<Menu> weigher)
+	{
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+	
+	public SubMenuCache(int maxMenus)
+	{
+		this(maxMenus, new ToLongFunction<Menu>() {
+			@Override
+			public long applyAsLong(Menu menu)
+			{
+				return 1;
+			}
+		});
+	}
+	
+	// Bounds the cache by the estimated heap taken by the cached menus
+	public static SubMenuCache boundedByBytes(long maxBytes)
+	{
+		return new SubMenuCache(maxBytes, new ToLongFunction<Menu>() {
+			@Override
+			public long applyAsLong(Menu menu)
+			{
+				return estimateBytes(menu);
+			}
+		});
+	}
+	
+	public synchronized int size()
+	{
+		return menus.size();
+	}
+	
+	public synchronized long getWeight()
+	{
+		return weight;
+	}
+	
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+	
+	public synchronized void clear()
+	{
+		menus.clear();
+		weight = 0;
+	}
+	
+	synchronized Menu get(LazySubMenu subMenu)
+	{
+		CachedMenu cached = menus.get(subMenu);
+		return cached == null ? null : cached.menu;
+	}
+	
+	// The menu is weighed outside the lock, so a large menu does not hold up other sessions
+	void put(LazySubMenu subMenu, Menu menu)
+	{
+		CachedMenu cached = new CachedMenu(menu, weigher.applyAsLong(menu));
+		synchronized(this)
+		{
+			CachedMenu replaced = menus.put(subMenu, cached);
+			if(replaced != null)
+			{
+				weight -= replaced.weight;
+			}
+			weight += cached.weight;
+			Iterator<CachedMenu> leastRecentlyUsed = menus.values().iterator();
+			while(weight > maxWeight && menus.size() > 1)
+			{
+				weight -= leastRecentlyUsed.next().weight;
+				leastRecentlyUsed.remove();
+				evictions++;
+			}
+		}
+	}
+	
+	synchronized void remove(LazySubMenu subMenu)
+	{
+		CachedMenu removed = menus.remove(subMenu);
+		if(removed != null)
+		{
+			weight -= removed.weight;
+		}
+	}
+	
+	// A rough count of the bytes held by the menu and the sub menus built with it:
+	// the menus themselves, the options with their rendered lines, and the names.
+	// Lazy sub menus inside it are cached on their own and not counted.
+	static long estimateBytes(Menu menu)
+	{
+		long bytes = 0;
+		Map<Menu, Boolean> visited = new IdentityHashMap<Menu, Boolean>();
+		Deque<Menu> pending = new ArrayDeque<Menu>();
+		pending.push(menu);
+		visited.put(menu, Boolean.TRUE);
+		while(!pending.isEmpty())
+		{
+			OptionsView options = pending.pop().getOptionsManager().snapshot();
+			bytes += MENU_BYTES;
+			for(int i = 0; i < options.size(); i++)
+			{
+				bytes += OPTION_BYTES + 4L * options.getOptionNameAt(i).length();
+				IOption option = options.tryGetOptionAt(i);
+				if(option instanceof Menu && visited.put((Menu)option, Boolean.TRUE) == null)
+				{
+					pending.push((Menu)option);
+				}
+			}
+		}
+		return bytes;
+	}
+	
+	private static final class CachedMenu
+	{
+		final Menu menu;
+		final long weight;
+		
+		CachedMenu(Menu menu, long weight)
+		{
+			this.menu = menu;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.mattepu.definition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Compiles a menu definition file into the snapshot loaded at run time:
+//   java -cp fit.jar com.mattepu.definition.MenuCompiler menus.properties menus.fitm
+public final class MenuCompiler
+{
+	private MenuCompiler()
+	{
+	}
+	
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length != 2)
+		{
+			System.err.println("Usage: MenuCompiler <definition.properties> <snapshot>");
+			System.exit(1);
+		}
+		Path snapshot = Paths.get(args[1]);
+		MenuDefinition definition = MenuDefinition.load(Paths.get(args[0]));
+		definition.writeSnapshot(snapshot);
+		System.out.println("Compiled " + definition.getMenuCount() + " menus into " + snapshot);
+	}
+}
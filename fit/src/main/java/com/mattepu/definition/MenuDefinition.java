@@ -0,0 +1,284 @@
+package com.mattepu.definition;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.mattepu.IOption;
+import com.mattepu.Menu;
+import com.mattepu.exception.InvalidMenuDefinitionException;
+
+// A menu tree described as data, read from a properties file or from a compiled
+// snapshot, that builds Menus with options bound to named handlers. Every menu and
+// option has an id, and its attributes are keys starting with the id:
+//
+//   root = home
+//   home.name = Home
+//   home.header = Welcome
+//   home.options = wifi, exit
+//   wifi.name = Wifi
+//   wifi.pageSize = 10
+//   wifi.options = connect, back
+//   connect.name = Connect
+//   connect.handler = connect
+//   back.name = Back
+//   back.handler = back
+//   exit.name = Exit
+//   exit.handler = exit
+//
+// An id with options is a menu, any other id is an option, with no action when it
+// has no handler. A menu listed in several menus is one Menu shared by them, as if
+// it was added to each of them. Ids that cannot be reached from the root are left out.
+public class MenuDefinition
+{
+	static final String ROOT = "root";
+	static final String NAME = ".name";
+	static final String HEADER = ".header";
+	static final String FOOTER = ".footer";
+	static final String PAGE_SIZE = ".pageSize";
+	static final String OPTIONS = ".options";
+	static final String HANDLER = ".handler";
+	private static final String ID_SEPARATOR = ",";
+	
+	// The root is the first node
+	private Node[] nodes;
+	
+	MenuDefinition(Node[] nodes)
+	{
+		this.nodes = nodes;
+	}
+	
+	public static MenuDefinition load(Path path) throws IOException, InvalidMenuDefinitionException
+	{
+		Properties properties = new Properties();
+		try(Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+		{
+			properties.load(reader);
+		}
+		return parse(properties);
+	}
+	
+	// Nodes are numbered in the order they are found from the root, breadth first
+	public static MenuDefinition parse(Properties properties) throws InvalidMenuDefinitionException
+	{
+		String rootId = properties.getProperty(ROOT);
+		if(rootId == null || rootId.trim().isEmpty())
+		{
+			throw new InvalidMenuDefinitionException("no " + ROOT + " menu is given");
+		}
+		rootId = rootId.trim();
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		List<String> ids = new ArrayList<String>();
+		List<Node> nodes = new ArrayList<Node>();
+		indexes.put(rootId, 0);
+		ids.add(rootId);
+		for(int i = 0; i < ids.size(); i++)
+		{
+			String id = ids.get(i);
+			String[] optionIds = optionIdsOf(properties, id);
+			Node node = parseNode(properties, id, optionIds);
+			if(i == 0 && !node.isMenu())
+			{
+				throw new InvalidMenuDefinitionException("root " + id + " has no " + OPTIONS.substring(1));
+			}
+			for(int j = 0; node.isMenu() && j < optionIds.length; j++)
+			{
+				Integer index = indexes.get(optionIds[j]);
+				if(index == null)
+				{
+					index = ids.size();
+					indexes.put(optionIds[j], index);
+					ids.add(optionIds[j]);
+				}
+				else if(index == 0)
+				{
+					throw new InvalidMenuDefinitionException("root " + rootId + " is an option of " + id);
+				}
+				node.options[j] = index;
+			}
+			nodes.add(node);
+		}
+		return new MenuDefinition(nodes.toArray(new Node[nodes.size()]));
+	}
+	
+	public static MenuDefinition loadSnapshot(Path path) throws IOException
+	{
+		return MenuSnapshot.read(path);
+	}
+	
+	public void writeSnapshot(Path path) throws IOException
+	{
+		MenuSnapshot.write(this, path);
+	}
+	
+	// Builds a new tree every time, so every tree has its own menus
+	public Menu build(OptionHandlers handlers) throws InvalidMenuDefinitionException
+	{
+		Menu[] menus = new Menu[nodes.length];
+		for(int i = 0; i < nodes.length; i++)
+		{
+			Node node = nodes[i];
+			if(node.isMenu())
+			{
+				Menu menu = new Menu(node.name, i == 0);
+				menu.setHeader(node.header);
+				menu.setFooter(node.footer);
+				menu.setPageSize(node.pageSize);
+				menus[i] = menu;
+			}
+		}
+		for(int i = 0; i < nodes.length; i++)
+		{
+			if(!nodes[i].isMenu())
+			{
+				continue;
+			}
+			for(int option : nodes[i].options)
+			{
+				Node node = nodes[option];
+				if(node.isMenu())
+				{
+					menus[i].addSubMenu(node.name, menus[option], -1);
+				}
+				else
+				{
+					menus[i].addOption(node.name, handlerOf(handlers, node));
+				}
+			}
+		}
+		return menus[0];
+	}
+	
+	public int getMenuCount()
+	{
+		int count = 0;
+		for(Node node : nodes)
+		{
+			if(node.isMenu())
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	Node[] getNodes()
+	{
+		return nodes;
+	}
+	
+	private static IOption handlerOf(OptionHandlers handlers, Node node)
+	{
+		if(node.handler == null)
+		{
+			return null;
+		}
+		if(!handlers.isRegistered(node.handler))
+		{
+			throw new InvalidMenuDefinitionException("no handler is registered as " + node.handler + " for option " + node.name);
+		}
+		return handlers.get(node.handler);
+	}
+	
+	private static Node parseNode(Properties properties, String id, String[] optionIds)
+	{
+		String name = properties.getProperty(id + NAME);
+		String handler = trimmed(properties.getProperty(id + HANDLER));
+		if(name == null && handler == null && optionIds == null)
+		{
+			throw new InvalidMenuDefinitionException(id + " has no " + NAME.substring(1) + ", " + HANDLER.substring(1)
+					+ " or " + OPTIONS.substring(1));
+		}
+		return new Node(name == null ? id : name, properties.getProperty(id + HEADER), properties.getProperty(id + FOOTER),
+				pageSizeOf(properties, id), handler, optionIds == null ? -1 : optionIds.length);
+	}
+	
+	// Returns null when the id is not a menu
+	private static String[] optionIdsOf(Properties properties, String id)
+	{
+		String options = properties.getProperty(id + OPTIONS);
+		if(options == null)
+		{
+			return null;
+		}
+		options = options.trim();
+		if(options.isEmpty())
+		{
+			return new String[0];
+		}
+		String[] ids = options.split(ID_SEPARATOR);
+		for(int i = 0; i < ids.length; i++)
+		{
+			ids[i] = ids[i].trim();
+			if(ids[i].isEmpty())
+			{
+				throw new InvalidMenuDefinitionException(id + " has an empty option id");
+			}
+		}
+		return ids;
+	}
+	
+	private static int pageSizeOf(Properties properties, String id)
+	{
+		String pageSize = trimmed(properties.getProperty(id + PAGE_SIZE));
+		if(pageSize == null)
+		{
+			return 0;
+		}
+		try
+		{
+			int value = Integer.parseInt(pageSize);
+			if(value >= 0)
+			{
+				return value;
+			}
+		}
+		catch(NumberFormatException e)
+		{
+		}
+		throw new InvalidMenuDefinitionException(id + " has page size " + pageSize + " which is not a count");
+	}
+	
+	private static String trimmed(String value)
+	{
+		if(value == null)
+		{
+			return null;
+		}
+		value = value.trim();
+		return value.isEmpty() ? null : value;
+	}
+	
+	// A menu has options, even when there are none, and an option has them null
+	static final class Node
+	{
+		final String name;
+		final String header;
+		final String footer;
+		final int pageSize;
+		final String handler;
+		final int[] options;
+		
+		Node(String name, String header, String footer, int pageSize, String handler, int optionCount)
+		{
+			this.name = name;
+			this.header = header;
+			this.footer = footer;
+			this.pageSize = pageSize;
+			this.handler = handler;
+			this.options = optionCount < 0 ? null : new int[optionCount];
+		}
+		
+		boolean isMenu()
+		{
+			return options != null;
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package com.mattepu.definition;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Binary form of a MenuDefinition, loaded by mapping the file instead of parsing
+// text. A snapshot starts with MAGIC and VERSION followed by a table of the
+// distinct strings and then the nodes, root first:
+//
+//   int count, then for every string: int length, UTF-8 bytes
+//   int count, then for every node: int name, int header, int footer, int page size,
+//   int handler, int option count followed by the option node indexes
+//
+// Strings are referred to by their index in the table and a missing string is -1.
+// A node that is an option has -1 options. Integers are big endian.
+final class MenuSnapshot
+{
+	static final int MAGIC = 0x4649544D;
+	static final int VERSION = 1;
+	private static final int NONE = -1;
+	
+	private MenuSnapshot()
+	{
+	}
+	
+	static void write(MenuDefinition definition, Path path) throws IOException
+	{
+		MenuDefinition.Node[] nodes = definition.getNodes();
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		List<String> strings = new ArrayList<String>();
+		for(MenuDefinition.Node node : nodes)
+		{
+			add(indexes, strings, node.name);
+			add(indexes, strings, node.header);
+			add(indexes, strings, node.footer);
+			add(indexes, strings, node.handler);
+		}
+		try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path))))
+		{
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(strings.size());
+			for(String string : strings)
+			{
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+			output.writeInt(nodes.length);
+			for(MenuDefinition.Node node : nodes)
+			{
+				output.writeInt(indexOf(indexes, node.name));
+				output.writeInt(indexOf(indexes, node.header));
+				output.writeInt(indexOf(indexes, node.footer));
+				output.writeInt(node.pageSize);
+				output.writeInt(indexOf(indexes, node.handler));
+				if(node.isMenu())
+				{
+					output.writeInt(node.options.length);
+					for(int option : node.options)
+					{
+						output.writeInt(option);
+					}
+				}
+				else
+				{
+					output.writeInt(NONE);
+				}
+			}
+		}
+	}
+	
+	// The mapping is only read while loading, and is released when it is collected
+	static MenuDefinition read(Path path) throws IOException
+	{
+		MappedByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try
+		{
+			if(buffer.getInt() != MAGIC)
+			{
+				throw new IOException("Not a menu snapshot");
+			}
+			int version = buffer.getInt();
+			if(version != VERSION)
+			{
+				throw new IOException("Unsupported menu snapshot version " + version);
+			}
+			String[] strings = new String[count(buffer)];
+			byte[] bytes = new byte[64];
+			for(int i = 0; i < strings.length; i++)
+			{
+				int length = count(buffer);
+				if(length > bytes.length)
+				{
+					bytes = new byte[Math.max(length, bytes.length * 2)];
+				}
+				buffer.get(bytes, 0, length);
+				strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+			}
+			MenuDefinition.Node[] nodes = new MenuDefinition.Node[count(buffer)];
+			for(int i = 0; i < nodes.length; i++)
+			{
+				String name = stringAt(strings, buffer.getInt());
+				String header = stringAt(strings, buffer.getInt());
+				String footer = stringAt(strings, buffer.getInt());
+				int pageSize = buffer.getInt();
+				String handler = stringAt(strings, buffer.getInt());
+				int optionCount = optionCount(buffer);
+				MenuDefinition.Node node = new MenuDefinition.Node(name, header, footer, pageSize, handler, optionCount);
+				for(int j = 0; j < optionCount; j++)
+				{
+					int option = buffer.getInt();
+					if(option <= 0 || option >= nodes.length)
+					{
+						throw new IOException("Menu snapshot refers to missing node " + option);
+					}
+					node.options[j] = option;
+				}
+				nodes[i] = node;
+			}
+			if(nodes.length == 0 || !nodes[0].isMenu())
+			{
+				throw new IOException("Menu snapshot has no root menu");
+			}
+			return new MenuDefinition(nodes);
+		}
+		catch(BufferUnderflowException | IndexOutOfBoundsException e)
+		{
+			throw new IOException("Truncated menu snapshot", e);
+		}
+	}
+	
+	private static void add(Map<String, Integer> indexes, List<String> strings, String string)
+	{
+		if(string != null && !indexes.containsKey(string))
+		{
+			indexes.put(string, strings.size());
+			strings.add(string);
+		}
+	}
+	
+	private static int indexOf(Map<String, Integer> indexes, String string)
+	{
+		return string == null ? NONE : indexes.get(string);
+	}
+	
+	private static int count(MappedByteBuffer buffer) throws IOException
+	{
+		int count = buffer.getInt();
+		if(count < 0 || count > buffer.remaining())
+		{
+			throw new IOException("Truncated menu snapshot");
+		}
+		return count;
+	}
+	
+	// Options are four bytes each, and -1 marks a node without options
+	private static int optionCount(MappedByteBuffer buffer) throws IOException
+	{
+		int count = buffer.getInt();
+		if(count < -1 || count > buffer.remaining() / 4)
+		{
+			throw new IOException("Truncated menu snapshot");
+		}
+		return count;
+	}
+	
+	private static String stringAt(String[] strings, int index) throws IOException
+	{
+		if(index == NONE)
+		{
+			return null;
+		}
+		if(index < 0 || index >= strings.length)
+		{
+			throw new IOException("Menu snapshot refers to missing string " + index);
+		}
+		return strings[index];
+	}
+}
@@ -0,0 +1,51 @@
+package com.mattepu.definition;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.mattepu.IOption;
+import com.mattepu.OptionActionResult;
+
+// The actions that options of a menu definition are bound to by name. Options to
+// go back, return home and exit are registered from the start.
+public class OptionHandlers
+{
+	public static final String BACK = "back";
+	public static final String HOME = "home";
+	public static final String EXIT = "exit";
+	
+	private Map<String, IOption> handlers = new HashMap<String, IOption>();
+	
+	public OptionHandlers()
+	{
+		register(BACK, resultOf(OptionActionResult.GO_UP));
+		register(HOME, resultOf(OptionActionResult.RETURN_HOME));
+		register(EXIT, resultOf(OptionActionResult.EXIT_MENU));
+	}
+	
+	public void register(String name, IOption handler)
+	{
+		handlers.put(name, handler);
+	}
+	
+	public boolean isRegistered(String name)
+	{
+		return handlers.containsKey(name);
+	}
+	
+	public IOption get(String name)
+	{
+		return handlers.get(name);
+	}
+	
+	private static IOption resultOf(final OptionActionResult result)
+	{
+		return new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return result;
+			}
+		};
+	}
+}
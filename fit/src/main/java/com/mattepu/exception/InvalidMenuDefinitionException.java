@@ -0,0 +1,29 @@
+package com.mattepu.exception;
+
+public class InvalidMenuDefinitionException extends RuntimeException 
+{
+	private static final long serialVersionUID = 1L;
+	private String reason = "";
+	
+	public InvalidMenuDefinitionException(String reason)
+	{
+		this.reason = reason;
+	}
+	
+	public String getReason()
+	{
+		return reason;
+	}
+	
+	@Override
+	public String toString() 
+	{
+		return "Invalid menu definition: " + reason + ".";
+	}
+	
+	@Override
+	public String getMessage() 
+	{
+		return toString();
+	}
+}
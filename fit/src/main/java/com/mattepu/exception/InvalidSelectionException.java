@@ -0,0 +1,43 @@
+package com.mattepu.exception;
+
+public class InvalidSelectionException extends RuntimeException 
+{
+	private static final long serialVersionUID = 1L;
+	private int lineNumber = 0;
+	private String selection = "";
+	private String menuPath = "";
+	
+	public InvalidSelectionException(int lineNumber, String selection, String menuPath)
+	{
+		this.lineNumber = lineNumber;
+		this.selection = selection;
+		this.menuPath = menuPath;
+	}
+	
+	public int getLineNumber()
+	{
+		return lineNumber;
+	}
+	
+	public String getSelection()
+	{
+		return selection;
+	}
+	
+	public String getMenuPath()
+	{
+		return menuPath;
+	}
+	
+	@Override
+	public String toString() 
+	{
+		return "Selection \"" + selection + "\" on line " + Integer.toString(lineNumber) + " is invalid in menu " + menuPath + ".";
+	}
+	
+	@Override
+	public String getMessage() 
+	{
+		return toString();
+	}
+}
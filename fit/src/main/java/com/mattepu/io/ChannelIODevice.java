@@ -0,0 +1,230 @@
+package com.mattepu.io;
+
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+// Terminal device that writes each frame to a channel with a single write. The
+// clear sequence and the frame are encoded into one reusable buffer. A frame shown
+// a second time as the same String, like the cached frames of a menu, has its
+// encoded bytes kept so that it is not encoded again, while frames shown once are
+// only encoded. Every cache slot reuses its array for the frames kept in it.
+// Input is read from a channel by a ChannelLineReader.
+//
+// Buffers are flipped and cleared through Buffer, since the ByteBuffer overrides
+// added in Java 9 do not exist on the Java 8 runtimes the library targets.
+public class ChannelIODevice implements IAnsiIODevice, Flushable
+{
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+	private static final int CACHED_FRAMES = 16;
+	
+	private WritableByteChannel output;
+	private ChannelLineReader input;
+	private CharsetEncoder encoder;
+	private byte[] clearSequence;
+	private ByteBuffer frame = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+	private String[] cachedContents = new String[CACHED_FRAMES];
+	private byte[][] cachedBytes = new byte[CACHED_FRAMES][];
+	// Length of the bytes kept for the content of the slot, or -1 when it was only seen
+	private int[] cachedLengths = new int[CACHED_FRAMES];
+	private int writes = 0;
+	
+	public ChannelIODevice()
+	{
+		this(new FileInputStream(FileDescriptor.in).getChannel(), new FileOutputStream(FileDescriptor.out).getChannel(), Charset.defaultCharset());
+	}
+	
+	public ChannelIODevice(ReadableByteChannel inputChannel, WritableByteChannel outputChannel, Charset charset)
+	{
+		output = outputChannel;
+		input = new ChannelLineReader(inputChannel, charset);
+		encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		clearSequence = encode(TerminalIODevice.CURSOR_HOME + TerminalIODevice.CLEAR_SCREEN);
+		Arrays.fill(cachedLengths, -1);
+	}
+	
+	@Override
+	public void display(String content)
+	{
+		int slot = (System.identityHashCode(content) & Integer.MAX_VALUE) % CACHED_FRAMES;
+		if(cachedContents[slot] == content && cachedLengths[slot] >= 0)
+		{
+			put(cachedBytes[slot], cachedLengths[slot]);
+		}
+		else
+		{
+			int frameStart = frame.position();
+			encodeInto(content);
+			if(cachedContents[slot] == content)
+			{
+				keep(slot, frameStart, frame.position() - frameStart);
+			}
+			else
+			{
+				cachedContents[slot] = content;
+				cachedLengths[slot] = -1;
+			}
+		}
+		writeFrame();
+	}
+	
+	@Override
+	public String acceptInput()
+	{
+		try
+		{
+			writeFrame();
+			String line = input.readLine();
+			if(line == null)
+			{
+				throw new EOFException("End of terminal input reached");
+			}
+			return line;
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public void clearDisplay()
+	{
+		put(clearSequence);
+	}
+	
+	@Override
+	public String getClearSequence()
+	{
+		return TerminalIODevice.CURSOR_HOME + TerminalIODevice.CLEAR_SCREEN;
+	}
+	
+	@Override
+	public void flush() throws IOException
+	{
+		writeFrame();
+	}
+	
+	// Number of writes issued to the output channel, for measuring
+	int getWrites()
+	{
+		return writes;
+	}
+	
+	// Number of frames whose encoded bytes are kept, for measuring
+	int getCachedFrames()
+	{
+		int cached = 0;
+		for(int length : cachedLengths)
+		{
+			if(length >= 0)
+			{
+				cached++;
+			}
+		}
+		return cached;
+	}
+	
+	private void keep(int slot, int frameStart, int length)
+	{
+		if(cachedBytes[slot] == null || cachedBytes[slot].length < length)
+		{
+			cachedBytes[slot] = new byte[length];
+		}
+		System.arraycopy(frame.array(), frameStart, cachedBytes[slot], 0, length);
+		cachedLengths[slot] = length;
+	}
+	
+	private void put(byte[] bytes)
+	{
+		put(bytes, bytes.length);
+	}
+	
+	private void put(byte[] bytes, int length)
+	{
+		ensureRemaining(length);
+		frame.put(bytes, 0, length);
+	}
+	
+	private void ensureRemaining(int bytes)
+	{
+		if(frame.remaining() < bytes)
+		{
+			ByteBuffer grownFrame = ByteBuffer.allocate(Math.max(frame.capacity() * 2, frame.position() + bytes));
+			((Buffer)frame).flip();
+			grownFrame.put(frame);
+			frame = grownFrame;
+		}
+	}
+	
+	private void encodeInto(String content)
+	{
+		encoder.reset();
+		CharBuffer chars = CharBuffer.wrap(content);
+		ensureRemaining((int)Math.min(Integer.MAX_VALUE, (long)(content.length() * encoder.averageBytesPerChar())));
+		while(encoder.encode(chars, frame, true).isOverflow())
+		{
+			ensureRemaining(frame.capacity());
+		}
+		while(encoder.flush(frame).isOverflow())
+		{
+			ensureRemaining(frame.capacity());
+		}
+	}
+	
+	private byte[] encode(String content)
+	{
+		try
+		{
+			ByteBuffer bytes = encoder.encode(CharBuffer.wrap(content));
+			byte[] encoded = new byte[bytes.remaining()];
+			bytes.get(encoded);
+			return encoded;
+		}
+		catch(CharacterCodingException e)
+		{
+			throw new IllegalArgumentException(e);
+		}
+	}
+	
+	private void writeFrame()
+	{
+		if(frame.position() == 0)
+		{
+			return;
+		}
+		((Buffer)frame).flip();
+		try
+		{
+			while(frame.hasRemaining())
+			{
+				output.write(frame);
+				writes++;
+			}
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		finally
+		{
+			((Buffer)frame).clear();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.mattepu.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+// Reads lines from a channel into a reusable buffer, splitting them on '\n' with an
+// optional preceding '\r'. The charset must encode '\r' and '\n' as single bytes
+// that occur nowhere else, as every ASCII compatible charset does. Lines holding a
+// single ASCII character or a small number, like menu selections and commands, are
+// returned as cached Strings so that reading them does not allocate.
+public class ChannelLineReader
+{
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+	private static final int CACHED_NUMBERS = 1024;
+	private static final String[] ASCII_LINES = new String[128];
+	private static final String[] NUMBER_LINES = new String[CACHED_NUMBERS];
+	
+	static
+	{
+		for(int i = 0; i < ASCII_LINES.length; i++)
+		{
+			ASCII_LINES[i] = String.valueOf((char)i);
+		}
+		for(int i = 0; i < NUMBER_LINES.length; i++)
+		{
+			NUMBER_LINES[i] = Integer.toString(i);
+		}
+	}
+	
+	private ReadableByteChannel channel;
+	private Charset charset;
+	private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+	private ByteBuffer buffer = ByteBuffer.wrap(bytes);
+	private int start = 0;
+	private int end = 0;
+	private boolean endOfInput = false;
+	
+	public ChannelLineReader(ReadableByteChannel channel, Charset charset)
+	{
+		if("\n".getBytes(charset).length != 1)
+		{
+			throw new IllegalArgumentException(charset + " is not ASCII compatible");
+		}
+		this.channel = channel;
+		this.charset = charset;
+	}
+	
+	// Returns the next line without its line separator, or null at the end of the input
+	public String readLine() throws IOException
+	{
+		int scanned = start;
+		while(true)
+		{
+			for(int i = scanned; i < end; i++)
+			{
+				if(bytes[i] == '\n')
+				{
+					String line = toLine(start, i);
+					start = i + 1;
+					return line;
+				}
+			}
+			scanned = end;
+			if(endOfInput)
+			{
+				if(start == end)
+				{
+					return null;
+				}
+				String line = toLine(start, end);
+				start = end;
+				return line;
+			}
+			scanned -= start;
+			fill();
+		}
+	}
+	
+	private void fill() throws IOException
+	{
+		if(start > 0)
+		{
+			System.arraycopy(bytes, start, bytes, 0, end - start);
+			end -= start;
+			start = 0;
+		}
+		if(end == bytes.length)
+		{
+			byte[] grownBytes = new byte[bytes.length * 2];
+			System.arraycopy(bytes, 0, grownBytes, 0, end);
+			bytes = grownBytes;
+			buffer = ByteBuffer.wrap(bytes);
+		}
+		// Through Buffer, as the ByteBuffer overrides of Java 9 are missing on Java 8
+		((Buffer)buffer).limit(bytes.length);
+		((Buffer)buffer).position(end);
+		int read = channel.read(buffer);
+		if(read < 0)
+		{
+			endOfInput = true;
+		}
+		else
+		{
+			end += read;
+		}
+	}
+	
+	private String toLine(int from, int to)
+	{
+		if(to > from && bytes[to - 1] == '\r')
+		{
+			to--;
+		}
+		int length = to - from;
+		if(length == 1 && bytes[from] >= 0)
+		{
+			return ASCII_LINES[bytes[from]];
+		}
+		if(length > 0 && length <= 4)
+		{
+			int value = 0;
+			for(int i = from; i < to && value >= 0; i++)
+			{
+				int digit = bytes[i] - '0';
+				value = digit < 0 || digit > 9 ? -1 : value * 10 + digit;
+			}
+			if(value >= 0 && value < CACHED_NUMBERS && bytes[from] != '0')
+			{
+				return NUMBER_LINES[value];
+			}
+		}
+		return new String(bytes, from, length, charset);
+	}
+}
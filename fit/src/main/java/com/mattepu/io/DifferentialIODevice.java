@@ -0,0 +1,229 @@
+package com.mattepu.io;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mattepu.IODevice;
+
+// Decorates a device that writes to an ANSI terminal so that a frame which follows
+// a clearDisplay() is not resent in full. The lines of the last frame are kept and
+// only the lines that differ are rewritten in place, followed by a cursor move to
+// the end of the frame, unless resending the whole frame is shorter. Resending it
+// costs what the device writes to clear the display, which an IAnsiIODevice tells
+// and other devices are given when decorated.
+//
+// Frames are assumed to fit the terminal width and height. Columns are counted in
+// cells of the terminal, where wide East Asian characters and emoji take two and
+// combining marks none.
+public class DifferentialIODevice implements IODevice, Flushable
+{
+	private static final String ESCAPE = "\033[";
+	private static final String CLEAR_LINE_END = ESCAPE + "K";
+	private static final String CLEAR_SCREEN_END = ESCAPE + "J";
+	
+	private IODevice device;
+	private long clearBytes;
+	private List<String> shownLines = null;
+	private boolean clearRequested = false;
+	private long bytesWritten = 0;
+	private long bytesSaved = 0;
+	
+	// Devices that are not an IAnsiIODevice are taken to clear the display for free,
+	// so the bytes saved are never overstated
+	public DifferentialIODevice(IODevice device)
+	{
+		this(device, device instanceof IAnsiIODevice ? ((IAnsiIODevice)device).getClearSequence() : "");
+	}
+	
+	// The clear sequence is what the device writes on clearDisplay()
+	public DifferentialIODevice(IODevice device, String clearSequence)
+	{
+		this.device = device;
+		clearBytes = utf8Length(clearSequence);
+	}
+	
+	@Override
+	public void display(String content) 
+	{
+		if(!clearRequested)
+		{
+			// Output that is appended to a frame is not tracked, so the next frame is redrawn in full
+			shownLines = null;
+			write(content);
+			return;
+		}
+		clearRequested = false;
+		List<String> lines = splitLines(content);
+		long fullRedrawBytes = clearBytes + utf8Length(content);
+		String difference = shownLines == null ? null : difference(shownLines, lines);
+		if(difference == null || utf8Length(difference) >= fullRedrawBytes)
+		{
+			device.clearDisplay();
+			write(content);
+			bytesWritten += fullRedrawBytes - utf8Length(content);
+		}
+		else
+		{
+			write(difference);
+			bytesSaved += fullRedrawBytes - utf8Length(difference);
+		}
+		shownLines = lines;
+	}
+	
+	// The echo of the typed input changes the last line of the frame on the terminal
+	@Override
+	public String acceptInput() 
+	{
+		if(shownLines != null && !shownLines.isEmpty())
+		{
+			shownLines.set(shownLines.size() - 1, null);
+		}
+		return device.acceptInput();
+	}
+	
+	@Override
+	public void clearDisplay() 
+	{
+		clearRequested = true;
+	}
+	
+	@Override
+	public void flush() throws IOException
+	{
+		if(clearRequested)
+		{
+			clearRequested = false;
+			shownLines = null;
+			device.clearDisplay();
+		}
+		if(device instanceof Flushable)
+		{
+			((Flushable)device).flush();
+		}
+	}
+	
+	// Forces the next frame to be redrawn in full, e.g. after something else wrote to the terminal
+	public void invalidate()
+	{
+		shownLines = null;
+	}
+	
+	public long getBytesWritten()
+	{
+		return bytesWritten;
+	}
+	
+	public long getBytesSaved()
+	{
+		return bytesSaved;
+	}
+	
+	private void write(String content)
+	{
+		device.display(content);
+		bytesWritten += utf8Length(content);
+	}
+	
+	private static String difference(List<String> oldLines, List<String> newLines)
+	{
+		StringBuilder difference = new StringBuilder();
+		for(int i = 0; i < newLines.size(); i++)
+		{
+			String line = newLines.get(i);
+			if(i >= oldLines.size() || !line.equals(oldLines.get(i)))
+			{
+				moveCursor(difference, i, 0);
+				difference.append(line).append(CLEAR_LINE_END);
+			}
+		}
+		if(newLines.size() < oldLines.size())
+		{
+			moveCursor(difference, newLines.size(), 0);
+			difference.append(CLEAR_SCREEN_END);
+		}
+		int lastLine = newLines.size() - 1;
+		moveCursor(difference, lastLine, width(newLines.get(lastLine)));
+		return difference.toString();
+	}
+	
+	private static void moveCursor(StringBuilder builder, int line, int column)
+	{
+		builder.append(ESCAPE).append(line + 1).append(';').append(column + 1).append('H');
+	}
+	
+	private static List<String> splitLines(String content)
+	{
+		List<String> lines = new ArrayList<String>();
+		int lineStart = 0;
+		int lineEnd;
+		while((lineEnd = content.indexOf('\n', lineStart)) >= 0)
+		{
+			lines.add(content.substring(lineStart, lineEnd));
+			lineStart = lineEnd + 1;
+		}
+		lines.add(content.substring(lineStart));
+		return lines;
+	}
+	
+	// Cells the line takes on the terminal
+	static int width(String line)
+	{
+		int width = 0;
+		for(int i = 0; i < line.length(); )
+		{
+			int codePoint = line.codePointAt(i);
+			i += Character.charCount(codePoint);
+			int type = Character.getType(codePoint);
+			if(type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT)
+			{
+				continue;
+			}
+			width += isWide(codePoint) ? 2 : 1;
+		}
+		return width;
+	}
+	
+	// The wide and full width ranges of Unicode East Asian Width, with the emoji blocks
+	private static boolean isWide(int codePoint)
+	{
+		return (codePoint >= 0x1100 && codePoint <= 0x115F)
+				|| (codePoint >= 0x2E80 && codePoint <= 0xA4CF && codePoint != 0x303F)
+				|| (codePoint >= 0xAC00 && codePoint <= 0xD7A3)
+				|| (codePoint >= 0xF900 && codePoint <= 0xFAFF)
+				|| (codePoint >= 0xFE30 && codePoint <= 0xFE4F)
+				|| (codePoint >= 0xFF00 && codePoint <= 0xFF60)
+				|| (codePoint >= 0xFFE0 && codePoint <= 0xFFE6)
+				|| (codePoint >= 0x1F300 && codePoint <= 0x1F64F)
+				|| (codePoint >= 0x1F900 && codePoint <= 0x1F9FF)
+				|| (codePoint >= 0x20000 && codePoint <= 0x3FFFD);
+	}
+	
+	static long utf8Length(String content)
+	{
+		long length = 0;
+		for(int i = 0; i < content.length(); i++)
+		{
+			char c = content.charAt(i);
+			if(c < 0x80)
+			{
+				length += 1;
+			}
+			else if(c < 0x800)
+			{
+				length += 2;
+			}
+			else if(Character.isHighSurrogate(c))
+			{
+				length += 4;
+				i++;
+			}
+			else
+			{
+				length += 3;
+			}
+		}
+		return length;
+	}
+}
@@ -0,0 +1,10 @@
+package com.mattepu.io;
+
+import com.mattepu.IODevice;
+
+// A device writing to an ANSI terminal, which tells what clearDisplay() writes so
+// that decorators such as DifferentialIODevice can count its bytes
+public interface IAnsiIODevice extends IODevice
+{
+	String getClearSequence();
+}
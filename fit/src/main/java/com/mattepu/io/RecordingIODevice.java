@@ -0,0 +1,111 @@
+package com.mattepu.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import com.mattepu.IODevice;
+
+// Decorates a device and records every call made to it, with nanosecond timing,
+// to a compact binary log that SessionReplayer can drive a menu tree from.
+public class RecordingIODevice implements IODevice, Flushable, Closeable
+{
+	private IODevice device;
+	private DataOutputStream log;
+	private long lastRecordTime;
+	
+	public RecordingIODevice(IODevice device, OutputStream log)
+	{
+		this.device = device;
+		this.log = new DataOutputStream(new BufferedOutputStream(log));
+		try
+		{
+			this.log.writeInt(SessionLog.MAGIC);
+			this.log.writeByte(SessionLog.VERSION);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		lastRecordTime = System.nanoTime();
+	}
+	
+	@Override
+	public void display(String content)
+	{
+		long time = System.nanoTime();
+		device.display(content);
+		try
+		{
+			startRecord(SessionLog.DISPLAY, time);
+			SessionLog.writeVarLong(log, content.length());
+			log.writeInt(content.hashCode());
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public String acceptInput()
+	{
+		long time = System.nanoTime();
+		String input = device.acceptInput();
+		long waited = System.nanoTime() - time;
+		try
+		{
+			startRecord(SessionLog.ACCEPT_INPUT, time);
+			SessionLog.writeVarLong(log, waited);
+			SessionLog.writeString(log, input);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return input;
+	}
+	
+	@Override
+	public void clearDisplay()
+	{
+		long time = System.nanoTime();
+		device.clearDisplay();
+		try
+		{
+			startRecord(SessionLog.CLEAR_DISPLAY, time);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public void flush() throws IOException
+	{
+		log.flush();
+		if(device instanceof Flushable)
+		{
+			((Flushable)device).flush();
+		}
+	}
+	
+	// Closes the log, the decorated device is left open
+	@Override
+	public void close() throws IOException
+	{
+		log.close();
+	}
+	
+	private void startRecord(int type, long time) throws IOException
+	{
+		log.writeByte(type);
+		SessionLog.writeVarLong(log, Math.max(0, time - lastRecordTime));
+		lastRecordTime = time;
+	}
+}
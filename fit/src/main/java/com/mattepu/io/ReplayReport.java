@@ -0,0 +1,129 @@
+package com.mattepu.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Latency of every step of a replayed session next to the latency recorded for it.
+public class ReplayReport
+{
+	private List<Step> steps = new ArrayList<Step>();
+	private int frameMismatches;
+	
+	ReplayReport(int frameMismatches)
+	{
+		this.frameMismatches = frameMismatches;
+	}
+	
+	void addStep(String input, long recordedNanos, long replayedNanos)
+	{
+		steps.add(new Step(steps.size(), input, recordedNanos, replayedNanos));
+	}
+	
+	public List<Step> getSteps()
+	{
+		return Collections.unmodifiableList(steps);
+	}
+	
+	// Frames that differ from the recorded ones, e.g. because the menu tree changed
+	public int getFrameMismatches()
+	{
+		return frameMismatches;
+	}
+	
+	public long getRecordedNanos()
+	{
+		long total = 0;
+		for(Step step : steps)
+		{
+			total += step.recordedNanos;
+		}
+		return total;
+	}
+	
+	public long getReplayedNanos()
+	{
+		long total = 0;
+		for(Step step : steps)
+		{
+			total += step.replayedNanos;
+		}
+		return total;
+	}
+	
+	// Steps that took longer than the recording by more than the given factor and by
+	// more than the given absolute slack, which keeps timer noise of steps that take
+	// microseconds from being reported.
+	public List<Step> getRegressions(double factor, long slackNanos)
+	{
+		List<Step> regressions = new ArrayList<Step>();
+		for(Step step : steps)
+		{
+			if(step.replayedNanos > step.recordedNanos * factor && step.replayedNanos - step.recordedNanos > slackNanos)
+			{
+				regressions.add(step);
+			}
+		}
+		return regressions;
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder report = new StringBuilder();
+		report.append("Step\tInput\tRecorded (us)\tReplayed (us)\n");
+		for(Step step : steps)
+		{
+			report.append(step).append('\n');
+		}
+		report.append("Total\t\t").append(TimeUnit.NANOSECONDS.toMicros(getRecordedNanos()))
+				.append('\t').append(TimeUnit.NANOSECONDS.toMicros(getReplayedNanos())).append('\n');
+		report.append("Frame mismatches : ").append(frameMismatches);
+		return report.toString();
+	}
+	
+	public static class Step
+	{
+		private int index;
+		private String input;
+		private long recordedNanos;
+		private long replayedNanos;
+		
+		Step(int index, String input, long recordedNanos, long replayedNanos)
+		{
+			this.index = index;
+			this.input = input;
+			this.recordedNanos = recordedNanos;
+			this.replayedNanos = replayedNanos;
+		}
+		
+		public int getIndex()
+		{
+			return index;
+		}
+		
+		// The input that started the step, null for the first step
+		public String getInput()
+		{
+			return input;
+		}
+		
+		public long getRecordedNanos()
+		{
+			return recordedNanos;
+		}
+		
+		public long getReplayedNanos()
+		{
+			return replayedNanos;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return index + "\t" + (input == null ? "" : input) + "\t" + TimeUnit.NANOSECONDS.toMicros(recordedNanos)
+					+ "\t" + TimeUnit.NANOSECONDS.toMicros(replayedNanos);
+		}
+	}
+}
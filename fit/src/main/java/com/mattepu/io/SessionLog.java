@@ -0,0 +1,79 @@
+package com.mattepu.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Binary format written by RecordingIODevice and read by SessionReplayer. The log
+// starts with MAGIC and VERSION and is followed by one record per device call:
+// the call type, the nanoseconds since the previous record as a variable length
+// number and the data of the call. A display records the length and hash of the
+// frame instead of the frame itself, an input records how long the user took to
+// enter it and the UTF-8 bytes of the input.
+final class SessionLog
+{
+	static final int MAGIC = 0x46495452;
+	static final int VERSION = 1;
+	static final int DISPLAY = 1;
+	static final int CLEAR_DISPLAY = 2;
+	static final int ACCEPT_INPUT = 3;
+	
+	private SessionLog()
+	{
+	}
+	
+	static void writeVarLong(DataOutput output, long value) throws IOException
+	{
+		while((value & ~0x7FL) != 0)
+		{
+			output.writeByte((int)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		output.writeByte((int)value);
+	}
+	
+	static long readVarLong(DataInput input) throws IOException
+	{
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7)
+		{
+			int b = input.readUnsignedByte();
+			value |= (long)(b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length number in session log");
+	}
+	
+	// Null is written as length 0 and every other string as its length plus one
+	static void writeString(DataOutput output, String value) throws IOException
+	{
+		if(value == null)
+		{
+			writeVarLong(output, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(output, bytes.length + 1L);
+		output.write(bytes);
+	}
+	
+	static String readString(DataInput input) throws IOException
+	{
+		long length = readVarLong(input);
+		if(length == 0)
+		{
+			return null;
+		}
+		if(length - 1 > Integer.MAX_VALUE)
+		{
+			throw new IOException("String too long in session log");
+		}
+		byte[] bytes = new byte[(int)(length - 1)];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
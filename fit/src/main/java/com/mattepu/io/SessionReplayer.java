@@ -0,0 +1,173 @@
+package com.mattepu.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mattepu.IODevice;
+import com.mattepu.Menu;
+import com.mattepu.MenuSession;
+
+// Drives a menu tree with the inputs of a session recorded by RecordingIODevice,
+// without waiting for the time the user took, and compares how long every step
+// took against the recording. A step is the work between an input being entered
+// and the next input being asked for, the first step starts with the first call to
+// the device and the last one ends with the last frame after the last input.
+public class SessionReplayer
+{
+	private List<String> inputs = new ArrayList<String>();
+	private List<Long> recordedSteps = new ArrayList<Long>();
+	private List<Integer> frameLengths = new ArrayList<Integer>();
+	private List<Integer> frameHashes = new ArrayList<Integer>();
+	
+	public SessionReplayer(InputStream log) throws IOException
+	{
+		DataInputStream input = new DataInputStream(new BufferedInputStream(log));
+		if(input.readInt() != SessionLog.MAGIC)
+		{
+			throw new IOException("Not a session log");
+		}
+		int version = input.readUnsignedByte();
+		if(version != SessionLog.VERSION)
+		{
+			throw new IOException("Unsupported session log version " + version);
+		}
+		StepTimer timer = new StepTimer();
+		long time = 0;
+		int type;
+		while((type = input.read()) >= 0)
+		{
+			time += SessionLog.readVarLong(input);
+			switch(type)
+			{
+			case SessionLog.DISPLAY:
+				frameLengths.add((int)SessionLog.readVarLong(input));
+				frameHashes.add(input.readInt());
+				timer.output(time);
+				break;
+			case SessionLog.CLEAR_DISPLAY:
+				timer.output(time);
+				break;
+			case SessionLog.ACCEPT_INPUT:
+				long waited = SessionLog.readVarLong(input);
+				inputs.add(SessionLog.readString(input));
+				timer.inputRequested(time, recordedSteps);
+				timer.inputEntered(time + waited);
+				break;
+			default:
+				throw new IOException("Unknown record type " + type + " in session log");
+			}
+		}
+		timer.finish(recordedSteps);
+	}
+	
+	public int getInputCount()
+	{
+		return inputs.size();
+	}
+	
+	public ReplayReport replay(Menu rootMenu)
+	{
+		ReplayIODevice device = new ReplayIODevice();
+		try
+		{
+			new MenuSession(rootMenu, device).start();
+		}
+		catch(UncheckedIOException e)
+		{
+			if(!(e.getCause() instanceof EOFException))
+			{
+				throw e;
+			}
+		}
+		device.timer.finish(device.replayedSteps);
+		ReplayReport report = new ReplayReport(device.frameMismatches);
+		int steps = Math.min(recordedSteps.size(), device.replayedSteps.size());
+		for(int i = 0; i < steps; i++)
+		{
+			String stepInput = i == 0 ? null : inputs.get(i - 1);
+			report.addStep(stepInput, recordedSteps.get(i), device.replayedSteps.get(i));
+		}
+		return report;
+	}
+	
+	private class ReplayIODevice implements IODevice
+	{
+		StepTimer timer = new StepTimer();
+		List<Long> replayedSteps = new ArrayList<Long>();
+		int frameMismatches = 0;
+		int nextInput = 0;
+		int nextFrame = 0;
+		
+		@Override
+		public void display(String content)
+		{
+			if(nextFrame >= frameLengths.size() || frameLengths.get(nextFrame) != content.length()
+					|| frameHashes.get(nextFrame) != content.hashCode())
+			{
+				frameMismatches++;
+			}
+			nextFrame++;
+			timer.output(System.nanoTime());
+		}
+		
+		@Override
+		public String acceptInput()
+		{
+			timer.inputRequested(System.nanoTime(), replayedSteps);
+			if(nextInput >= inputs.size())
+			{
+				throw new UncheckedIOException(new EOFException("End of recorded input reached"));
+			}
+			String input = inputs.get(nextInput++);
+			timer.inputEntered(System.nanoTime());
+			return input;
+		}
+		
+		@Override
+		public void clearDisplay()
+		{
+			timer.output(System.nanoTime());
+		}
+	}
+	
+	private static class StepTimer
+	{
+		long stepStart = -1;
+		long lastOutput = -1;
+		
+		void output(long time)
+		{
+			if(stepStart < 0)
+			{
+				stepStart = time;
+			}
+			lastOutput = time;
+		}
+		
+		void inputRequested(long time, List<Long> steps)
+		{
+			steps.add(time - (stepStart < 0 ? time : stepStart));
+			stepStart = -1;
+			lastOutput = -1;
+		}
+		
+		void inputEntered(long time)
+		{
+			stepStart = time;
+		}
+		
+		void finish(List<Long> steps)
+		{
+			if(stepStart >= 0 && lastOutput >= stepStart)
+			{
+				steps.add(lastOutput - stepStart);
+			}
+		}
+	}
+}
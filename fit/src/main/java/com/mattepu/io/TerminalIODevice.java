@@ -0,0 +1,96 @@
+package com.mattepu.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+// Terminal device that clears the screen with ANSI control sequences instead of
+// spawning a process. Clearing and displaying only fill a buffer, which is written
+// to the terminal in one flush per frame.
+public class TerminalIODevice implements IAnsiIODevice, Flushable
+{
+	static final String CURSOR_HOME = "\033[H";
+	static final String CLEAR_SCREEN = "\033[2J";
+	
+	private Writer output;
+	private BufferedReader input;
+	
+	public TerminalIODevice()
+	{
+		this(System.in, System.out, Charset.defaultCharset());
+	}
+	
+	public TerminalIODevice(InputStream inputStream, OutputStream outputStream, Charset charset)
+	{
+		output = new BufferedWriter(new OutputStreamWriter(outputStream, charset), 8192);
+		input = new BufferedReader(new InputStreamReader(inputStream, charset));
+	}
+	
+	@Override
+	public void display(String content) 
+	{
+		try
+		{
+			output.write(content);
+			output.flush();
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public String acceptInput() 
+	{
+		try
+		{
+			output.flush();
+			String line = input.readLine();
+			if(line == null)
+			{
+				throw new EOFException("End of terminal input reached");
+			}
+			return line;
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public void clearDisplay() 
+	{
+		try
+		{
+			output.write(CURSOR_HOME);
+			output.write(CLEAR_SCREEN);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public String getClearSequence()
+	{
+		return CURSOR_HOME + CLEAR_SCREEN;
+	}
+	
+	@Override
+	public void flush() throws IOException
+	{
+		output.flush();
+	}
+}
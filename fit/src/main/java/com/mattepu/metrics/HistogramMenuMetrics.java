@@ -0,0 +1,180 @@
+package com.mattepu.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.mattepu.IMenuMetrics;
+import com.mattepu.OptionActionResult;
+
+// Keeps latency histograms of rendering, input and of every option by menu path
+// and option name, and exposes their percentiles as an MXBean. Once an option has
+// been seen, recording its latency is two map lookups and a histogram update.
+//
+// Options are told apart by the full menu path, so menus the navigation panel
+// shows truncated are still kept apart. Generated menus can have any number of
+// options, so only the first maxOptions options seen get a histogram of their own
+// and the latencies of the others are recorded together under OTHER_OPTIONS.
+public class HistogramMenuMetrics implements IMenuMetrics, MenuMetricsMXBean
+{
+	public static final String OBJECT_NAME_PREFIX = "com.mattepu:type=MenuMetrics,name=";
+	public static final String OTHER_OPTIONS = "(other options)";
+	private static final int DEFAULT_MAX_OPTIONS = 1024;
+	
+	private final int maxOptions;
+	private LatencyHistogram renderTimes = new LatencyHistogram();
+	private LatencyHistogram inputWaits = new LatencyHistogram();
+	private ConcurrentHashMap<String, ConcurrentHashMap<String, LatencyHistogram>> optionLatencies = new ConcurrentHashMap<String, ConcurrentHashMap<String, LatencyHistogram>>();
+	private AtomicInteger optionCount = new AtomicInteger();
+	private LatencyHistogram otherOptions = new LatencyHistogram();
+	
+	public HistogramMenuMetrics()
+	{
+		this(DEFAULT_MAX_OPTIONS);
+	}
+	
+	public HistogramMenuMetrics(int maxOptions)
+	{
+		this.maxOptions = maxOptions;
+	}
+	
+	@Override
+	public void frameRendered(String menuPath, int frameLength, long nanos)
+	{
+		renderTimes.record(nanos);
+	}
+	
+	@Override
+	public void inputReceived(String menuPath, long waitNanos)
+	{
+		inputWaits.record(waitNanos);
+	}
+	
+	@Override
+	public void optionExecuted(String menuPath, String optionName, OptionActionResult result, long nanos)
+	{
+		optionHistogram(menuPath, optionName).record(nanos);
+	}
+	
+	public LatencyHistogram getRenderHistogram()
+	{
+		return renderTimes;
+	}
+	
+	public LatencyHistogram getInputWaitHistogram()
+	{
+		return inputWaits;
+	}
+	
+	// Returns null when the option has not been executed or has no histogram of its own
+	public LatencyHistogram getOptionHistogram(String menuPath, String optionName)
+	{
+		Map<String, LatencyHistogram> options = optionLatencies.get(menuPath);
+		return options == null ? null : options.get(optionName);
+	}
+	
+	// Latencies of the options executed after maxOptions options had histograms
+	public LatencyHistogram getOtherOptionsHistogram()
+	{
+		return otherOptions;
+	}
+	
+	@Override
+	public LatencySummary getRenderTime()
+	{
+		return new LatencySummary(renderTimes);
+	}
+	
+	@Override
+	public LatencySummary getInputWait()
+	{
+		return new LatencySummary(inputWaits);
+	}
+	
+	@Override
+	public List<OptionLatency> getOptionLatencies()
+	{
+		List<OptionLatency> latencies = new ArrayList<OptionLatency>();
+		for(Map.Entry<String, ConcurrentHashMap<String, LatencyHistogram>> menu : optionLatencies.entrySet())
+		{
+			for(Map.Entry<String, LatencyHistogram> option : menu.getValue().entrySet())
+			{
+				latencies.add(new OptionLatency(menu.getKey(), option.getKey(), new LatencySummary(option.getValue())));
+			}
+		}
+		if(otherOptions.getCount() > 0)
+		{
+			latencies.add(new OptionLatency("", OTHER_OPTIONS, new LatencySummary(otherOptions)));
+		}
+		Collections.sort(latencies, new Comparator<OptionLatency>() {
+			@Override
+			public int compare(OptionLatency first, OptionLatency second) 
+			{
+				return Double.compare(second.getLatency().getP99Micros(), first.getLatency().getP99Micros());
+			}
+		});
+		return latencies;
+	}
+	
+	@Override
+	public void reset()
+	{
+		renderTimes.reset();
+		inputWaits.reset();
+		optionLatencies.clear();
+		optionCount.set(0);
+		otherOptions.reset();
+	}
+	
+	// Registers these metrics with the platform MBean server under the given name
+	public ObjectName register(String name) throws JMException
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+		server.registerMBean(this, objectName);
+		return objectName;
+	}
+	
+	private LatencyHistogram optionHistogram(String menuPath, String optionName)
+	{
+		ConcurrentHashMap<String, LatencyHistogram> options = optionLatencies.get(menuPath);
+		if(options == null)
+		{
+			if(optionCount.get() >= maxOptions)
+			{
+				return otherOptions;
+			}
+			options = optionLatencies.computeIfAbsent(menuPath, path -> new ConcurrentHashMap<String, LatencyHistogram>());
+		}
+		LatencyHistogram histogram = options.get(optionName);
+		if(histogram == null)
+		{
+			histogram = options.computeIfAbsent(optionName, name -> reserveOption() ? new LatencyHistogram() : null);
+		}
+		return histogram != null ? histogram : otherOptions;
+	}
+	
+	private boolean reserveOption()
+	{
+		int count;
+		do
+		{
+			count = optionCount.get();
+			if(count >= maxOptions)
+			{
+				return false;
+			}
+		}
+		while(!optionCount.compareAndSet(count, count + 1));
+		return true;
+	}
+}
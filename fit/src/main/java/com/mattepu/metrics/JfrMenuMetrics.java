@@ -0,0 +1,244 @@
+package com.mattepu.metrics;
+
+import com.mattepu.IMenuMetrics;
+import com.mattepu.OptionActionResult;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Emits Java Flight Recorder events for navigation, rendering, input and option
+// execution, and passes every call on to another IMenuMetrics. The events are
+// disabled unless a recording enables them, e.g. with a .jfc file setting
+// com.mattepu.* to enabled, and a disabled event is never filled in or committed.
+//
+// Rendering, input and option events begin on the started call that precedes the
+// work and end when its timing is reported, so they span the work in a recording.
+// The begun events are kept per thread, since a session makes both calls on its
+// own thread. A timing reported without a started call records an instant event.
+public class JfrMenuMetrics implements IMenuMetrics
+{
+	private static final String CATEGORY = "FIT";
+	
+	private IMenuMetrics next;
+	private final ThreadLocal<BegunEvents> begunEvents = new ThreadLocal<BegunEvents>() {
+		@Override
+		protected BegunEvents initialValue()
+		{
+			return new BegunEvents();
+		}
+	};
+	
+	public JfrMenuMetrics()
+	{
+		this(IMenuMetrics.NONE);
+	}
+	
+	public JfrMenuMetrics(IMenuMetrics next)
+	{
+		this.next = next == null ? IMenuMetrics.NONE : next;
+	}
+	
+	@Override
+	public void menuEntered(String menuPath)
+	{
+		MenuEnteredEvent event = new MenuEnteredEvent();
+		if(event.shouldCommit())
+		{
+			event.menuPath = menuPath;
+			event.commit();
+		}
+		next.menuEntered(menuPath);
+	}
+	
+	@Override
+	public void menuExited(String menuPath)
+	{
+		MenuExitedEvent event = new MenuExitedEvent();
+		if(event.shouldCommit())
+		{
+			event.menuPath = menuPath;
+			event.commit();
+		}
+		next.menuExited(menuPath);
+	}
+	
+	@Override
+	public void frameRenderStarted(String menuPath)
+	{
+		FrameRenderedEvent event = new FrameRenderedEvent();
+		if(event.isEnabled())
+		{
+			event.begin();
+			begunEvents.get().frame = event;
+		}
+		next.frameRenderStarted(menuPath);
+	}
+	
+	@Override
+	public void frameRendered(String menuPath, int frameLength, long nanos)
+	{
+		BegunEvents begun = begunEvents.get();
+		FrameRenderedEvent event = begun.frame != null ? begun.frame : new FrameRenderedEvent();
+		begun.frame = null;
+		event.end();
+		if(event.shouldCommit())
+		{
+			event.menuPath = menuPath;
+			event.frameLength = frameLength;
+			event.renderTime = nanos;
+			event.commit();
+		}
+		next.frameRendered(menuPath, frameLength, nanos);
+	}
+	
+	@Override
+	public void inputAwaited(String menuPath)
+	{
+		InputReceivedEvent event = new InputReceivedEvent();
+		if(event.isEnabled())
+		{
+			event.begin();
+			begunEvents.get().input = event;
+		}
+		next.inputAwaited(menuPath);
+	}
+	
+	@Override
+	public void inputReceived(String menuPath, long waitNanos)
+	{
+		BegunEvents begun = begunEvents.get();
+		InputReceivedEvent event = begun.input != null ? begun.input : new InputReceivedEvent();
+		begun.input = null;
+		event.end();
+		if(event.shouldCommit())
+		{
+			event.menuPath = menuPath;
+			event.waitTime = waitNanos;
+			event.commit();
+		}
+		next.inputReceived(menuPath, waitNanos);
+	}
+	
+	@Override
+	public void optionStarted(String menuPath, String optionName)
+	{
+		OptionExecutedEvent event = new OptionExecutedEvent();
+		if(event.isEnabled())
+		{
+			event.begin();
+			begunEvents.get().option = event;
+		}
+		next.optionStarted(menuPath, optionName);
+	}
+	
+	// Options cancelled or left in the background report no timing, and their begun
+	// event is replaced by the next one started on the thread.
+	@Override
+	public void optionExecuted(String menuPath, String optionName, OptionActionResult result, long nanos)
+	{
+		BegunEvents begun = begunEvents.get();
+		OptionExecutedEvent event = begun.option != null ? begun.option : new OptionExecutedEvent();
+		begun.option = null;
+		event.end();
+		if(event.shouldCommit())
+		{
+			event.menuPath = menuPath;
+			event.optionName = optionName;
+			event.result = result.name();
+			event.executionTime = nanos;
+			event.commit();
+		}
+		next.optionExecuted(menuPath, optionName, result, nanos);
+	}
+	
+	private static final class BegunEvents
+	{
+		FrameRenderedEvent frame;
+		InputReceivedEvent input;
+		OptionExecutedEvent option;
+	}
+	
+	@Name("com.mattepu.MenuEntered")
+	@Label("Menu Entered")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	public static class MenuEnteredEvent extends Event
+	{
+		@Label("Menu Path")
+		String menuPath;
+	}
+	
+	@Name("com.mattepu.MenuExited")
+	@Label("Menu Exited")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	public static class MenuExitedEvent extends Event
+	{
+		@Label("Menu Path")
+		String menuPath;
+	}
+	
+	@Name("com.mattepu.FrameRendered")
+	@Label("Frame Rendered")
+	@Description("Clearing the display, building a frame and displaying it")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	public static class FrameRenderedEvent extends Event
+	{
+		@Label("Menu Path")
+		String menuPath;
+		
+		@Label("Frame Length")
+		@Description("Characters in the frame")
+		int frameLength;
+		
+		@Label("Render Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long renderTime;
+	}
+	
+	@Name("com.mattepu.InputReceived")
+	@Label("Input Received")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	public static class InputReceivedEvent extends Event
+	{
+		@Label("Menu Path")
+		String menuPath;
+		
+		@Label("Wait Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long waitTime;
+	}
+	
+	@Name("com.mattepu.OptionExecuted")
+	@Label("Option Executed")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	public static class OptionExecutedEvent extends Event
+	{
+		@Label("Menu Path")
+		String menuPath;
+		
+		@Label("Option Name")
+		String optionName;
+		
+		@Label("Result")
+		String result;
+		
+		@Label("Execution Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long executionTime;
+	}
+}
@@ -0,0 +1,121 @@
+package com.mattepu.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free histogram of nanosecond latencies. Values below 8 are counted exactly
+// and every power of two above is split into 8 buckets, so a percentile is
+// reported with at most 12.5% error in a fixed array of counters. Recording is a
+// few atomic increments and never allocates.
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	
+	private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private LongAdder total = new LongAdder();
+	private AtomicLong max = new AtomicLong();
+	
+	public void record(long nanos)
+	{
+		if(nanos < 0)
+		{
+			nanos = 0;
+		}
+		counts.incrementAndGet(bucketOf(nanos));
+		total.add(nanos);
+		long currentMax = max.get();
+		while(nanos > currentMax && !max.compareAndSet(currentMax, nanos))
+		{
+			currentMax = max.get();
+		}
+	}
+	
+	public long getCount()
+	{
+		long count = 0;
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			count += counts.get(i);
+		}
+		return count;
+	}
+	
+	public long getMax()
+	{
+		return max.get();
+	}
+	
+	public double getMean()
+	{
+		long count = getCount();
+		return count == 0 ? 0 : (double)total.sum() / count;
+	}
+	
+	// The highest latency of the bucket holding the given percentile, 0 when empty
+	public long getPercentile(double percentile)
+	{
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if(count == 0)
+		{
+			return 0;
+		}
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			seen += snapshot[i];
+			if(seen >= rank)
+			{
+				return Math.min(highestValueOf(i), max.get());
+			}
+		}
+		return max.get();
+	}
+	
+	// Counts recorded while resetting may be kept or lost
+	public void reset()
+	{
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			counts.set(i, 0);
+		}
+		total.reset();
+		max.set(0);
+	}
+	
+	static int bucketOf(long value)
+	{
+		if(value < SUB_BUCKETS)
+		{
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	static long lowestValueOf(int bucket)
+	{
+		if(bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+	
+	static long highestValueOf(int bucket)
+	{
+		return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueOf(bucket + 1) - 1;
+	}
+}
@@ -0,0 +1,59 @@
+package com.mattepu.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+// Values of a LatencyHistogram at one moment, in microseconds, as shown over JMX.
+public class LatencySummary
+{
+	private long count;
+	private double meanMicros;
+	private double p50Micros;
+	private double p90Micros;
+	private double p99Micros;
+	private double maxMicros;
+	
+	public LatencySummary(LatencyHistogram histogram)
+	{
+		count = histogram.getCount();
+		meanMicros = histogram.getMean() / TimeUnit.MICROSECONDS.toNanos(1);
+		p50Micros = micros(histogram.getPercentile(50));
+		p90Micros = micros(histogram.getPercentile(90));
+		p99Micros = micros(histogram.getPercentile(99));
+		maxMicros = micros(histogram.getMax());
+	}
+	
+	private static double micros(long nanos)
+	{
+		return nanos / (double)TimeUnit.MICROSECONDS.toNanos(1);
+	}
+	
+	public long getCount()
+	{
+		return count;
+	}
+	
+	public double getMeanMicros()
+	{
+		return meanMicros;
+	}
+	
+	public double getP50Micros()
+	{
+		return p50Micros;
+	}
+	
+	public double getP90Micros()
+	{
+		return p90Micros;
+	}
+	
+	public double getP99Micros()
+	{
+		return p99Micros;
+	}
+	
+	public double getMaxMicros()
+	{
+		return maxMicros;
+	}
+}
@@ -0,0 +1,15 @@
+package com.mattepu.metrics;
+
+import java.util.List;
+
+public interface MenuMetricsMXBean
+{
+	LatencySummary getRenderTime();
+	
+	LatencySummary getInputWait();
+	
+	// Sorted with the option having the highest 99th percentile first
+	List<OptionLatency> getOptionLatencies();
+	
+	void reset();
+}
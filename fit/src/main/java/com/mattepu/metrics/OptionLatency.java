@@ -0,0 +1,31 @@
+package com.mattepu.metrics;
+
+// Latency of one option of one menu, as shown over JMX.
+public class OptionLatency
+{
+	private String menuPath;
+	private String optionName;
+	private LatencySummary latency;
+	
+	public OptionLatency(String menuPath, String optionName, LatencySummary latency)
+	{
+		this.menuPath = menuPath;
+		this.optionName = optionName;
+		this.latency = latency;
+	}
+	
+	public String getMenuPath()
+	{
+		return menuPath;
+	}
+	
+	public String getOptionName()
+	{
+		return optionName;
+	}
+	
+	public LatencySummary getLatency()
+	{
+		return latency;
+	}
+}
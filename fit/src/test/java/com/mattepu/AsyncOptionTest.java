@@ -0,0 +1,118 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncOptionTest 
+{
+	private ExecutorService executor;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		executor = Executors.newSingleThreadExecutor();
+	}
+	
+	@After
+	public void afterEachTest()
+	{
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void optionSelectedAsync_WorkReturnsResult_FutureCompletesWithResult()
+	{
+		AsyncOption option = new AsyncOption(new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.GO_UP;
+			}
+		});
+		assertEquals(OptionActionResult.GO_UP, option.optionSelectedAsync(executor).join());
+	}
+	
+	@Test
+	public void optionSelectedAsync_NullWork_FutureCompletesWithSuccess()
+	{
+		AsyncOption option = new AsyncOption(null);
+		assertEquals(OptionActionResult.SUCCESS, option.optionSelectedAsync(executor).join());
+	}
+	
+	@Test
+	public void optionSelectedAsync_WorkThrows_FutureCompletesExceptionally()
+	{
+		final IllegalStateException error = new IllegalStateException();
+		AsyncOption option = new AsyncOption(new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				throw error;
+			}
+		});
+		try
+		{
+			option.optionSelectedAsync(executor).join();
+			fail("CompletionException not thrown");
+		}
+		catch(CompletionException e)
+		{
+			assertSame(error, e.getCause());
+		}
+	}
+	
+	@Test(timeout = 5000)
+	public void optionSelectedAsync_FutureCancelled_WorkIsInterrupted() throws InterruptedException
+	{
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		AsyncOption option = new AsyncOption(new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				started.countDown();
+				try
+				{
+					Thread.sleep(60000);
+				}
+				catch(InterruptedException e)
+				{
+					interrupted.countDown();
+				}
+				return OptionActionResult.SUCCESS;
+			}
+		});
+		CompletableFuture<OptionActionResult> future = option.optionSelectedAsync(executor);
+		started.await();
+		future.cancel(true);
+		interrupted.await();
+		assertTrue(future.isCancelled());
+	}
+	
+	@Test
+	public void optionSelected_CalledSynchronously_RunsWorkOnCallingThread()
+	{
+		final Thread callingThread = Thread.currentThread();
+		AsyncOption option = new AsyncOption(new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				assertSame(callingThread, Thread.currentThread());
+				return OptionActionResult.RETURN_HOME;
+			}
+		});
+		assertEquals(OptionActionResult.RETURN_HOME, option.optionSelected());
+	}
+}
@@ -0,0 +1,204 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.exception.InvalidSelectionException;
+
+public class BatchRunnerTest 
+{
+	private Menu rootMenu;
+	private IOption connectOption;
+	private IOption resetOption;
+	private StringBuilder output;
+	private BatchRunner runner;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		connectOption = mock(IOption.class);
+		when(connectOption.optionSelected()).thenReturn(OptionActionResult.SUCCESS);
+		resetOption = mock(IOption.class);
+		when(resetOption.optionSelected()).thenReturn(OptionActionResult.EXIT_MENU);
+		IOption backOption = new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.GO_UP;
+			}
+		};
+		rootMenu = new Menu("Home", true);
+		Menu settingsMenu = new Menu("Settings");
+		Menu wifiMenu = new Menu("Wifi");
+		wifiMenu.addOption("Connect", connectOption);
+		wifiMenu.addOption("Back", backOption);
+		settingsMenu.addSubMenu(wifiMenu);
+		settingsMenu.addOption("Reset", resetOption);
+		settingsMenu.addSubMenu(new Menu("Empty"));
+		rootMenu.addSubMenu(settingsMenu);
+		output = new StringBuilder();
+		runner = new BatchRunner(rootMenu, output);
+	}
+	
+	private int run(String script) throws IOException
+	{
+		ByteArrayInputStream input = new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8));
+		return runner.run(Channels.newChannel(input), StandardCharsets.UTF_8);
+	}
+	
+	@Test
+	public void run_SelectionsByNumber_OnlyOptionResultsWritten() throws IOException
+	{
+		assertEquals(4, run("1\n1\n1\n1\n2\n2\n"));
+		verify(connectOption, times(2)).optionSelected();
+		verify(resetOption).optionSelected();
+		assertEquals("Home/Settings/Wifi/Connect : SUCCESS\n"
+				+ "Home/Settings/Wifi/Connect : SUCCESS\n"
+				+ "Home/Settings/Wifi/Back : GO_UP\n"
+				+ "Home/Settings/Reset : EXIT_MENU\n", output.toString());
+	}
+	
+	@Test
+	public void run_MenuPaths_SelectionsResolvedByName() throws IOException
+	{
+		assertEquals(2, run("Settings/Wifi/Connect\n/Settings/Wifi/Connect\n"));
+		verify(connectOption, times(2)).optionSelected();
+	}
+	
+	@Test
+	public void run_OptionExitsMenu_NextSelectionStartsAtRoot() throws IOException
+	{
+		run("1/2\n1/1/1\n");
+		assertEquals("Home/Settings/Reset : EXIT_MENU\nHome/Settings/Wifi/Connect : SUCCESS\n", output.toString());
+	}
+	
+	@Test
+	public void run_CommentsAndEmptyLines_Skipped() throws IOException
+	{
+		assertEquals(1, run("# connect\n\n/Settings/Wifi/Connect\n"));
+	}
+	
+	@Test
+	public void run_EmptySubMenuSelected_StayInParentMenu() throws IOException
+	{
+		run("1/3/2\n");
+		verify(resetOption).optionSelected();
+	}
+	
+	@Test
+	public void run_InvalidSelection_ThrowWithLineAndMenu() throws IOException
+	{
+		try
+		{
+			run("1\n1\n# comment\nDisconnect\n1\n");
+			fail("InvalidSelectionException not thrown");
+		}
+		catch(InvalidSelectionException e)
+		{
+			assertEquals(4, e.getLineNumber());
+			assertEquals("Disconnect", e.getSelection());
+			assertEquals("Home/Settings/Wifi", e.getMenuPath());
+		}
+		verifyNoInteractions(connectOption);
+	}
+	
+	@Test
+	public void execute_EscapedSeparatorInName_OptionSelectedByName()
+	{
+		rootMenu.addOption("Wifi On/Off", connectOption);
+		runner.execute("/Wifi On\\/Off");
+		assertEquals("Home/Wifi On/Off : SUCCESS\n", output.toString());
+	}
+	
+	@Test
+	public void execute_AsyncOptionCancelled_CancelledWritten()
+	{
+		rootMenu.addOption("Scan", new IAsyncOption() {
+			@Override
+			public CompletableFuture<OptionActionResult> optionSelectedAsync(Executor executor)
+			{
+				CompletableFuture<OptionActionResult> result = new CompletableFuture<OptionActionResult>();
+				result.cancel(true);
+				return result;
+			}
+		});
+		runner.execute("/Scan");
+		assertEquals("Home/Scan : CANCELLED\n", output.toString());
+		assertEquals(1, runner.getExecutedOptions());
+	}
+	
+	@Test
+	public void execute_MetricsSet_MetricsAndOutputBothGetResults()
+	{
+		IMenuMetrics metrics = mock(IMenuMetrics.class);
+		runner.setMetrics(metrics);
+		runner.execute("/Settings/Wifi/Connect");
+		verify(metrics).optionExecuted(eq("Home/Settings/Wifi"), eq("Connect"), eq(OptionActionResult.SUCCESS), anyLong());
+		assertEquals("Home/Settings/Wifi/Connect : SUCCESS\n", output.toString());
+	}
+	
+	@Test(expected = InvalidSelectionException.class)
+	public void execute_SelectionOutOfRange_ThrowInvalidSelectionException()
+	{
+		runner.execute("2");
+	}
+	
+	@Test
+	public void execute_PathThroughLazySubMenu_MenuBuiltAndOptionExecuted()
+	{
+		final Menu storeMenu = new Menu("Store");
+		storeMenu.addOption("Connect", connectOption);
+		LazySubMenu store = new LazySubMenu(new Supplier<Menu>() {
+			@Override
+			public Menu get() 
+			{
+				return storeMenu;
+			}
+		}, new SubMenuCache(1));
+		rootMenu.addOption("Store", store);
+		runner.execute("/Store/Connect");
+		assertEquals("Home/Store/Connect : SUCCESS\n", output.toString());
+		assertEquals(1, store.getBuilds());
+	}
+	
+	@Test
+	public void run_ScriptFile_EveryProcedureExecuted() throws IOException
+	{
+		Path script = Files.createTempFile("fit-batch", ".txt");
+		try
+		{
+			StringBuilder procedures = new StringBuilder();
+			for(int i = 0; i < 1000; i++)
+			{
+				procedures.append("/Settings/Wifi/Connect\n");
+			}
+			Files.write(script, procedures.toString().getBytes(StandardCharsets.UTF_8));
+			assertEquals(1000, runner.run(script));
+			verify(connectOption, times(1000)).optionSelected();
+		}
+		finally
+		{
+			Files.delete(script);
+		}
+	}
+}
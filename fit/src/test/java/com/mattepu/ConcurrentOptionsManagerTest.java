@@ -0,0 +1,217 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.exception.InvalidIndexException;
+
+public class ConcurrentOptionsManagerTest 
+{
+	private ConcurrentOptionsManager opm;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		opm = new ConcurrentOptionsManager();
+	}
+	
+	@Test
+	public void addOption_ValidAndInvalidIndexes_OptionsAddedLikeOptionsManager()
+	{
+		assertEquals(0, opm.addOption("Wifi", null));
+		assertEquals(1, opm.addOption(null, null));
+		assertEquals(1, opm.addOption("Display", null, 1));
+		assertEquals(3, opm.addOption("Apps", null, 1000));
+		assertEquals(4, opm.addOption("Sound", null, -1));
+		assertEquals("1 : Wifi\n2 : Display\n3 : \n4 : Apps\n5 : Sound", opm.toString());
+		assertEquals(5, opm.size());
+	}
+	
+	@Test
+	public void removeOption_ValidAndInvalidIndexes_OptionsRemovedLikeOptionsManager()
+	{
+		opm.addOption("Wifi", null);
+		opm.addOption("Display", null);
+		opm.addOption("Apps", null);
+		opm.removeOption(1);
+		assertEquals("1 : Wifi\n2 : Apps", opm.toString());
+		assertFalse(opm.tryRemoveOption(2));
+		try
+		{
+			opm.removeOption(-1);
+			fail("InvalidIndexException not thrown");
+		}
+		catch(InvalidIndexException e)
+		{
+			assertEquals(2, opm.size());
+		}
+	}
+	
+	@Test
+	public void snapshot_ManagerChangedAfterwards_SnapshotKeepsOptionsItWasTakenWith()
+	{
+		IOption wifi = new NamedOption("Wifi");
+		IOption display = new NamedOption("Display");
+		opm.addOption("Wifi", wifi);
+		OptionsView snapshot = opm.snapshot();
+		opm.addOption("Display", display, 0);
+		opm.removeOption(1);
+		assertEquals(1, snapshot.size());
+		assertSame(wifi, snapshot.getOptionAt(0));
+		assertEquals("1 : Wifi", snapshot.toString());
+		assertSame(display, opm.getOptionAt(0));
+		assertNull(snapshot.tryGetOptionAt(1));
+		assertSame(snapshot, snapshot.snapshot());
+	}
+	
+	@Test
+	public void snapshot_Taken_IsReadOnlyView()
+	{
+		opm.addOption("Wifi", null);
+		assertFalse(opm.snapshot() instanceof AbstractOptionsManager);
+	}
+	
+	@Test(timeout = 20000)
+	public void snapshot_ConcurrentWritersAndReaders_ReadersAlwaysSeeConsistentSnapshots() throws Exception
+	{
+		final int writerCount = 4;
+		final int readerCount = 4;
+		final int writesPerWriter = 2000;
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(writerCount + readerCount);
+		try
+		{
+			List<Future<Integer>> writers = new ArrayList<Future<Integer>>();
+			for(int w = 0; w < writerCount; w++)
+			{
+				final int writer = w;
+				writers.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() 
+					{
+						int removals = 0;
+						for(int i = 0; i < writesPerWriter; i++)
+						{
+							String name = "w" + writer + "-" + i;
+							opm.addOption(name, new NamedOption(name), i % 7);
+							if(i % 3 == 0 && opm.tryRemoveOption(i % 5))
+							{
+								removals++;
+							}
+						}
+						return removals;
+					}
+				}));
+			}
+			List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+			for(int r = 0; r < readerCount; r++)
+			{
+				readers.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() 
+					{
+						int checkedSnapshots = 0;
+						while(writing.get())
+						{
+							OptionsView snapshot = opm.snapshot();
+							int size = snapshot.size();
+							for(int i = 0; i < size; i++)
+							{
+								NamedOption option = (NamedOption)snapshot.getOptionAt(i);
+								assertEquals(option.name, snapshot.getOptionNameAt(i));
+							}
+							String rendered = snapshot.toString();
+							assertEquals(size, rendered.isEmpty() ? 0 : rendered.split("\n").length);
+							checkedSnapshots++;
+						}
+						return checkedSnapshots;
+					}
+				}));
+			}
+			int removals = 0;
+			for(Future<Integer> writer : writers)
+			{
+				removals += writer.get();
+			}
+			writing.set(false);
+			for(Future<Integer> reader : readers)
+			{
+				reader.get();
+			}
+			assertEquals(writerCount * writesPerWriter - removals, opm.size());
+		}
+		finally
+		{
+			executor.shutdownNow();
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+	
+	@Test
+	public void findOption_SnapshotTakenBeforeChange_ResolvesAgainstSnapshot()
+	{
+		opm.addOption("Network", null);
+		OptionsView snapshot = opm.snapshot();
+		opm.addOption("Navigation", null, 0);
+		assertEquals(0, snapshot.findOption("n"));
+		assertEquals(-1, opm.findOption("n"));
+		assertEquals(1, opm.findOption("ne"));
+	}
+	
+	@Test
+	public void findOption_ManyChangesAfterFirstLookup_AgreesWithOptionsManager()
+	{
+		OptionsManager expected = new OptionsManager();
+		Random random = new Random(11);
+		for(int i = 0; i < 2000; i++)
+		{
+			if(expected.size() == 0 || random.nextInt(3) > 0)
+			{
+				int index = random.nextInt(expected.size() + 1);
+				String name = Integer.toString(random.nextInt(3000), 36);
+				expected.addOption(name, null, index);
+				opm.addOption(name, null, index);
+			}
+			else
+			{
+				int index = random.nextInt(expected.size());
+				expected.removeOption(index);
+				opm.removeOption(index);
+			}
+			String query = Integer.toString(random.nextInt(3000), 36);
+			assertEquals(expected.findOption(query), opm.findOption(query));
+		}
+	}
+	
+	private static class NamedOption implements IOption
+	{
+		private final String name;
+		
+		public NamedOption(String name)
+		{
+			this.name = name;
+		}
+		
+		@Override
+		public OptionActionResult optionSelected() 
+		{
+			return OptionActionResult.SUCCESS;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.exception.ActionOnlyForRootMenuException;
+
+public class FrozenMenuTreeTest
+{
+	private Menu rootMenu;
+	private Menu wifiMenu;
+	private IOption connectOption;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		IOption exitOption = new IOption() {
+			@Override
+			public OptionActionResult optionSelected()
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		};
+		IOption backOption = new IOption() {
+			@Override
+			public OptionActionResult optionSelected()
+			{
+				return OptionActionResult.GO_UP;
+			}
+		};
+		IOption homeOption = new IOption() {
+			@Override
+			public OptionActionResult optionSelected()
+			{
+				return OptionActionResult.RETURN_HOME;
+			}
+		};
+		connectOption = mock(IOption.class);
+		when(connectOption.optionSelected()).thenReturn(OptionActionResult.SUCCESS);
+		rootMenu = new Menu("Home", true);
+		rootMenu.setHeader("Welcome");
+		wifiMenu = new Menu("Wifi");
+		wifiMenu.setFooter("Networks nearby");
+		wifiMenu.setPageSize(2);
+		Menu displayMenu = new Menu("Display");
+		displayMenu.addOption("Brightness", null);
+		displayMenu.addOption("Home", homeOption);
+		displayMenu.addOption("Back", backOption);
+		wifiMenu.addOption("Back", backOption);
+		wifiMenu.addOption("Connect", connectOption);
+		wifiMenu.addSubMenu(displayMenu);
+		wifiMenu.addSubMenu(new Menu("Empty"));
+		wifiMenu.addOption("Exit", exitOption);
+		rootMenu.addSubMenu(wifiMenu);
+		rootMenu.addSubMenu(displayMenu);
+		rootMenu.addOption("Exit", exitOption);
+	}
+	
+	@Test
+	public void freeze_Tree_SharedMenusFrozenOnce()
+	{
+		FrozenMenuTree tree = rootMenu.freeze();
+		assertEquals(4, tree.getMenuCount());
+		assertEquals(11, tree.getOptionCount());
+	}
+	
+	@Test
+	public void start_SameInputs_SameFramesAsMenuSession()
+	{
+		assertSameFrames("1", ">", "#3", "<", "3", "1", "3", "2", "2", "Exit");
+		assertSameFrames("1", "4", "con", "wi", "dis", "ho", "e");
+		assertSameFrames("9", "", "x", "#0", "1", "#9", ">", ">", "4", "5");
+	}
+	
+	@Test
+	public void start_OptionSelectedByNameOrPrefix_OptionExecuted()
+	{
+		ScriptedIODevice ioDevice = new ScriptedIODevice("wifi", "CONNECT", "exi");
+		assertEquals(OptionActionResult.EXIT_MENU, rootMenu.freeze().start(ioDevice));
+		verify(connectOption).optionSelected();
+		assertEquals("Home/Wifi\n1 : Back\n2 : Connect\nPage 1 of 3 (< : previous, > : next, #n : go to page n)"
+				+ "\nNetworks nearby\nEnter your choice : ", ioDevice.displayed.get(1));
+	}
+	
+	@Test
+	public void findOption_ManyNamesOfAnyScript_SameAsOptionsManager()
+	{
+		String[] suffixes = { "", " caf\u00e9", " \u00c9T\u00c9", " \u4e2d\u6587", " \ud83d\ude00", " \ud83d" };
+		Random random = new Random(5);
+		Menu menu = new Menu("Home", true);
+		for(int i = 0; i < 3000; i++)
+		{
+			String name = Integer.toString(random.nextInt(2000), 36) + suffixes[random.nextInt(suffixes.length)];
+			menu.addOption(random.nextBoolean() ? name.toUpperCase() : name, null);
+		}
+		FrozenMenuTree tree = menu.freeze();
+		OptionsView options = menu.getOptionsManager();
+		for(int i = 0; i < 3000; i++)
+		{
+			String query = Integer.toString(random.nextInt(2000), 36);
+			// Unpaired surrogates are stored as '?', so they are left out of queries
+			if(random.nextBoolean())
+			{
+				query += suffixes[1 + random.nextInt(3)].substring(0, 1 + random.nextInt(2));
+			}
+			assertEquals(query, options.findOption(query), tree.findOption(0, query));
+		}
+	}
+	
+	@Test
+	public void freeze_MenusChangedAfterFreezing_FrozenTreeUnchanged()
+	{
+		FrozenMenuTree tree = rootMenu.freeze();
+		rootMenu.addOption("Later", null);
+		wifiMenu.removeOptionOrSubMenu(0);
+		ScriptedIODevice ioDevice = new ScriptedIODevice("3");
+		tree.start(ioDevice);
+		assertEquals("Home\nWelcome\n1 : Wifi\n2 : Display\n3 : Exit\nEnter your choice : ", ioDevice.displayed.get(0));
+	}
+	
+	@Test
+	public void freeze_LazySubMenu_BuiltWhileFreezing()
+	{
+		final Menu networksMenu = new Menu("Networks");
+		networksMenu.addOption("Exit", rootMenu.getOptionsManager().getOptionAt(2));
+		LazySubMenu lazyMenu = new LazySubMenu(new Supplier<Menu>() {
+			@Override
+			public Menu get()
+			{
+				return networksMenu;
+			}
+		}, new SubMenuCache(4));
+		rootMenu.addOption("Networks", lazyMenu);
+		FrozenMenuTree tree = rootMenu.freeze();
+		assertEquals(1, lazyMenu.getBuilds());
+		ScriptedIODevice ioDevice = new ScriptedIODevice("4", "1");
+		assertEquals(OptionActionResult.EXIT_MENU, tree.start(ioDevice));
+		assertEquals("Home/Networks\n1 : Exit\nEnter your choice : ", ioDevice.displayed.get(1));
+	}
+	
+	@Test
+	public void start_SearchEnabledBeforeFreezing_SameFramesAsMenuSession()
+	{
+		rootMenu.enableSearch();
+		assertSameFrames("?con", "1", "2", "?display", "2", "2", "?nothing", "", "3");
+		assertSameFrames("1", "?bright", "", "?back", "3", "Exit");
+	}
+	
+	@Test
+	public void search_ManyNames_SameMatchesAsMenuSearchIndex()
+	{
+		String[] words = { "network", "display", "sound", "net", "disk" };
+		Random random = new Random(11);
+		List<Menu> menus = new ArrayList<Menu>();
+		menus.add(rootMenu);
+		for(int i = 0; i < 400; i++)
+		{
+			String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + random.nextInt(50);
+			Menu parent = menus.get(random.nextInt(menus.size()));
+			if(random.nextInt(5) == 0)
+			{
+				Menu subMenu = new Menu(name);
+				parent.addSubMenu(subMenu);
+				menus.add(subMenu);
+			}
+			else
+			{
+				parent.addOption(name, null);
+			}
+		}
+		MenuSearchIndex index = rootMenu.enableSearch();
+		FrozenMenuTree tree = rootMenu.freeze();
+		for(String query : new String[] { "net", "network 1", "disk sound", "di", "4", "Display", "netwrok dsk", "sonud" })
+		{
+			List<String> expected = new ArrayList<String>();
+			for(MenuSearchIndex.Match match : index.search(query, 10))
+			{
+				expected.add(match.getPath());
+			}
+			List<String> frozen = new ArrayList<String>();
+			for(int option : tree.getSearchIndex().search(query, 10))
+			{
+				frozen.add(tree.getSearchIndex().pathOf(option));
+			}
+			assertEquals(query, expected, frozen);
+		}
+	}
+	
+	@Test
+	public void freeze_SubMenu_ThrowActionOnlyForRootMenuException()
+	{
+		try
+		{
+			wifiMenu.freeze();
+			fail();
+		}
+		catch(ActionOnlyForRootMenuException e)
+		{
+		}
+	}
+	
+	private void assertSameFrames(String... inputs)
+	{
+		ScriptedIODevice menuDevice = new ScriptedIODevice(inputs);
+		ScriptedIODevice frozenDevice = new ScriptedIODevice(inputs);
+		OptionActionResult menuResult = new MenuSession(rootMenu, menuDevice).start();
+		OptionActionResult frozenResult = new FrozenMenuSession(rootMenu.freeze(), frozenDevice).start();
+		assertEquals(menuDevice.displayed, frozenDevice.displayed);
+		assertEquals(menuResult, frozenResult);
+	}
+}
@@ -0,0 +1,97 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.exception.RootMenuAsSubMenuException;
+
+public class LazySubMenuTest 
+{
+	private SubMenuCache cache;
+	private LazySubMenu books;
+	private LazySubMenu music;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		cache = new SubMenuCache(1);
+		books = new LazySubMenu(named("Books"), cache);
+		music = new LazySubMenu(named("Music"), cache);
+	}
+	
+	@Test
+	public void getMenu_EnteredTwice_BuiltOnce()
+	{
+		Menu menu = books.getMenu();
+		assertEquals("Books", menu.getName());
+		assertSame(menu, books.getMenu());
+		assertEquals(1, books.getBuilds());
+	}
+	
+	@Test
+	public void getMenu_EvictedByOtherMenu_RebuiltFromSupplier()
+	{
+		Menu menu = books.getMenu();
+		music.getMenu();
+		assertNotSame(menu, books.getMenu());
+		assertEquals(2, books.getBuilds());
+	}
+	
+	@Test
+	public void getMenu_AfterInvalidate_RebuiltFromSupplier()
+	{
+		Menu menu = books.getMenu();
+		books.invalidate();
+		assertNotSame(menu, books.getMenu());
+	}
+	
+	@Test
+	public void getMenu_SupplierReturnsNull_EmptyMenu()
+	{
+		LazySubMenu empty = new LazySubMenu(named(null), cache);
+		assertEquals(0, empty.getMenu().getOptionsManager().size());
+	}
+	
+	@Test(expected = RootMenuAsSubMenuException.class)
+	public void getMenu_SupplierReturnsRootMenu_ThrowRootMenuAsSubMenuException()
+	{
+		new LazySubMenu(new Supplier<Menu>() {
+			@Override
+			public Menu get() 
+			{
+				return new Menu("Home", true);
+			}
+		}, cache).getMenu();
+	}
+	
+	@Test
+	public void getSubMenu_LazySubMenu_BuiltMenuReturned()
+	{
+		Menu rootMenu = new Menu("Home", true);
+		rootMenu.addOption("Books", books);
+		assertSame(books.getMenu(), rootMenu.getSubMenu(0));
+	}
+	
+	private static Supplier<Menu> named(final String name)
+	{
+		return new Supplier<Menu>() {
+			@Override
+			public Menu get() 
+			{
+				if(name == null)
+				{
+					return null;
+				}
+				Menu menu = new Menu(name);
+				menu.addOption("Back", null);
+				return menu;
+			}
+		};
+	}
+}
@@ -0,0 +1,216 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.exception.ActionOnlyForRootMenuException;
+
+public class MenuSearchIndexTest
+{
+	private Menu rootMenu;
+	private Menu wifiMenu;
+	private MenuSearchIndex index;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		rootMenu = new Menu("Home", true);
+		wifiMenu = new Menu("Wifi");
+		wifiMenu.addOption("Network", null);
+		wifiMenu.addOption("Wifi Network Settings", null);
+		wifiMenu.addOption("Exit", null);
+		rootMenu.addSubMenu(wifiMenu);
+		rootMenu.addOption("Network Status", null);
+		rootMenu.addOption("Exit", null);
+		index = rootMenu.enableSearch();
+	}
+	
+	@Test
+	public void search_WordOfNestedOption_MatchHasFullPath()
+	{
+		List<MenuSearchIndex.Match> matches = index.search("settings", 10);
+		assertEquals(1, matches.size());
+		assertEquals("Home/Wifi/Wifi Network Settings", matches.get(0).getPath());
+		assertEquals("Wifi Network Settings", matches.get(0).getName());
+		assertFalse(matches.get(0).isSubMenu());
+	}
+	
+	@Test
+	public void search_PrefixesOfWordsInAnyOrder_NamesWithEveryWordMatched()
+	{
+		assertEquals(paths("Home/Wifi/Wifi Network Settings"), paths(index.search("NET wi", 10)));
+	}
+	
+	@Test
+	public void search_SeveralMatches_RankedByScoreDepthAndLength()
+	{
+		assertEquals(paths("Home/Network Status", "Home/Wifi/Network", "Home/Wifi/Wifi Network Settings"), paths(index.search("network", 10)));
+		assertEquals(paths("Home/Wifi", "Home/Wifi/Wifi Network Settings"), paths(index.search("wi", 10)));
+	}
+	
+	@Test
+	public void search_MoreMatchesThanAllowed_BestMatchesReturned()
+	{
+		assertEquals(paths("Home/Network Status", "Home/Wifi/Network"), paths(index.search("network", 2)));
+	}
+	
+	@Test
+	public void search_NoWordsOrNoMatches_NothingReturned()
+	{
+		assertTrue(index.search("", 10).isEmpty());
+		assertTrue(index.search(" - ", 10).isEmpty());
+		assertTrue(index.search(null, 10).isEmpty());
+		assertTrue(index.search("bluetooth", 10).isEmpty());
+		assertTrue(index.search("network bluetooth", 10).isEmpty());
+	}
+	
+	@Test
+	public void search_MisspeltWords_CorrectedAfterFirstLetter()
+	{
+		assertEquals(paths(index.search("network", 10)), paths(index.search("netwrok", 10)));
+		assertEquals(paths("Home/Wifi/Wifi Network Settings"), paths(index.search("wfi setings", 10)));
+		assertEquals(paths("Home/Exit", "Home/Wifi/Exit"), paths(index.search("exot", 10)));
+		assertTrue(index.search("xit", 10).isEmpty());
+	}
+	
+	@Test
+	public void addOption_SubMenuSharedWithOtherIndexedTree_BothIndexesFollowIt()
+	{
+		Menu otherRoot = new Menu("Other", true);
+		otherRoot.addSubMenu(wifiMenu);
+		MenuSearchIndex otherIndex = otherRoot.enableSearch();
+		wifiMenu.addOption("Scan", null);
+		assertEquals(paths("Home/Wifi/Scan"), paths(index.search("scan", 10)));
+		assertEquals(paths("Other/Wifi/Scan"), paths(otherIndex.search("scan", 10)));
+		assertEquals(index, rootMenu.getSearchIndex());
+		assertNull(wifiMenu.getSearchIndex());
+	}
+	
+	@Test
+	public void addSubMenu_AfterSearchEnabled_WholeSubTreeIndexed()
+	{
+		Menu displayMenu = new Menu("Display");
+		Menu colorMenu = new Menu("Colors");
+		colorMenu.addOption("Night Light", null);
+		displayMenu.addSubMenu(colorMenu);
+		wifiMenu.addSubMenu(displayMenu, 0);
+		assertEquals(paths("Home/Wifi/Display/Colors/Night Light"), paths(index.search("night", 10)));
+		displayMenu.addOption("Brightness", null);
+		assertEquals(paths("Home/Wifi/Display/Brightness"), paths(index.search("bright", 10)));
+		assertEquals(10, index.size());
+	}
+	
+	@Test
+	public void removeOptionOrSubMenu_SubMenu_WholeSubTreeRemoved()
+	{
+		MenuSearchIndex.Match match = index.search("settings", 10).get(0);
+		rootMenu.removeOptionOrSubMenu(0);
+		assertTrue(index.search("settings", 10).isEmpty());
+		assertEquals(paths("Home/Network Status"), paths(index.search("network", 10)));
+		assertEquals(2, index.size());
+		assertNull(index.menusTo(match));
+		wifiMenu.addOption("Bluetooth", null);
+		assertTrue(index.search("bluetooth", 10).isEmpty());
+	}
+	
+	@Test
+	public void removeOptionOrSubMenu_OnePlaceOfSharedSubMenu_SubMenuStillIndexedUnderOther()
+	{
+		for(int removed = 0; removed < 2; removed++)
+		{
+			Menu root = new Menu("Home", true);
+			Menu[] parents = { new Menu("A"), new Menu("B") };
+			Menu shared = new Menu("Shared");
+			shared.addOption("Gadget", null);
+			for(Menu parent : parents)
+			{
+				parent.addSubMenu(shared);
+				root.addSubMenu(parent);
+			}
+			MenuSearchIndex sharedIndex = root.enableSearch();
+			parents[removed].removeOptionOrSubMenu(0);
+			String path = "Home/" + parents[1 - removed].getName() + "/Shared/";
+			assertEquals(paths(path + "Gadget"), paths(sharedIndex.search("gadget", 10)));
+			shared.addOption("Widget", null);
+			assertEquals(paths(path + "Widget"), paths(sharedIndex.search("widget", 10)));
+			parents[1 - removed].removeOptionOrSubMenu(0);
+			assertTrue(sharedIndex.search("gadget", 10).isEmpty());
+			assertEquals(2, sharedIndex.size());
+		}
+	}
+	
+	@Test
+	public void removeOptionOrSubMenu_OneOfSameNamedOptions_OtherStillFound()
+	{
+		wifiMenu.addOption("Network", null);
+		wifiMenu.removeOptionOrSubMenu(0);
+		List<MenuSearchIndex.Match> matches = index.search("network", 10);
+		assertEquals(3, matches.size());
+		assertEquals("Home/Wifi/Network", matches.get(1).getPath());
+		assertEquals(2, matches.get(1).indexIn(wifiMenu.getOptionsManager()));
+	}
+	
+	@Test
+	public void menusTo_SubMenuMatch_PathEndsWithSubMenu()
+	{
+		assertArrayEquals(new Menu[] { wifiMenu }, index.menusTo(index.search("wifi", 1).get(0)));
+		assertArrayEquals(new Menu[0], index.menusTo(index.search("status", 1).get(0)));
+	}
+	
+	@Test(expected = ActionOnlyForRootMenuException.class)
+	public void enableSearch_NotRootMenu_ThrowActionOnlyForRootMenuException()
+	{
+		wifiMenu.enableSearch();
+	}
+	
+	@Test
+	public void search_ManyOptions_SameAsCheckingEveryName()
+	{
+		Menu menu = new Menu("Settings");
+		rootMenu.addSubMenu(menu);
+		for(int i = 0; i < 2000; i++)
+		{
+			menu.addOption("Option " + (i % 7) + " item" + i, null);
+		}
+		List<MenuSearchIndex.Match> matches = index.search("item19 3", 100);
+		List<String> expected = new ArrayList<String>();
+		for(int i = 0; i < 2000; i++)
+		{
+			if(i % 7 == 3 && Integer.toString(i).startsWith("19"))
+			{
+				expected.add("Home/Settings/Option 3 item" + i);
+			}
+		}
+		assertEquals(expected.size(), matches.size());
+		assertTrue(paths(matches).containsAll(expected));
+	}
+	
+	private static List<String> paths(String... paths)
+	{
+		List<String> list = new ArrayList<String>();
+		for(String path : paths)
+		{
+			list.add(path);
+		}
+		return list;
+	}
+	
+	private static List<String> paths(List<MenuSearchIndex.Match> matches)
+	{
+		List<String> list = new ArrayList<String>();
+		for(MenuSearchIndex.Match match : matches)
+		{
+			list.add(match.getPath());
+		}
+		return list;
+	}
+}
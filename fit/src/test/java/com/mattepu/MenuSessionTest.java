@@ -0,0 +1,322 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.mattepu.exception.IODeviceNotSetException;
+
+public class MenuSessionTest 
+{
+	private Menu rootMenu;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		IOption exitOption = new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		};
+		IOption backOption = new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.GO_UP;
+			}
+		};
+		rootMenu = new Menu("Home", true);
+		Menu wifiMenu = new Menu("Wifi");
+		wifiMenu.addOption("Back", backOption);
+		wifiMenu.addOption("Network1", null);
+		wifiMenu.addOption("Network2", null);
+		wifiMenu.addOption("Exit", exitOption);
+		wifiMenu.setPageSize(2);
+		rootMenu.addSubMenu(wifiMenu);
+		rootMenu.addOption("Exit", exitOption);
+	}
+	
+	@Test
+	public void start_TwoSessionsOnSameTree_NavigationAndPagesAreIndependent()
+	{
+		ScriptedIODevice firstDevice = new ScriptedIODevice("1", ">", "4");
+		ScriptedIODevice secondDevice = new ScriptedIODevice("1", "1", "2");
+		MenuSession firstSession = new MenuSession(rootMenu, firstDevice);
+		MenuSession secondSession = new MenuSession(rootMenu, secondDevice);
+		
+		assertEquals(OptionActionResult.EXIT_MENU, firstSession.start());
+		assertEquals(OptionActionResult.EXIT_MENU, secondSession.start());
+		
+		String pageCommands = " (< : previous, > : next, #n : go to page n)";
+		assertEquals("Home/Wifi\n3 : Network2\n4 : Exit\nPage 2 of 2" + pageCommands + "\nEnter your choice : ", firstDevice.displayed.get(2));
+		assertEquals("Home/Wifi\n1 : Back\n2 : Network1\nPage 1 of 2" + pageCommands + "\nEnter your choice : ", secondDevice.displayed.get(1));
+		assertEquals("Home\n1 : Wifi\n2 : Exit\nEnter your choice : ", secondDevice.displayed.get(2));
+		assertEquals("Home", firstSession.getNavigation().toString());
+	}
+	
+	@Test(timeout = 10000)
+	public void start_ManyConcurrentSessionsOnSameTree_EachSessionSeesItsOwnFrames() throws Exception
+	{
+		int sessionCount = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<ScriptedIODevice>> results = new ArrayList<Future<ScriptedIODevice>>();
+			for(int i = 0; i < sessionCount; i++)
+			{
+				final boolean pageForward = (i % 2) == 0;
+				results.add(executor.submit(new Callable<ScriptedIODevice>() {
+					@Override
+					public ScriptedIODevice call() 
+					{
+						ScriptedIODevice device = pageForward ? new ScriptedIODevice("1", ">", "<", "1", "2") : new ScriptedIODevice("1", "1", "1", "1", "2");
+						new MenuSession(rootMenu, device).start();
+						return device;
+					}
+				}));
+			}
+			for(int i = 0; i < sessionCount; i++)
+			{
+				List<String> displayed = results.get(i).get().displayed;
+				assertEquals(5, displayed.size());
+				assertEquals("Home\n1 : Wifi\n2 : Exit\nEnter your choice : ", displayed.get(4));
+				if((i % 2) == 0)
+				{
+					assertTrue(displayed.get(2).startsWith("Home/Wifi\n3 : Network2"));
+				}
+				else
+				{
+					assertTrue(displayed.get(3).startsWith("Home/Wifi\n1 : Back"));
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void start_NullIODevice_ThrowIODeviceNotSetException()
+	{
+		try
+		{
+			new MenuSession(rootMenu, null).start();
+			fail("It should throw IODeviceNotSetException");
+		}
+		catch(IODeviceNotSetException e)
+		{
+			assertEquals(IODeviceNotSetException.class, e.getClass());
+		}
+	}
+	
+	@Test
+	public void start_OptionsChangedWhileWaitingForInput_SelectionResolvedAgainstDisplayedOptions()
+	{
+		final ConcurrentOptionsManager hosts = new ConcurrentOptionsManager();
+		final List<String> selected = new ArrayList<String>();
+		hosts.addOption("host1", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				selected.add("host1");
+				return OptionActionResult.EXIT_MENU;
+			}
+		});
+		Menu hostsMenu = new Menu("Hosts", true, hosts);
+		ScriptedIODevice device = new ScriptedIODevice("1") {
+			@Override
+			public String acceptInput() 
+			{
+				// A background discovery inserts a host in front of the displayed one
+				hosts.addOption("host0", null, 0);
+				return super.acceptInput();
+			}
+		};
+		new MenuSession(hostsMenu, device).start();
+		assertEquals("Hosts\n1 : host1\nEnter your choice : ", device.displayed.get(0));
+		assertEquals(1, selected.size());
+	}
+	
+	@Test
+	public void start_NamesAndPrefixesTyped_OptionsSelectedByName()
+	{
+		ScriptedIODevice device = new ScriptedIODevice("wi", "network", "back", "EX");
+		// "network" matches two options, so the menu is shown again
+		MenuSession session = new MenuSession(rootMenu, device);
+		assertEquals(OptionActionResult.EXIT_MENU, session.start());
+		assertEquals(4, device.displayed.size());
+		assertTrue(device.displayed.get(1).startsWith("Home/Wifi"));
+		assertTrue(device.displayed.get(2).startsWith("Home/Wifi"));
+		assertTrue(device.displayed.get(3).startsWith("Home\n"));
+	}
+	
+	@Test
+	public void start_MetricsSet_FramesInputsAndOptionsReportedWithMenuPath()
+	{
+		IMenuMetrics metrics = mock(IMenuMetrics.class);
+		MenuSession session = new MenuSession(rootMenu, new ScriptedIODevice("1", "1", "2"));
+		session.setMetrics(metrics);
+		session.start();
+		verify(metrics, times(2)).frameRendered(eq("Home"), anyInt(), anyLong());
+		verify(metrics).frameRendered(eq("Home/Wifi"), anyInt(), anyLong());
+		verify(metrics, times(2)).inputReceived(eq("Home"), anyLong());
+		verify(metrics).inputReceived(eq("Home/Wifi"), anyLong());
+		verify(metrics).optionExecuted(eq("Home/Wifi"), eq("Back"), eq(OptionActionResult.GO_UP), anyLong());
+		verify(metrics).optionExecuted(eq("Home"), eq("Exit"), eq(OptionActionResult.EXIT_MENU), anyLong());
+	}
+	
+	@Test
+	public void start_FewerMenusDisplayed_MetricsGetFullPath()
+	{
+		IMenuMetrics metrics = mock(IMenuMetrics.class);
+		ScriptedIODevice device = new ScriptedIODevice("1", "1", "2");
+		MenuSession session = new MenuSession(rootMenu, device);
+		session.getNavigation().setMaxDisplayedMenus(1);
+		session.setMetrics(metrics);
+		session.start();
+		assertTrue(device.displayed.get(1).startsWith("Home/.../Wifi\n"));
+		verify(metrics).frameRendered(eq("Home/Wifi"), anyInt(), anyLong());
+		verify(metrics).optionExecuted(eq("Home/Wifi"), eq("Back"), eq(OptionActionResult.GO_UP), anyLong());
+	}
+	
+	@Test
+	public void start_MetricsSet_MenusEnteredAndExitedInOrder()
+	{
+		IMenuMetrics metrics = mock(IMenuMetrics.class);
+		MenuSession session = new MenuSession(rootMenu, new ScriptedIODevice("1", "1", "1", "4"));
+		session.setMetrics(metrics);
+		session.start();
+		InOrder order = inOrder(metrics);
+		order.verify(metrics).menuEntered("Home");
+		order.verify(metrics).menuEntered("Home/Wifi");
+		order.verify(metrics).menuExited("Home/Wifi");
+		order.verify(metrics).menuEntered("Home/Wifi");
+		order.verify(metrics).menuExited("Home/Wifi");
+		order.verify(metrics).menuExited("Home");
+		order.verifyNoMoreInteractions();
+	}
+	
+	@Test
+	public void start_SearchResultSelected_NavigatesToPageOfMatch()
+	{
+		rootMenu.enableSearch();
+		ScriptedIODevice device = new ScriptedIODevice("?network2", "1", "4");
+		MenuSession session = new MenuSession(rootMenu, device);
+		assertEquals(OptionActionResult.EXIT_MENU, session.start());
+		assertEquals("Home\nSearch results for network2\n1 : Home/Wifi/Network2\nEnter the number of a result or nothing to go back : ", device.displayed.get(1));
+		assertTrue(device.displayed.get(2).startsWith("Home/Wifi\n3 : Network2\n4 : Exit\nPage 2 of 2"));
+	}
+	
+	@Test
+	public void start_SearchFromSubMenu_MenusBetweenRootAndMatchEntered()
+	{
+		Menu displayMenu = new Menu("Display");
+		displayMenu.addOption("Brightness", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		});
+		((Menu)rootMenu.getSubMenu(0)).addSubMenu(displayMenu, 1);
+		rootMenu.enableSearch();
+		IMenuMetrics metrics = mock(IMenuMetrics.class);
+		ScriptedIODevice device = new ScriptedIODevice("1", "?bright", "1", "1");
+		MenuSession session = new MenuSession(rootMenu, device);
+		session.setMetrics(metrics);
+		assertEquals(OptionActionResult.EXIT_MENU, session.start());
+		assertTrue(device.displayed.get(2).contains("1 : Home/Wifi/Display/Brightness"));
+		assertTrue(device.displayed.get(3).startsWith("Home/Wifi/Display\n1 : Brightness"));
+		InOrder order = inOrder(metrics);
+		order.verify(metrics).menuEntered("Home/Wifi");
+		order.verify(metrics).menuExited("Home/Wifi");
+		order.verify(metrics).menuEntered("Home/Wifi");
+		order.verify(metrics).menuEntered("Home/Wifi/Display");
+	}
+	
+	@Test
+	public void start_SearchWithoutMatches_MenuShownAgain()
+	{
+		rootMenu.enableSearch();
+		ScriptedIODevice device = new ScriptedIODevice("?bluetooth", "", "2");
+		MenuSession session = new MenuSession(rootMenu, device);
+		assertEquals(OptionActionResult.EXIT_MENU, session.start());
+		assertTrue(device.displayed.get(1).contains("\nNo matches\n"));
+		assertEquals(device.displayed.get(0), device.displayed.get(2));
+	}
+	
+	@Test
+	public void start_OptionNamedLikeSearch_OptionSelectedByName()
+	{
+		rootMenu.enableSearch();
+		rootMenu.addOption("?Help", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		});
+		ScriptedIODevice device = new ScriptedIODevice("?help");
+		MenuSession session = new MenuSession(rootMenu, device);
+		assertEquals(OptionActionResult.EXIT_MENU, session.start());
+		assertEquals(1, device.displayed.size());
+	}
+	
+	@Test
+	public void start_SearchNotEnabled_SearchCommandIgnored()
+	{
+		ScriptedIODevice device = new ScriptedIODevice("?network2", "2");
+		MenuSession session = new MenuSession(rootMenu, device);
+		assertEquals(OptionActionResult.EXIT_MENU, session.start());
+		assertEquals(2, device.displayed.size());
+	}
+	
+	@Test
+	public void start_LazySubMenuEntered_BuiltOnFirstEntryAndShownByItsName()
+	{
+		final Menu catalogMenu = new Menu("Catalog");
+		catalogMenu.addOption("Back", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.GO_UP;
+			}
+		});
+		LazySubMenu catalog = new LazySubMenu(new Supplier<Menu>() {
+			@Override
+			public Menu get() 
+			{
+				return catalogMenu;
+			}
+		}, new SubMenuCache(1));
+		rootMenu.addOption("Catalog", catalog, 1);
+		ScriptedIODevice device = new ScriptedIODevice("2", "1", "catalog", "1", "3");
+		MenuSession session = new MenuSession(rootMenu, device);
+		assertEquals(OptionActionResult.EXIT_MENU, session.start());
+		assertEquals("Home/Catalog\n1 : Back\nEnter your choice : ", device.displayed.get(1));
+		assertEquals(device.displayed.get(1), device.displayed.get(3));
+		assertEquals(1, catalog.getBuilds());
+	}
+}
@@ -13,6 +13,7 @@ import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -21,6 +22,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.mattepu.exception.ActionOnlyForRootMenuException;
 import com.mattepu.exception.IODeviceNotSetException;
@@ -849,4 +852,260 @@ public class MenuTest
 		order.verify(ioDevice).acceptInput();
 		order.verify(ioDevice).clearDisplay();
 	}
+	
+	@Test
+	public void start_SuccessReturnedAndMenuUnchanged_SameFrameDisplayedAgain()
+	{
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Exit", exitOption);
+		IOption option1 = mock(IOption.class);
+		menu.addOption("Option1", option1);
+		when(option1.optionSelected()).thenReturn(OptionActionResult.SUCCESS);
+		when(ioDevice.acceptInput()).thenReturn("2", "1");
+		menu.setIODevice(ioDevice);
+		menu.start();
+		ArgumentCaptor<String> displayCaptor = ArgumentCaptor.forClass(String.class);
+		verify(ioDevice, times(2)).display(displayCaptor.capture());
+		List<String> stringsDisplayed = displayCaptor.getAllValues();
+		assertEquals("Home\n1 : Exit\n2 : Option1\nEnter your choice : ", stringsDisplayed.get(0));
+		assertEquals(stringsDisplayed.get(0), stringsDisplayed.get(1));
+	}
+	
+	@Test
+	public void start_MenuChangedByOption_FrameRenderedAgain()
+	{
+		final Menu menu = new Menu("Home", true);
+		menu.addOption("Exit", exitOption);
+		menu.addOption("Add option", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				menu.addOption("Added", null);
+				menu.setFooter("Footer");
+				return OptionActionResult.SUCCESS;
+			}
+		});
+		when(ioDevice.acceptInput()).thenReturn("2", "1");
+		menu.setIODevice(ioDevice);
+		menu.start();
+		ArgumentCaptor<String> displayCaptor = ArgumentCaptor.forClass(String.class);
+		verify(ioDevice, times(2)).display(displayCaptor.capture());
+		List<String> stringsDisplayed = displayCaptor.getAllValues();
+		assertEquals("Home\n1 : Exit\n2 : Add option\nEnter your choice : ", stringsDisplayed.get(0));
+		assertEquals("Home\n1 : Exit\n2 : Add option\n3 : Added\nFooter\nEnter your choice : ", stringsDisplayed.get(1));
+	}
+	
+	@Test
+	public void setPageSize_MoreOptionsThanPageSize_OnlyCurrentPageDisplayedAndAbsoluteIndexSelectable()
+	{
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Option1", null);
+		menu.addOption("Option2", null);
+		menu.addOption("Option3", null);
+		menu.addOption("Option4", null);
+		menu.addOption("Exit", exitOption);
+		menu.setFooter("Footer");
+		menu.setPageSize(2);
+		menu.setIODevice(ioDevice);
+		when(ioDevice.acceptInput()).thenReturn(">", "#3", "<", "#9", "5");
+		menu.start();
+		ArgumentCaptor<String> displayCaptor = ArgumentCaptor.forClass(String.class);
+		verify(ioDevice, times(5)).display(displayCaptor.capture());
+		List<String> stringsDisplayed = displayCaptor.getAllValues();
+		String pageCommands = " (< : previous, > : next, #n : go to page n)";
+		assertEquals("Home\n1 : Option1\n2 : Option2\nPage 1 of 3" + pageCommands + "\nFooter\nEnter your choice : ", stringsDisplayed.get(0));
+		assertEquals("Home\n3 : Option3\n4 : Option4\nPage 2 of 3" + pageCommands + "\nFooter\nEnter your choice : ", stringsDisplayed.get(1));
+		assertEquals("Home\n5 : Exit\nPage 3 of 3" + pageCommands + "\nFooter\nEnter your choice : ", stringsDisplayed.get(2));
+		assertEquals("Home\n3 : Option3\n4 : Option4\nPage 2 of 3" + pageCommands + "\nFooter\nEnter your choice : ", stringsDisplayed.get(3));
+		assertEquals(stringsDisplayed.get(3), stringsDisplayed.get(4));
+	}
+	
+	@Test
+	public void setPageSize_Zero_AllOptionsDisplayedAndPageCommandsIgnored()
+	{
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Option1", null);
+		menu.addOption("Exit", exitOption);
+		menu.setPageSize(0);
+		menu.setIODevice(ioDevice);
+		when(ioDevice.acceptInput()).thenReturn(">", "2");
+		menu.start();
+		verify(ioDevice, times(2)).display("Home\n1 : Option1\n2 : Exit\nEnter your choice : ");
+	}
+	
+	@Test
+	public void parseSelection_VariousInputs_ReturnNumberOrMinusOne()
+	{
+		assertEquals(12, Menu.parseSelection("12"));
+		assertEquals(1, Menu.parseSelection("+1"));
+		assertEquals(Integer.MAX_VALUE, Menu.parseSelection("2147483647"));
+		assertEquals(-1, Menu.parseSelection("2147483648"));
+		assertEquals(-1, Menu.parseSelection(null));
+		assertEquals(-1, Menu.parseSelection(""));
+		assertEquals(-1, Menu.parseSelection("+"));
+		assertEquals(-1, Menu.parseSelection("-1"));
+		assertEquals(-1, Menu.parseSelection("1a"));
+		assertEquals(-1, Menu.parseSelection(" 1"));
+		assertEquals(3, Menu.parseSelection("#3", 1));
+	}
+	
+	@Test(timeout = 5000)
+	public void start_VeryDeepSubMenus_NavigatedWithoutGrowingCallStack()
+	{
+		final int depth = 10000;
+		Menu menu = new Menu("Home", true);
+		Menu parent = menu;
+		for(int i = 0; i < depth; i++)
+		{
+			Menu subMenu = new Menu("M");
+			parent.addSubMenu(subMenu);
+			parent = subMenu;
+		}
+		parent.addOption("Home", homeOption);
+		menu.addOption("Exit", exitOption);
+		menu.setIODevice(ioDevice);
+		when(ioDevice.acceptInput()).thenAnswer(new Answer<String>() {
+			private int inputCount = 0;
+			
+			@Override
+			public String answer(InvocationOnMock invocation) 
+			{
+				inputCount++;
+				return inputCount <= depth + 1 ? "1" : "2";
+			}
+		});
+		menu.start();
+		verify(ioDevice, times(depth + 2)).acceptInput();
+		verify(ioDevice, times(2)).display("Home\n1 : M\n2 : Exit\nEnter your choice : ");
+	}
+	
+	@Test
+	public void start_EmptySubMenuSelected_DisplayParentMenuWithItsNavigation()
+	{
+		Menu menu = new Menu("Home", true);
+		menu.addSubMenu(new Menu("Empty"));
+		menu.addOption("Exit", exitOption);
+		menu.setIODevice(ioDevice);
+		when(ioDevice.acceptInput()).thenReturn("1", "2");
+		menu.start();
+		ArgumentCaptor<String> displayCaptor = ArgumentCaptor.forClass(String.class);
+		verify(ioDevice, times(3)).display(displayCaptor.capture());
+		List<String> stringsDisplayed = displayCaptor.getAllValues();
+		assertEquals("Home/Empty", stringsDisplayed.get(1));
+		assertEquals("Home\n1 : Empty\n2 : Exit\nEnter your choice : ", stringsDisplayed.get(2));
+	}
+	
+	@Test
+	public void start_AsyncOptionCompletesImmediately_ResultAppliedWithoutProgressDisplay()
+	{
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Exit", new AsyncOption(exitOption));
+		menu.setExecutor(Runnable::run);
+		menu.setIODevice(ioDevice);
+		when(ioDevice.acceptInput()).thenReturn("1");
+		menu.start();
+		verify(ioDevice).display("Home\n1 : Exit\nEnter your choice : ");
+		verify(ioDevice).acceptInput();
+	}
+	
+	@Test
+	public void start_AsyncOptionFails_FailureThrownFromStart()
+	{
+		final IllegalStateException failure = new IllegalStateException();
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Fail", new AsyncOption(new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				throw failure;
+			}
+		}));
+		menu.setExecutor(Runnable::run);
+		menu.setIODevice(ioDevice);
+		when(ioDevice.acceptInput()).thenReturn("1");
+		try
+		{
+			menu.start();
+			fail("IllegalStateException not thrown");
+		}
+		catch(IllegalStateException e)
+		{
+			assertSame(failure, e);
+		}
+	}
+	
+	@Test(timeout = 5000)
+	public void start_AsyncOptionCancelled_WorkInterruptedAndMenuDisplayedAgain() throws InterruptedException
+	{
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Long job", new AsyncOption(new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				started.countDown();
+				try
+				{
+					Thread.sleep(60000);
+				}
+				catch(InterruptedException e)
+				{
+					interrupted.countDown();
+				}
+				return OptionActionResult.SUCCESS;
+			}
+		}));
+		menu.addOption("Exit", exitOption);
+		menu.setIODevice(ioDevice);
+		when(ioDevice.acceptInput()).thenReturn("1").thenAnswer(new Answer<String>() {
+			@Override
+			public String answer(InvocationOnMock invocation) throws InterruptedException 
+			{
+				started.await();
+				return "";
+			}
+		}).thenReturn("c", "2");
+		menu.start();
+		interrupted.await();
+		ArgumentCaptor<String> displayCaptor = ArgumentCaptor.forClass(String.class);
+		verify(ioDevice, times(4)).display(displayCaptor.capture());
+		List<String> stringsDisplayed = displayCaptor.getAllValues();
+		String progressPrompt = "Enter c to cancel, b to continue in background or nothing to refresh : ";
+		assertTrue(stringsDisplayed.get(1).startsWith("Home\n| Running Long job ("));
+		assertTrue(stringsDisplayed.get(1).endsWith(progressPrompt));
+		assertTrue(stringsDisplayed.get(2).startsWith("Home\n/ Running Long job ("));
+		assertEquals("Home\n1 : Long job\n2 : Exit\nEnter your choice : ", stringsDisplayed.get(3));
+	}
+	
+	@Test(timeout = 5000)
+	public void start_AsyncOptionSentToBackground_MenuUsableWhileOptionRuns() throws InterruptedException
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch finished = new CountDownLatch(1);
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Long job", new AsyncOption(new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				try
+				{
+					release.await();
+					finished.countDown();
+				}
+				catch(InterruptedException e)
+				{
+				}
+				return OptionActionResult.EXIT_MENU;
+			}
+		}));
+		menu.addOption("Exit", exitOption);
+		menu.setIODevice(ioDevice);
+		when(ioDevice.acceptInput()).thenReturn("1", "b", "2");
+		menu.start();
+		assertEquals(1, finished.getCount());
+		release.countDown();
+		finished.await();
+		verify(ioDevice, times(3)).acceptInput();
+	}
 }
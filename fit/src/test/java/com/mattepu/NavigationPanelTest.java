@@ -1,6 +1,7 @@
 package com.mattepu;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -161,4 +162,74 @@ public class NavigationPanelTest
 		nav.goToRootMenu();
 		assertEquals(rootMenuName, nav.toString());
 	}
+	
+	@Test
+	public void goUpMenu_RegexCharactersAsSeperator_SeperatorTreatedLiterally()
+	{
+		nav.setSeperator(".");
+		nav.setRootMenu("Home");
+		nav.changeToSubMenu("Settings");
+		nav.changeToSubMenu("Display");
+		assertEquals("Home.Settings.Display", nav.toString());
+		nav.goUpMenu();
+		assertEquals("Home.Settings", nav.toString());
+		
+		nav = new NavigationPanel();
+		nav.setSeperator("|");
+		nav.setRootMenu("Home");
+		nav.changeToSubMenu("Settings");
+		nav.setRootMenu("Start");
+		assertEquals("Start|Settings", nav.toString());
+	}
+	
+	@Test
+	public void goUpMenu_MenuNameContainsSeperator_OnlyLastMenuRemoved()
+	{
+		nav.setRootMenu("Home");
+		nav.changeToSubMenu("TCP/IP");
+		nav.changeToSubMenu("Wifi/LAN");
+		nav.goUpMenu();
+		assertEquals("Home/TCP/IP", nav.toString());
+		assertEquals(2, nav.getDepth());
+		nav.goToRootMenu();
+		assertEquals("Home", nav.toString());
+		assertEquals(1, nav.getDepth());
+	}
+	
+	@Test
+	public void setMaxDisplayedMenus_DeeperPath_MiddleMenusReplacedWithEllipsis()
+	{
+		nav.setRootMenu("Home");
+		nav.setMaxDisplayedMenus(3);
+		nav.changeToSubMenu("A");
+		nav.changeToSubMenu("B");
+		assertEquals("Home/A/B", nav.toString());
+		nav.changeToSubMenu("C");
+		nav.changeToSubMenu("D");
+		assertEquals("Home/.../C/D", nav.toString());
+		nav.setMaxDisplayedMenus(0);
+		assertEquals("Home/A/B/C/D", nav.toString());
+	}
+	
+	@Test
+	public void getPath_FewerMenusDisplayed_EveryMenuInPath()
+	{
+		nav.setRootMenu("Home");
+		nav.setMaxDisplayedMenus(2);
+		nav.changeToSubMenu("A");
+		nav.changeToSubMenu("B");
+		nav.changeToSubMenu("C");
+		assertEquals("Home/.../C", nav.toString());
+		assertEquals("Home/A/B/C", nav.getPath());
+		nav.goUpMenu();
+		assertEquals("Home/A/B", nav.getPath());
+	}
+	
+	@Test
+	public void toString_NoChangeInBetween_ReturnSameInstance()
+	{
+		nav.setRootMenu("Home");
+		nav.changeToSubMenu("Settings");
+		assertSame(nav.toString(), nav.toString());
+	}
 }
@@ -0,0 +1,198 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapOptionsManagerTest
+{
+	private static final String[] NAMES = { "Network", "caf\u00e9", "\u00c9t\u00e9", "\u4e2d\u6587", "smile \ud83d\ude00", "", "network 2" };
+	
+	private OptionsManager expected;
+	private OffHeapOptionsManager options;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		expected = new OptionsManager();
+		options = new OffHeapOptionsManager(16);
+	}
+	
+	@Test
+	public void toString_NamesOfAnyScript_SameTextAsOptionsManager() throws IOException
+	{
+		for(String name : NAMES)
+		{
+			expected.addOption(name, null);
+			options.addOption(name, null);
+		}
+		assertEquals(expected.toString(), options.toString());
+		StringWriter writer = new StringWriter();
+		options.appendTo(writer);
+		assertEquals(expected.toString(), writer.toString());
+		StringBuilder page = new StringBuilder();
+		options.appendTo(page, 2, 5);
+		assertEquals("3 : \u00c9t\u00e9\n4 : \u4e2d\u6587\n5 : smile \ud83d\ude00", page.toString());
+		assertEquals("smile \ud83d\ude00", options.getOptionNameAt(4));
+	}
+	
+	@Test
+	public void addOption_NamesPastInitialCapacity_ArenaGrows()
+	{
+		for(int i = 0; i < 1000; i++)
+		{
+			options.addOption("Option " + i, null, i % 2 == 0 ? -1 : 0);
+		}
+		assertEquals(1000, options.size());
+		assertEquals("Option 999", options.getOptionNameAt(0));
+		assertEquals("Option 998", options.getOptionNameAt(999));
+		assertTrue(options.getOffHeapBytes() >= 10000);
+	}
+	
+	@Test
+	public void tryRemoveOption_MostOptionsRemoved_RemainingNamesKept()
+	{
+		for(int i = 0; i < 100; i++)
+		{
+			options.addOption("Option " + i, null);
+		}
+		for(int i = 99; i > 0; i--)
+		{
+			assertTrue(options.tryRemoveOption(i));
+		}
+		assertFalse(options.tryRemoveOption(1));
+		options.addOption("Last", null);
+		assertEquals("1 : Option 0\n2 : Last", options.toString());
+	}
+	
+	@Test
+	public void findOption_ManyOptionsChangedRandomly_AgreesWithOptionsManager()
+	{
+		Random random = new Random(7);
+		for(int i = 0; i < 2000; i++)
+		{
+			if(expected.size() == 0 || random.nextInt(3) > 0)
+			{
+				int index = random.nextInt(expected.size() + 1);
+				String name = Integer.toString(random.nextInt(5000), 36);
+				name = random.nextBoolean() ? name.toUpperCase() : name + NAMES[random.nextInt(NAMES.length)];
+				expected.addOption(name, null, index);
+				options.addOption(name, null, index);
+			}
+			else
+			{
+				int index = random.nextInt(expected.size());
+				expected.removeOption(index);
+				options.removeOption(index);
+			}
+			String query = Integer.toString(random.nextInt(5000), 36);
+			assertEquals(expected.findOption(query), options.findOption(query));
+		}
+		assertEquals(expected.toString(), options.toString());
+	}
+	
+	@Test
+	public void renderBody_MenuWithoutPageSize_BodyNotKept()
+	{
+		for(int i = 0; i < 10; i++)
+		{
+			options.addOption("Option " + i, null);
+		}
+		Menu menu = new Menu("Home", true, options);
+		String body = menu.renderBody(options, 0);
+		assertEquals(body, menu.renderBody(options, 0));
+		assertNotSame(body, menu.renderBody(options, 0));
+		menu.setPageSize(5);
+		body = menu.renderBody(options, 1);
+		assertSame(body, menu.renderBody(options, 1));
+	}
+	
+	// Live bytes are read from the class histogram of the JVM, which collects the
+	// garbage first, so they count exactly the objects kept by the options. Threads
+	// of earlier tests may still be ending, so the first reading is taken once the
+	// live bytes stopped falling.
+	@Test
+	public void addOption_ManyOptions_FewHeapBytesPerOption() throws Exception
+	{
+		int count = 200000;
+		IOption option = new IOption() {
+			@Override
+			public OptionActionResult optionSelected()
+			{
+				return OptionActionResult.SUCCESS;
+			}
+		};
+		long before = settledLiveHeapBytes();
+		OptionsManager onHeap = new OptionsManager();
+		for(int i = 0; i < count; i++)
+		{
+			onHeap.addOption("Item " + i + " of warehouse " + (i % 100), option);
+		}
+		long onHeapBytes = liveHeapBytes() - before;
+		assertEquals(count, onHeap.size());
+		onHeap = null;
+		
+		before = liveHeapBytes();
+		OffHeapOptionsManager offHeap = new OffHeapOptionsManager();
+		for(int i = 0; i < count; i++)
+		{
+			offHeap.addOption("Item " + i + " of warehouse " + (i % 100), option);
+		}
+		long offHeapBytes = liveHeapBytes() - before;
+		assertEquals(count, offHeap.size());
+		
+		long onHeapPerOption = onHeapBytes / count;
+		long offHeapPerOption = offHeapBytes / count;
+		assertTrue(onHeapPerOption + " heap bytes per option before, " + offHeapPerOption + " after",
+				offHeapPerOption * 3 < onHeapPerOption);
+	}
+	
+	private static long settledLiveHeapBytes() throws Exception
+	{
+		long previous = liveHeapBytes();
+		for(int i = 0; i < 20; i++)
+		{
+			Thread.sleep(50);
+			long current = liveHeapBytes();
+			if(current >= previous - 65536)
+			{
+				return current;
+			}
+			previous = current;
+		}
+		return previous;
+	}
+	
+	private static long liveHeapBytes() throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		String histogram;
+		try
+		{
+			histogram = (String)server.invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+					new Object[] { null }, new String[] { String[].class.getName() });
+		}
+		catch(InstanceNotFoundException e)
+		{
+			Assume.assumeNoException(e);
+			return 0;
+		}
+		String[] totals = histogram.substring(histogram.lastIndexOf("Total")).trim().split("\\s+");
+		return Long.parseLong(totals[2]);
+	}
+}
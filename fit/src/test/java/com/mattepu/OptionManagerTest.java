@@ -1,9 +1,20 @@
 package com.mattepu;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -177,4 +188,238 @@ public class OptionManagerTest
 		opm.addOption("Apps", null);
 		assertEquals("1 : Wifi\n2 : Apps", opm.toString());
 	}
+	
+	@Test
+	public void appendTo_HasTwoOptions_AppendsSameStringAsToString() throws IOException
+	{
+		opm.addOption("Wifi", null);
+		opm.addOption("Apps", null);
+		StringWriter writer = new StringWriter();
+		opm.appendTo(writer);
+		assertEquals("1 : Wifi\n2 : Apps", writer.toString());
+		StringBuilder builder = new StringBuilder("Home\n");
+		opm.appendTo(builder);
+		assertEquals("Home\n1 : Wifi\n2 : Apps", builder.toString());
+	}
+	
+	@Test
+	public void toString_OptionInsertedAfterRendering_NumbersOfFollowingOptionsUpdated()
+	{
+		opm.addOption("Wifi", null);
+		opm.addOption("Apps", null);
+		assertEquals("1 : Wifi\n2 : Apps", opm.toString());
+		opm.addOption("Display", null, 0);
+		assertEquals("1 : Display\n2 : Wifi\n3 : Apps", opm.toString());
+		opm.addOption("Sound", null);
+		assertEquals("1 : Display\n2 : Wifi\n3 : Apps\n4 : Sound", opm.toString());
+		opm.removeOption(1);
+		assertEquals("1 : Display\n2 : Apps\n3 : Sound", opm.toString());
+	}
+	
+	@Test
+	public void appendTo_PagesOfLargeMenu_LinesKeptOnlyForRenderedPage()
+	{
+		for(int i = 0; i < 10000; i++)
+		{
+			opm.addOption("Option " + i, null);
+		}
+		assertTrue(opm.toString().endsWith("\n10000 : Option 9999"));
+		assertTrue(opm.getCachedLines() <= 256);
+		StringBuilder builder = new StringBuilder();
+		opm.appendTo(builder, 5000, 5002);
+		assertEquals(2, opm.getCachedLines());
+		opm.addOption("First", null, 0);
+		builder = new StringBuilder();
+		opm.appendTo(builder, 5000, 5002);
+		assertEquals("5001 : Option 4999\n5002 : Option 5000", builder.toString());
+		opm.removeOption(5001);
+		builder = new StringBuilder();
+		opm.appendTo(builder, 5000, 5002);
+		assertEquals("5001 : Option 4999\n5002 : Option 5001", builder.toString());
+	}
+	
+	@Test
+	public void appendTo_Range_AppendsOnlyOptionsInRangeWithAbsoluteNumbers()
+	{
+		opm.addOption("Wifi", null);
+		opm.addOption("Display", null);
+		opm.addOption("Apps", null);
+		StringBuilder builder = new StringBuilder();
+		opm.appendTo(builder, 1, 3);
+		assertEquals("2 : Display\n3 : Apps", builder.toString());
+		builder = new StringBuilder();
+		opm.appendTo(builder, 2, 1000);
+		assertEquals("3 : Apps", builder.toString());
+		assertEquals(3, opm.size());
+	}
+	
+	@Test
+	public void tryGetOptionAt_InvalidIndex_ReturnNull()
+	{
+		opm.addOption("Wifi", op1);
+		assertNull(opm.tryGetOptionAt(-1));
+		assertNull(opm.tryGetOptionAt(1));
+		assertFalse(opm.hasOptionAt(-1));
+		assertFalse(opm.hasOptionAt(1));
+	}
+	
+	@Test
+	public void tryGetOptionAt_ValidIndex_ReturnIOptionValue()
+	{
+		opm.addOption("Wifi", op1);
+		opm.addOption("Display", op2);
+		assertTrue(opm.hasOptionAt(1));
+		assertSame(op2, opm.tryGetOptionAt(1));
+	}
+	
+	@Test
+	public void tryRemoveOption_InvalidAndValidIndex_ReturnWhetherOptionWasRemoved()
+	{
+		opm.addOption("Wifi", null);
+		opm.addOption("Apps", null);
+		assertFalse(opm.tryRemoveOption(-1));
+		assertFalse(opm.tryRemoveOption(2));
+		assertTrue(opm.tryRemoveOption(0));
+		assertEquals("1 : Apps", opm.toString());
+		assertSame(opm, opm.snapshot());
+	}
+	
+	@Test
+	public void findOption_UniquePrefixOrName_IndexOfOptionIgnoringCase()
+	{
+		opm.addOption("Wifi", op1);
+		opm.addOption("Wifi settings", op2);
+		opm.addOption("Sound", null);
+		assertEquals(0, opm.findOption("wifi"));
+		assertEquals(1, opm.findOption("WIFI S"));
+		assertEquals(2, opm.findOption("so"));
+		assertEquals(-1, opm.findOption("Wi"));
+		assertEquals(-1, opm.findOption("Display"));
+		assertEquals(-1, opm.findOption(""));
+		assertEquals(-1, opm.findOption(null));
+	}
+	
+	@Test
+	public void findOption_DuplicateNames_Ambiguous()
+	{
+		opm.addOption("Back", op1);
+		opm.addOption("back", op2);
+		assertEquals(-1, opm.findOption("Back"));
+		opm.removeOption(0);
+		assertEquals(0, opm.findOption("Back"));
+	}
+	
+	@Test
+	public void findOption_OptionsChangedAfterLookup_IndexKeptUpToDate()
+	{
+		opm.addOption("Network", op1);
+		opm.addOption("Sound", op2);
+		assertEquals(1, opm.findOption("s"));
+		opm.addOption("Display", null, 0);
+		opm.addOption("Storage", null, 1);
+		assertEquals(0, opm.findOption("d"));
+		assertEquals(1, opm.findOption("st"));
+		assertEquals(2, opm.findOption("n"));
+		assertEquals(3, opm.findOption("so"));
+		opm.removeOption(1);
+		assertEquals(2, opm.findOption("s"));
+		opm.removeOption(0);
+		assertEquals(-1, opm.findOption("d"));
+		assertEquals(0, opm.findOption("n"));
+	}
+	
+	@Test
+	public void findOption_ManyOptionsChangedRandomly_AgreesWithLinearSearch()
+	{
+		Random random = new Random(7);
+		List<String> names = new ArrayList<String>();
+		for(int i = 0; i < 2000; i++)
+		{
+			if(names.isEmpty() || random.nextInt(3) > 0)
+			{
+				int index = random.nextInt(names.size() + 1);
+				String name = Integer.toString(random.nextInt(5000), 36);
+				names.add(index, name);
+				opm.addOption(name, null, index);
+			}
+			else
+			{
+				int index = random.nextInt(names.size());
+				names.remove(index);
+				opm.removeOption(index);
+			}
+			String query = Integer.toString(random.nextInt(5000), 36);
+			assertEquals(linearFind(names, query), opm.findOption(query));
+		}
+	}
+	
+	@Test
+	public void findOption_FirstLookupsFromManyThreads_EveryLookupFindsOption() throws InterruptedException
+	{
+		final int count = 20000;
+		for(int i = 0; i < count; i++)
+		{
+			opm.addOption("Option " + i, op1);
+		}
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger wrongLookups = new AtomicInteger();
+		Thread[] sessions = new Thread[8];
+		for(int i = 0; i < sessions.length; i++)
+		{
+			sessions[i] = new Thread(new Runnable() {
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+					}
+					catch(InterruptedException e)
+					{
+						return;
+					}
+					for(int j = 0; j < count; j += 101)
+					{
+						if(opm.findOption("option " + j) != j)
+						{
+							wrongLookups.incrementAndGet();
+						}
+					}
+				}
+			});
+			sessions[i].start();
+		}
+		start.countDown();
+		for(Thread session : sessions)
+		{
+			session.join();
+		}
+		assertEquals(0, wrongLookups.get());
+	}
+	
+	private static int linearFind(List<String> names, String query)
+	{
+		int exact = -1;
+		int exactCount = 0;
+		int prefixed = -1;
+		int prefixedCount = 0;
+		for(int i = 0; i < names.size(); i++)
+		{
+			if(names.get(i).equalsIgnoreCase(query))
+			{
+				exact = i;
+				exactCount++;
+			}
+			if(names.get(i).regionMatches(true, 0, query, 0, query.length()))
+			{
+				prefixed = i;
+				prefixedCount++;
+			}
+		}
+		if(exactCount > 0)
+		{
+			return exactCount == 1 ? exact : -1;
+		}
+		return prefixedCount == 1 ? prefixed : -1;
+	}
 }
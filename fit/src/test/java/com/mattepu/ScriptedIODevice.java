@@ -0,0 +1,35 @@
+package com.mattepu;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Takes the given inputs in order and keeps every displayed frame, for tests that
+// compare whole sequences of frames
+class ScriptedIODevice implements IODevice
+{
+	private String[] inputs;
+	private int inputIndex = 0;
+	final List<String> displayed = new ArrayList<String>();
+	
+	ScriptedIODevice(String... inputs)
+	{
+		this.inputs = inputs;
+	}
+	
+	@Override
+	public void display(String content) 
+	{
+		displayed.add(content);
+	}
+	
+	@Override
+	public String acceptInput() 
+	{
+		return inputs[inputIndex++];
+	}
+	
+	@Override
+	public void clearDisplay() 
+	{
+	}
+}
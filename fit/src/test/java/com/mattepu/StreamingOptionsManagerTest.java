@@ -0,0 +1,287 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class StreamingOptionsManagerTest 
+{
+	private static final Function<Integer, String> FILE_NAMES = new Function<Integer, String>() {
+		@Override
+		public String apply(Integer item) 
+		{
+			return "File " + item;
+		}
+	};
+	
+	private IOption openOption;
+	private List<Runnable> prefetches;
+	private Executor prefetchExecutor;
+	private Function<Integer, IOption> openActions;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		openOption = mock(IOption.class);
+		when(openOption.optionSelected()).thenReturn(OptionActionResult.EXIT_MENU);
+		prefetches = new ArrayList<Runnable>();
+		prefetchExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) 
+			{
+				prefetches.add(command);
+			}
+		};
+		openActions = new Function<Integer, IOption>() {
+			@Override
+			public IOption apply(Integer item) 
+			{
+				return openOption;
+			}
+		};
+	}
+	
+	@Test
+	public void appendTo_FirstPage_PageAndNextOptionReadThenFollowingPagesPrefetched()
+	{
+		CountingIterator files = new CountingIterator(1000000);
+		StreamingOptionsManager options = new StreamingOptionsManager(files, FILE_NAMES, openActions, prefetchExecutor);
+		StringBuilder page = new StringBuilder();
+		options.appendTo(page, 0, 10);
+		assertTrue(page.toString().startsWith("1 : File 0\n2 : File 1"));
+		assertTrue(page.toString().endsWith("10 : File 9"));
+		assertEquals(11, files.read);
+		assertEquals(11, options.size());
+		assertEquals(1, prefetches.size());
+		prefetches.get(0).run();
+		assertEquals(11 + StreamingOptionsManager.PREFETCH_PAGES * 10, files.read);
+		assertFalse(options.isComplete());
+	}
+	
+	@Test
+	public void renderBody_SourceNotReadToEnd_PageCountMarkedAsGrowing()
+	{
+		Menu menu = new Menu("Files", false, new StreamingOptionsManager(new CountingIterator(1000000), FILE_NAMES, openActions, prefetchExecutor));
+		menu.setPageSize(10);
+		OptionsView options = menu.getOptionsManager().snapshot();
+		assertTrue(menu.renderBody(options, 0).contains("Page 1 of 2+ "));
+	}
+	
+	@Test
+	public void renderBody_SourceReadToEnd_PageCountExact()
+	{
+		Menu menu = new Menu("Files", false, new StreamingOptionsManager(new CountingIterator(10), FILE_NAMES, openActions, prefetchExecutor));
+		menu.setPageSize(10);
+		OptionsView options = menu.getOptionsManager().snapshot();
+		String body = menu.renderBody(options, 0);
+		assertTrue(body.contains("Page 1 of 1 "));
+		assertTrue(options.isComplete());
+	}
+	
+	@Test
+	public void size_EmptySource_ZeroAndComplete()
+	{
+		StreamingOptionsManager options = new StreamingOptionsManager(new CountingIterator(0), FILE_NAMES, openActions, prefetchExecutor);
+		assertEquals(0, options.size());
+		assertTrue(options.isComplete());
+		assertEquals("", options.toString());
+	}
+	
+	@Test
+	public void hasOptionAt_OptionNotReadYet_ReadUpToIt()
+	{
+		CountingIterator files = new CountingIterator(1000);
+		StreamingOptionsManager options = new StreamingOptionsManager(files, FILE_NAMES, openActions, prefetchExecutor);
+		assertTrue(options.hasOptionAt(499));
+		assertEquals(500, files.read);
+		assertEquals("File 499", options.getOptionNameAt(499));
+		assertSame(openOption, options.tryGetOptionAt(499));
+		assertFalse(options.hasOptionAt(1000));
+		assertNull(options.tryGetOptionAt(1000));
+		assertTrue(options.isComplete());
+	}
+	
+	@Test
+	public void findOption_ByName_OnlyOptionsReadSoFarFound()
+	{
+		StreamingOptionsManager options = new StreamingOptionsManager(new CountingIterator(1000), FILE_NAMES, openActions, prefetchExecutor);
+		options.appendTo(new StringBuilder(), 0, 10);
+		assertEquals(5, options.findOption("file 5"));
+		assertEquals(-1, options.findOption("file 500"));
+		options.hasOptionAt(500);
+		assertEquals(500, options.findOption("file 500"));
+	}
+	
+	@Test
+	public void of_StreamReadToEnd_StreamClosed()
+	{
+		final AtomicBoolean closed = new AtomicBoolean();
+		Stream<Integer> files = IntStream.range(0, 30).boxed().onClose(new Runnable() {
+			@Override
+			public void run() 
+			{
+				closed.set(true);
+			}
+		});
+		StreamingOptionsManager options = StreamingOptionsManager.of(files, FILE_NAMES, openActions, prefetchExecutor);
+		options.appendTo(new StringBuilder(), 0, 10);
+		assertFalse(closed.get());
+		options.appendTo(new StringBuilder(), 20, 30);
+		assertTrue(closed.get());
+		assertEquals(30, options.size());
+	}
+	
+	@Test
+	public void close_BeforeSourceReadToEnd_NothingMoreRead()
+	{
+		CountingIterator files = new CountingIterator(1000);
+		StreamingOptionsManager options = new StreamingOptionsManager(files, FILE_NAMES, openActions, prefetchExecutor);
+		options.hasOptionAt(9);
+		options.close();
+		assertFalse(options.hasOptionAt(10));
+		assertEquals(10, files.read);
+		assertTrue(options.isComplete());
+	}
+	
+	@Test
+	public void appendTo_PrefetchFailed_FailureThrownOnceInReadingThread()
+	{
+		CountingIterator files = new CountingIterator(1000);
+		files.failAt = 15;
+		StreamingOptionsManager options = new StreamingOptionsManager(files, FILE_NAMES, openActions, prefetchExecutor);
+		options.appendTo(new StringBuilder(), 0, 10);
+		prefetches.get(0).run();
+		try
+		{
+			options.size();
+			fail();
+		}
+		catch(IllegalStateException e)
+		{
+		}
+		assertEquals(15, options.size());
+		assertTrue(options.isComplete());
+	}
+	
+	@Test
+	public void addOption_MenuOfStreamedOptions_NothingAddedOrRemoved()
+	{
+		Menu menu = new Menu("Files", false, new StreamingOptionsManager(new CountingIterator(10), FILE_NAMES, openActions, prefetchExecutor));
+		assertEquals(-1, menu.addOption("File", null));
+		assertFalse(menu.removeOptionOrSubMenu(0));
+		assertEquals("File 0", menu.getOptionsManager().getOptionNameAt(0));
+	}
+	
+	@Test
+	public void appendTo_PagesOfReopenableSource_OnlyRetainedOptionsKept()
+	{
+		final AtomicInteger opened = new AtomicInteger();
+		Supplier<Stream<Integer>> files = new Supplier<Stream<Integer>>() {
+			@Override
+			public Stream<Integer> get()
+			{
+				opened.incrementAndGet();
+				return IntStream.range(0, 100000).boxed();
+			}
+		};
+		StreamingOptionsManager options = StreamingOptionsManager.of(files, FILE_NAMES, openActions, 1000, prefetchExecutor);
+		for(int page = 0; page < 5000; page++)
+		{
+			options.appendTo(new StringBuilder(), page * 10, page * 10 + 10);
+		}
+		assertTrue(options.getRetainedOptions() <= 1000);
+		assertEquals(1, opened.get());
+		StringBuilder firstPage = new StringBuilder();
+		options.appendTo(firstPage, 0, 2);
+		assertEquals("1 : File 0\n2 : File 1", firstPage.toString());
+		assertEquals(2, opened.get());
+		assertEquals("File 49999", options.getOptionNameAt(49999));
+		assertEquals(49999, options.findOption("file 49999"));
+		assertTrue(options.getRetainedOptions() <= 1000);
+	}
+	
+	@Test
+	public void appendTo_WholeReopenableSource_EveryOptionRendered()
+	{
+		Supplier<Stream<Integer>> files = new Supplier<Stream<Integer>>() {
+			@Override
+			public Stream<Integer> get()
+			{
+				return IntStream.range(0, 1000).boxed();
+			}
+		};
+		StreamingOptionsManager options = StreamingOptionsManager.of(files, FILE_NAMES, openActions, 200);
+		String text = options.toString();
+		assertTrue(text.startsWith("1 : File 0\n"));
+		assertTrue(text.endsWith("\n1000 : File 999"));
+		assertEquals(1000, text.split("\n").length);
+		assertTrue(options.isComplete());
+	}
+	
+	@Test(timeout = 10000)
+	public void start_PagingForwardWithBackgroundPrefetch_OptionOnLastPageSelected()
+	{
+		CountingIterator files = new CountingIterator(25);
+		Menu rootMenu = new Menu("Files", true, new StreamingOptionsManager(files, FILE_NAMES, openActions));
+		rootMenu.setPageSize(10);
+		IODevice ioDevice = mock(IODevice.class);
+		when(ioDevice.acceptInput()).thenReturn(">", ">", "25");
+		rootMenu.setIODevice(ioDevice);
+		rootMenu.start();
+		ArgumentCaptor<String> frames = ArgumentCaptor.forClass(String.class);
+		verify(ioDevice, times(3)).display(frames.capture());
+		assertTrue(frames.getAllValues().get(2).contains("21 : File 20"));
+		assertTrue(frames.getAllValues().get(2).contains("Page 3 of 3 "));
+		verify(openOption).optionSelected();
+	}
+	
+	private static class CountingIterator implements Iterator<Integer>
+	{
+		private int count;
+		private int read = 0;
+		private int failAt = -1;
+		
+		CountingIterator(int count)
+		{
+			this.count = count;
+		}
+		
+		@Override
+		public boolean hasNext() 
+		{
+			return read < count;
+		}
+		
+		@Override
+		public Integer next() 
+		{
+			if(read == failAt)
+			{
+				throw new IllegalStateException();
+			}
+			return read++;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.mattepu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class SubMenuCacheTest 
+{
+	private static final Supplier<Menu> NO_MENU = new Supplier<Menu>() {
+		@Override
+		public Menu get() 
+		{
+			return null;
+		}
+	};
+	
+	@Test
+	public void put_MoreMenusThanLimit_LeastRecentlyUsedEvicted()
+	{
+		SubMenuCache cache = new SubMenuCache(2);
+		LazySubMenu first = new LazySubMenu(NO_MENU, cache);
+		LazySubMenu second = new LazySubMenu(NO_MENU, cache);
+		LazySubMenu third = new LazySubMenu(NO_MENU, cache);
+		Menu firstMenu = new Menu("First");
+		cache.put(first, firstMenu);
+		cache.put(second, new Menu("Second"));
+		assertSame(firstMenu, cache.get(first));
+		cache.put(third, new Menu("Third"));
+		assertNull(cache.get(second));
+		assertSame(firstMenu, cache.get(first));
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+	}
+	
+	@Test
+	public void put_MenuHeavierThanLimit_OnlyThatMenuKept()
+	{
+		SubMenuCache cache = SubMenuCache.boundedByBytes(1);
+		LazySubMenu first = new LazySubMenu(NO_MENU, cache);
+		LazySubMenu second = new LazySubMenu(NO_MENU, cache);
+		cache.put(first, new Menu("First"));
+		Menu secondMenu = new Menu("Second");
+		cache.put(second, secondMenu);
+		assertNull(cache.get(first));
+		assertSame(secondMenu, cache.get(second));
+		assertEquals(SubMenuCache.MENU_BYTES, cache.getWeight());
+	}
+	
+	@Test
+	public void remove_CachedMenu_WeightReleased()
+	{
+		SubMenuCache cache = new SubMenuCache(10);
+		LazySubMenu subMenu = new LazySubMenu(NO_MENU, cache);
+		cache.put(subMenu, new Menu("First"));
+		cache.remove(subMenu);
+		assertNull(cache.get(subMenu));
+		assertEquals(0, cache.getWeight());
+	}
+	
+	@Test
+	public void estimateBytes_NestedMenus_OptionsAndNamesOfEveryMenuCounted()
+	{
+		Menu menu = new Menu("Catalog");
+		Menu subMenu = new Menu("Books");
+		subMenu.addOption("Novels", null);
+		menu.addSubMenu(subMenu);
+		menu.addSubMenu(subMenu);
+		menu.addOption("Music", null);
+		long expected = 2 * SubMenuCache.MENU_BYTES + 4 * SubMenuCache.OPTION_BYTES + 4 * (5 + 5 + 6 + 5);
+		assertEquals(expected, SubMenuCache.estimateBytes(menu));
+		assertTrue(SubMenuCache.estimateBytes(subMenu) < expected);
+	}
+}
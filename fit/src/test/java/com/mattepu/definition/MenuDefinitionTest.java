@@ -0,0 +1,225 @@
+package com.mattepu.definition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import com.mattepu.BatchRunner;
+import com.mattepu.IODevice;
+import com.mattepu.IOption;
+import com.mattepu.Menu;
+import com.mattepu.MenuSession;
+import com.mattepu.OptionActionResult;
+import com.mattepu.exception.InvalidMenuDefinitionException;
+
+public class MenuDefinitionTest
+{
+	private static final String DEFINITION = "root = home\n"
+			+ "home.name = Home\n"
+			+ "home.header = Welcome\n"
+			+ "home.options = wifi, display, exit\n"
+			+ "wifi.name = Wifi\n"
+			+ "wifi.pageSize = 2\n"
+			+ "wifi.options = connect, help, display, back\n"
+			+ "display.name = Display\n"
+			+ "display.footer = Changes apply at once\n"
+			+ "display.options = connect, back\n"
+			+ "connect.name = Connect\n"
+			+ "connect.handler = connect\n"
+			+ "help.name = Help \\u00e9\n"
+			+ "back.name = Back\n"
+			+ "back.handler = back\n"
+			+ "exit.name = Exit\n"
+			+ "exit.handler = exit\n"
+			+ "unused.name = Unused\n";
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private IOption connectOption;
+	private OptionHandlers handlers;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		connectOption = mock(IOption.class);
+		when(connectOption.optionSelected()).thenReturn(OptionActionResult.SUCCESS);
+		handlers = new OptionHandlers();
+		handlers.register("connect", connectOption);
+	}
+	
+	@Test
+	public void build_Definition_MenusAndOptionsInDefinedOrder()
+	{
+		Menu rootMenu = parse(DEFINITION).build(handlers);
+		assertTrue(rootMenu.isRoot());
+		assertEquals("Home", rootMenu.getName());
+		assertEquals("Wifi", rootMenu.getSubMenu(0).getName());
+		assertSame(rootMenu.getSubMenu(1), rootMenu.getSubMenu(0).getSubMenu(2));
+		assertEquals(3, parse(DEFINITION).getMenuCount());
+	}
+	
+	@Test
+	public void build_OptionsBoundByHandlerName_RegisteredHandlersExecuted()
+	{
+		StringBuilder output = new StringBuilder();
+		BatchRunner runner = new BatchRunner(parse(DEFINITION).build(handlers), output);
+		runner.execute("/Wifi/Connect");
+		runner.execute("/Wifi/Display/Back");
+		runner.execute("/Exit");
+		assertEquals("Home/Wifi/Connect : SUCCESS\nHome/Wifi/Display/Back : GO_UP\nHome/Exit : EXIT_MENU\n", output.toString());
+		verify(connectOption).optionSelected();
+	}
+	
+	@Test
+	public void loadSnapshot_WrittenSnapshot_SameFramesAsDefinition() throws IOException
+	{
+		Path snapshot = folder.getRoot().toPath().resolve("menus.fitm");
+		parse(DEFINITION).writeSnapshot(snapshot);
+		MenuDefinition loaded = MenuDefinition.loadSnapshot(snapshot);
+		String[] inputs = { "1", ">", "3", "2", "4", "3" };
+		assertEquals(framesOf(parse(DEFINITION).build(handlers), inputs), framesOf(loaded.build(handlers), inputs));
+		assertTrue(framesOf(loaded.build(handlers), inputs).get(1).contains("2 : Help \u00e9"));
+	}
+	
+	@Test
+	public void load_DefinitionFile_ReadAsUtf8() throws IOException
+	{
+		Path file = folder.newFile("menus.properties").toPath();
+		Files.write(file, DEFINITION.replace("\\u00e9", "\u00e9").getBytes(StandardCharsets.UTF_8));
+		List<String> frames = framesOf(MenuDefinition.load(file).build(handlers), "1", "4", "3");
+		assertTrue(frames.get(1).contains("2 : Help \u00e9"));
+	}
+	
+	@Test
+	public void loadSnapshot_NotASnapshot_IOException() throws IOException
+	{
+		Path file = folder.newFile("menus.properties").toPath();
+		Files.write(file, DEFINITION.getBytes(StandardCharsets.UTF_8));
+		assertLoadFails(file, "Not a menu snapshot");
+	}
+	
+	@Test
+	public void loadSnapshot_TruncatedSnapshot_IOException() throws IOException
+	{
+		Path snapshot = folder.getRoot().toPath().resolve("menus.fitm");
+		parse(DEFINITION).writeSnapshot(snapshot);
+		byte[] bytes = Files.readAllBytes(snapshot);
+		Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 3));
+		assertLoadFails(snapshot, "Truncated menu snapshot");
+	}
+	
+	@Test
+	public void loadSnapshot_CorruptOptionCount_IOException() throws IOException
+	{
+		Path snapshot = folder.getRoot().toPath().resolve("menus.fitm");
+		parse(DEFINITION).writeSnapshot(snapshot);
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+		bytes.position(8);
+		int strings = bytes.getInt();
+		for(int i = 0; i < strings; i++)
+		{
+			bytes.position(bytes.position() + 4 + bytes.getInt());
+		}
+		// Past the node count and the name, header, footer, page size and handler of the root
+		bytes.putInt(bytes.position() + 24, Integer.MAX_VALUE - 1);
+		Files.write(snapshot, bytes.array());
+		assertLoadFails(snapshot, "Truncated menu snapshot");
+	}
+	
+	@Test
+	public void parse_InvalidDefinitions_ThrowInvalidMenuDefinitionException()
+	{
+		assertInvalid("home.options = exit\nexit.handler = exit\n", "no root menu is given");
+		assertInvalid("root = home\nhome.name = Home\n", "root home has no options");
+		assertInvalid("root = home\nhome.options = exit, missing\nexit.handler = exit\n", "missing has no name, handler or options");
+		assertInvalid("root = home\nhome.options = wifi\nwifi.options = home\n", "root home is an option of wifi");
+		assertInvalid("root = home\nhome.options = exit, , back\nexit.handler = exit\n", "home has an empty option id");
+		assertInvalid("root = home\nhome.pageSize = -1\nhome.options = exit\nexit.handler = exit\n", "home has page size -1 which is not a count");
+	}
+	
+	@Test
+	public void build_HandlerNotRegistered_ThrowInvalidMenuDefinitionException()
+	{
+		try
+		{
+			parse(DEFINITION).build(new OptionHandlers());
+			fail();
+		}
+		catch(InvalidMenuDefinitionException e)
+		{
+			assertEquals("no handler is registered as connect for option Connect", e.getReason());
+		}
+	}
+	
+	private static MenuDefinition parse(String definition)
+	{
+		Properties properties = new Properties();
+		try
+		{
+			properties.load(new StringReader(definition));
+		}
+		catch(IOException e)
+		{
+			throw new AssertionError(e);
+		}
+		return MenuDefinition.parse(properties);
+	}
+	
+	private static void assertInvalid(String definition, String reason)
+	{
+		try
+		{
+			parse(definition);
+			fail();
+		}
+		catch(InvalidMenuDefinitionException e)
+		{
+			assertEquals(reason, e.getReason());
+		}
+	}
+	
+	private static void assertLoadFails(Path file, String message)
+	{
+		try
+		{
+			MenuDefinition.loadSnapshot(file);
+			fail();
+		}
+		catch(IOException e)
+		{
+			assertEquals(message, e.getMessage());
+		}
+	}
+	
+	private static List<String> framesOf(Menu rootMenu, String... inputs)
+	{
+		IODevice ioDevice = mock(IODevice.class);
+		when(ioDevice.acceptInput()).thenReturn(inputs[0], Arrays.copyOfRange(inputs, 1, inputs.length));
+		new MenuSession(rootMenu, ioDevice).start();
+		ArgumentCaptor<String> frames = ArgumentCaptor.forClass(String.class);
+		verify(ioDevice, atLeastOnce()).display(frames.capture());
+		return frames.getAllValues();
+	}
+}
@@ -0,0 +1,165 @@
+package com.mattepu.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.Menu;
+import com.mattepu.IOption;
+import com.mattepu.OptionActionResult;
+
+public class ChannelIODeviceTest 
+{
+	private ByteArrayOutputStream output;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		output = new ByteArrayOutputStream();
+	}
+	
+	private ChannelIODevice deviceWithInput(String input)
+	{
+		ByteArrayInputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+		return new ChannelIODevice(Channels.newChannel(inputStream), Channels.newChannel(output), StandardCharsets.UTF_8);
+	}
+	
+	private String written()
+	{
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
+	@Test
+	public void clearDisplay_FollowedByDisplay_ClearAndFrameWrittenTogether()
+	{
+		ChannelIODevice device = deviceWithInput("");
+		device.clearDisplay();
+		assertEquals(0, output.size());
+		device.display("Home\n1 : Exit");
+		assertEquals("\033[H\033[2JHome\n1 : Exit", written());
+		assertEquals(1, device.getWrites());
+	}
+	
+	@Test
+	public void display_SameFrameTwice_SameBytesWritten()
+	{
+		ChannelIODevice device = deviceWithInput("");
+		String frame = "Home\n1 : Caf\u00e9\n2 : \u6587\u5b57";
+		device.display(frame);
+		device.display(frame);
+		assertEquals(1, device.getCachedFrames());
+		device.display(new String(frame));
+		assertEquals(frame + frame + frame, written());
+		assertEquals(3, device.getWrites());
+	}
+	
+	@Test
+	public void display_FramesShownOnce_BytesNotKept()
+	{
+		ChannelIODevice device = deviceWithInput("");
+		StringBuilder frames = new StringBuilder();
+		for(int i = 0; i < 100; i++)
+		{
+			String frame = "Home\n1 : Option " + i;
+			device.display(frame);
+			frames.append(frame);
+		}
+		assertEquals(frames.toString(), written());
+		assertEquals(0, device.getCachedFrames());
+	}
+	
+	@Test
+	public void display_FrameLargerThanBuffer_WrittenCompletely()
+	{
+		StringBuilder frame = new StringBuilder();
+		for(int i = 0; i < 5000; i++)
+		{
+			frame.append(i).append(" : Option \u00e9\n");
+		}
+		ChannelIODevice device = deviceWithInput("");
+		device.clearDisplay();
+		device.display(frame.toString());
+		assertEquals("\033[H\033[2J" + frame, written());
+	}
+	
+	@Test
+	public void acceptInput_LinesAvailable_ReturnLinesWithoutLineSeparators()
+	{
+		ChannelIODevice device = deviceWithInput("1\r\n22\n");
+		assertEquals("1", device.acceptInput());
+		assertEquals("22", device.acceptInput());
+	}
+	
+	@Test
+	public void acceptInput_EndOfInput_ThrowUncheckedIOException()
+	{
+		ChannelIODevice device = deviceWithInput("");
+		try
+		{
+			device.acceptInput();
+			fail("UncheckedIOException not thrown");
+		}
+		catch(UncheckedIOException e)
+		{
+			assertEquals(EOFException.class, e.getCause().getClass());
+		}
+	}
+	
+	@Test
+	public void start_MenuDrivenByChannel_OneWritePerFrame()
+	{
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Exit", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		});
+		ChannelIODevice device = deviceWithInput("x\n1\n");
+		menu.setIODevice(device);
+		menu.start();
+		String frame = "\033[H\033[2JHome\n1 : Exit\nEnter your choice : ";
+		assertEquals(frame + frame + "\033[H\033[2J", written());
+		assertEquals(3, device.getWrites());
+	}
+	
+	@Test
+	public void start_SameMenuShownAgain_EncodedFrameReused()
+	{
+		Menu menu = new Menu("Home", true);
+		Menu wifiMenu = new Menu("Wifi");
+		wifiMenu.addOption("Back", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.GO_UP;
+			}
+		});
+		menu.addSubMenu(wifiMenu);
+		menu.addOption("Exit", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		});
+		ChannelIODevice device = deviceWithInput("x\n1\n1\n1\n1\nx\n2\n");
+		menu.setIODevice(device);
+		menu.start();
+		String home = "\033[H\033[2JHome\n1 : Wifi\n2 : Exit\nEnter your choice : ";
+		String wifi = "\033[H\033[2JHome/Wifi\n1 : Back\nEnter your choice : ";
+		assertEquals(home + home + wifi + home + wifi + home + home + "\033[H\033[2J", written());
+		assertTrue(device.getCachedFrames() > 0);
+	}
+}
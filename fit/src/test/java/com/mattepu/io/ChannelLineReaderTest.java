@@ -0,0 +1,129 @@
+package com.mattepu.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class ChannelLineReaderTest 
+{
+	private ChannelLineReader readerOf(String input)
+	{
+		ByteArrayInputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+		return new ChannelLineReader(Channels.newChannel(inputStream), StandardCharsets.UTF_8);
+	}
+	
+	@Test
+	public void readLine_MixedLineSeparators_LinesReturnedWithoutSeparators() throws IOException
+	{
+		ChannelLineReader reader = readerOf("1\r\n\n22\nlast");
+		assertEquals("1", reader.readLine());
+		assertEquals("", reader.readLine());
+		assertEquals("22", reader.readLine());
+		assertEquals("last", reader.readLine());
+		assertNull(reader.readLine());
+	}
+	
+	@Test
+	public void readLine_SelectionsAndCommands_CachedStringsReturned() throws IOException
+	{
+		ChannelLineReader reader = readerOf("7\n7\n123\n123\n>\n>\n");
+		assertSame(reader.readLine(), reader.readLine());
+		assertSame(reader.readLine(), reader.readLine());
+		assertSame(reader.readLine(), reader.readLine());
+	}
+	
+	@Test
+	public void readLine_NumbersNotCached_ReadAsWritten() throws IOException
+	{
+		ChannelLineReader reader = readerOf("007\n1024\n12345\n-1\n");
+		assertEquals("007", reader.readLine());
+		assertEquals("1024", reader.readLine());
+		assertEquals("12345", reader.readLine());
+		assertEquals("-1", reader.readLine());
+	}
+	
+	@Test
+	public void readLine_MultiByteCharacters_DecodedWithCharset() throws IOException
+	{
+		ChannelLineReader reader = readerOf("caf\u00e9\n\u6587\n");
+		assertEquals("caf\u00e9", reader.readLine());
+		assertEquals("\u6587", reader.readLine());
+	}
+	
+	@Test
+	public void readLine_LineLongerThanBuffer_WholeLineReturned() throws IOException
+	{
+		StringBuilder line = new StringBuilder();
+		for(int i = 0; i < 20000; i++)
+		{
+			line.append((char)('a' + i % 26));
+		}
+		ChannelLineReader reader = readerOf(line + "\n2\n");
+		assertEquals(line.toString(), reader.readLine());
+		assertEquals("2", reader.readLine());
+	}
+	
+	@Test
+	public void readLine_ChannelReturnsOneByteAtATime_LinesJoinedAcrossReads() throws IOException
+	{
+		final ByteBuffer input = ByteBuffer.wrap("12\r\n3\n".getBytes(StandardCharsets.UTF_8));
+		ReadableByteChannel channel = new ReadableByteChannel() {
+			@Override
+			public boolean isOpen() 
+			{
+				return true;
+			}
+			
+			@Override
+			public void close() 
+			{
+			}
+			
+			@Override
+			public int read(ByteBuffer destination) 
+			{
+				if(!input.hasRemaining())
+				{
+					return -1;
+				}
+				destination.put(input.get());
+				return 1;
+			}
+		};
+		ChannelLineReader reader = new ChannelLineReader(channel, StandardCharsets.UTF_8);
+		assertEquals("12", reader.readLine());
+		assertEquals("3", reader.readLine());
+		assertNull(reader.readLine());
+	}
+	
+	@Test
+	public void readLine_ManyScriptedSelections_EveryLineRead() throws IOException
+	{
+		StringBuilder input = new StringBuilder();
+		for(int i = 0; i < 100000; i++)
+		{
+			input.append(i % 2000).append('\n');
+		}
+		ChannelLineReader reader = readerOf(input.toString());
+		for(int i = 0; i < 100000; i++)
+		{
+			assertEquals(Integer.toString(i % 2000), reader.readLine());
+		}
+		assertNull(reader.readLine());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_CharsetNotAsciiCompatible_ThrowIllegalArgumentException()
+	{
+		new ChannelLineReader(Channels.newChannel(new ByteArrayInputStream(new byte[0])), StandardCharsets.UTF_16);
+	}
+}
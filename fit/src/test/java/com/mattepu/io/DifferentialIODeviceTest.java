@@ -0,0 +1,170 @@
+package com.mattepu.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.mattepu.IODevice;
+import com.mattepu.IOption;
+import com.mattepu.Menu;
+import com.mattepu.OptionActionResult;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DifferentialIODeviceTest 
+{
+	@Mock
+	private IODevice terminal;
+	private DifferentialIODevice device;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		device = new DifferentialIODevice(terminal);
+	}
+	
+	@Test
+	public void display_FirstFrame_ClearedAndSentInFull()
+	{
+		device.clearDisplay();
+		device.display("Home\n1 : Wifi");
+		InOrder order = inOrder(terminal);
+		order.verify(terminal).clearDisplay();
+		order.verify(terminal).display("Home\n1 : Wifi");
+		assertEquals(0, device.getBytesSaved());
+	}
+	
+	@Test
+	public void display_OnlyFirstLineChanged_OnlyFirstLineRewritten()
+	{
+		device.clearDisplay();
+		device.display("Home/Wifi\n1 : Back\nEnter your choice : ");
+		device.clearDisplay();
+		device.display("Home/Display\n1 : Back\nEnter your choice : ");
+		verify(terminal).clearDisplay();
+		verify(terminal).display("\033[1;1HHome/Display\033[K\033[3;21H");
+		assertTrue(device.getBytesSaved() > 0);
+	}
+	
+	@Test
+	public void display_FewerLinesThanBefore_RemainingLinesCleared()
+	{
+		device.clearDisplay();
+		device.display("Home\n1 : Wifi settings and networks\n2 : Exit");
+		device.clearDisplay();
+		device.display("Home\n1 : Wifi settings and networks");
+		verify(terminal).display("\033[3;1H\033[J\033[2;31H");
+	}
+	
+	@Test
+	public void acceptInput_SameFrameDisplayedAgain_OnlyLineWithEchoedInputRewritten()
+	{
+		when(terminal.acceptInput()).thenReturn("x");
+		device.clearDisplay();
+		device.display("Home/Wifi/Networks/Advanced settings\nEnter your choice : ");
+		assertEquals("x", device.acceptInput());
+		device.clearDisplay();
+		device.display("Home/Wifi/Networks/Advanced settings\nEnter your choice : ");
+		verify(terminal).display("\033[2;1HEnter your choice : \033[K\033[2;21H");
+	}
+	
+	@Test
+	public void display_WithoutClearDisplay_ForwardedAndNextFrameSentInFull()
+	{
+		device.clearDisplay();
+		device.display("Home");
+		device.display("Processing finished");
+		device.clearDisplay();
+		device.display("Home");
+		ArgumentCaptor<String> displayCaptor = ArgumentCaptor.forClass(String.class);
+		verify(terminal, times(3)).display(displayCaptor.capture());
+		List<String> displayed = displayCaptor.getAllValues();
+		assertEquals("Processing finished", displayed.get(1));
+		assertEquals("Home", displayed.get(2));
+		verify(terminal, times(2)).clearDisplay();
+	}
+	
+	@Test
+	public void display_DifferenceLongerThanFrame_FrameSentInFull()
+	{
+		device.clearDisplay();
+		device.display("A\nB");
+		device.clearDisplay();
+		device.display("C\nD");
+		verify(terminal, times(2)).clearDisplay();
+		verify(terminal).display("C\nD");
+		assertEquals(0, device.getBytesSaved());
+	}
+	
+	@Test
+	public void display_WideAndCombiningCharactersInLastLine_CursorMovedPastTheirCells()
+	{
+		device.clearDisplay();
+		device.display("Home/Wifi\n\u4e2d\u6587 \ud83d\ude00 e\u0301 : ");
+		device.clearDisplay();
+		device.display("Home/Display\n\u4e2d\u6587 \ud83d\ude00 e\u0301 : ");
+		verify(terminal).display("\033[1;1HHome/Display\033[K\033[2;13H");
+	}
+	
+	@Test
+	public void display_AnsiDevice_ItsClearSequenceCountedInFullRedraw()
+	{
+		TerminalIODevice ansiTerminal = new TerminalIODevice(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+		device = new DifferentialIODevice(ansiTerminal);
+		device.clearDisplay();
+		device.display("Home");
+		assertEquals(ansiTerminal.getClearSequence().length() + 4, device.getBytesWritten());
+		
+		device = new DifferentialIODevice(terminal, "\033c");
+		device.clearDisplay();
+		device.display("Home");
+		assertEquals(6, device.getBytesWritten());
+	}
+	
+	@Test
+	public void flush_ClearRequestedWithoutFrame_ClearForwarded() throws IOException
+	{
+		device.clearDisplay();
+		verify(terminal, never()).clearDisplay();
+		device.flush();
+		verify(terminal).clearDisplay();
+	}
+	
+	@Test
+	public void start_InvalidInputInLargeMenu_OnlyPromptLineResent()
+	{
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Network and internet settings", null);
+		menu.addOption("Connected devices and accessories", null);
+		menu.addOption("Display, brightness and wallpaper", null);
+		menu.addOption("Exit", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		});
+		when(terminal.acceptInput()).thenReturn("x", "x", "4");
+		menu.setIODevice(device);
+		menu.start();
+		verify(terminal, times(2)).display("\033[6;1HEnter your choice : \033[K\033[6;21H");
+		assertTrue(device.getBytesSaved() > 0);
+	}
+}
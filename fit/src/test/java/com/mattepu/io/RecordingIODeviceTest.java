@@ -0,0 +1,94 @@
+package com.mattepu.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.mattepu.IODevice;
+
+public class RecordingIODeviceTest 
+{
+	private IODevice device;
+	private ByteArrayOutputStream log;
+	private RecordingIODevice recorder;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		device = mock(IODevice.class);
+		log = new ByteArrayOutputStream();
+		recorder = new RecordingIODevice(device, log);
+	}
+	
+	@Test
+	public void calls_ForwardedToDecoratedDevice()
+	{
+		when(device.acceptInput()).thenReturn("1");
+		recorder.clearDisplay();
+		recorder.display("Home");
+		assertEquals("1", recorder.acceptInput());
+		InOrder order = inOrder(device);
+		order.verify(device).clearDisplay();
+		order.verify(device).display("Home");
+		order.verify(device).acceptInput();
+	}
+	
+	@Test
+	public void flush_CallsRecorded_LogHoldsOneRecordPerCall() throws IOException
+	{
+		when(device.acceptInput()).thenReturn("12", (String)null);
+		recorder.clearDisplay();
+		recorder.display("Home");
+		recorder.acceptInput();
+		recorder.acceptInput();
+		recorder.flush();
+		
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(log.toByteArray()));
+		assertEquals(SessionLog.MAGIC, input.readInt());
+		assertEquals(SessionLog.VERSION, input.readUnsignedByte());
+		assertEquals(SessionLog.CLEAR_DISPLAY, input.readUnsignedByte());
+		SessionLog.readVarLong(input);
+		assertEquals(SessionLog.DISPLAY, input.readUnsignedByte());
+		SessionLog.readVarLong(input);
+		assertEquals(4, SessionLog.readVarLong(input));
+		assertEquals("Home".hashCode(), input.readInt());
+		assertEquals(SessionLog.ACCEPT_INPUT, input.readUnsignedByte());
+		SessionLog.readVarLong(input);
+		SessionLog.readVarLong(input);
+		assertEquals("12", SessionLog.readString(input));
+		assertEquals(SessionLog.ACCEPT_INPUT, input.readUnsignedByte());
+		SessionLog.readVarLong(input);
+		SessionLog.readVarLong(input);
+		assertEquals(null, SessionLog.readString(input));
+		assertEquals(-1, input.read());
+	}
+	
+	@Test
+	public void readVarLong_WrittenValues_ReadBack() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		long[] values = { 0, 1, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE, -1 };
+		for(long value : values)
+		{
+			SessionLog.writeVarLong(output, value);
+		}
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for(long value : values)
+		{
+			assertEquals(value, SessionLog.readVarLong(input));
+		}
+		assertEquals(1 + 1 + 1 + 2 + 2 + 5 + 9 + 10, bytes.size());
+	}
+}
@@ -0,0 +1,126 @@
+package com.mattepu.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mattepu.IODevice;
+import com.mattepu.IOption;
+import com.mattepu.Menu;
+import com.mattepu.MenuSession;
+import com.mattepu.OptionActionResult;
+
+public class SessionReplayerTest 
+{
+	private static Menu menuTree(String optionName, final long optionMillis)
+	{
+		Menu rootMenu = new Menu("Home", true);
+		Menu toolsMenu = new Menu("Tools");
+		toolsMenu.addOption(optionName, new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				try
+				{
+					Thread.sleep(optionMillis);
+				}
+				catch(InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				return OptionActionResult.SUCCESS;
+			}
+		});
+		toolsMenu.addOption("Exit", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		});
+		rootMenu.addSubMenu(toolsMenu);
+		return rootMenu;
+	}
+	
+	private static SessionReplayer record(Menu rootMenu, String first, String... rest) throws IOException
+	{
+		IODevice device = mock(IODevice.class);
+		when(device.acceptInput()).thenReturn(first, rest);
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		RecordingIODevice recorder = new RecordingIODevice(device, log);
+		new MenuSession(rootMenu, recorder).start();
+		recorder.close();
+		return new SessionReplayer(new ByteArrayInputStream(log.toByteArray()));
+	}
+	
+	@Test
+	public void replay_SameTree_StepPerInputAndNoFrameMismatches() throws IOException
+	{
+		SessionReplayer replayer = record(menuTree("Build", 0), "x", "1", "1", "2");
+		assertEquals(4, replayer.getInputCount());
+		ReplayReport report = replayer.replay(menuTree("Build", 0));
+		List<ReplayReport.Step> steps = report.getSteps();
+		assertEquals(5, steps.size());
+		assertNull(steps.get(0).getInput());
+		assertEquals("x", steps.get(1).getInput());
+		assertEquals("2", steps.get(4).getInput());
+		assertEquals(0, report.getFrameMismatches());
+	}
+	
+	@Test
+	public void replay_SlowerOption_RegressionReportedForItsStep() throws IOException
+	{
+		SessionReplayer replayer = record(menuTree("Build", 0), "1", "1", "2");
+		ReplayReport report = replayer.replay(menuTree("Build", 200));
+		List<ReplayReport.Step> regressions = report.getRegressions(2.0, 100000000L);
+		assertEquals(1, regressions.size());
+		assertEquals(2, regressions.get(0).getIndex());
+		assertTrue(regressions.get(0).getReplayedNanos() >= 200000000L);
+	}
+	
+	@Test
+	public void replay_ChangedTree_FrameMismatchesCounted() throws IOException
+	{
+		SessionReplayer replayer = record(menuTree("Build", 0), "1", "2");
+		ReplayReport report = replayer.replay(menuTree("Deploy", 0));
+		assertEquals(1, report.getFrameMismatches());
+	}
+	
+	@Test
+	public void replay_RecordingEndsWithoutExit_ReplayStopsAtLastInput() throws IOException
+	{
+		IODevice device = mock(IODevice.class);
+		when(device.acceptInput()).thenReturn("1").thenThrow(new UncheckedIOException(new EOFException()));
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		RecordingIODevice recorder = new RecordingIODevice(device, log);
+		try
+		{
+			new MenuSession(menuTree("Build", 0), recorder).start();
+		}
+		catch(UncheckedIOException e)
+		{
+		}
+		recorder.close();
+		SessionReplayer replayer = new SessionReplayer(new ByteArrayInputStream(log.toByteArray()));
+		ReplayReport report = replayer.replay(menuTree("Build", 0));
+		assertEquals(2, report.getSteps().size());
+		assertEquals(0, report.getFrameMismatches());
+	}
+	
+	@Test(expected = IOException.class)
+	public void constructor_NotASessionLog_ThrowIOException() throws IOException
+	{
+		new SessionReplayer(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5 }));
+	}
+}
@@ -0,0 +1,84 @@
+package com.mattepu.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.Menu;
+import com.mattepu.IOption;
+import com.mattepu.OptionActionResult;
+
+public class TerminalIODeviceTest 
+{
+	private ByteArrayOutputStream output;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		output = new ByteArrayOutputStream();
+	}
+	
+	private TerminalIODevice deviceWithInput(String input)
+	{
+		ByteArrayInputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+		return new TerminalIODevice(inputStream, output, StandardCharsets.UTF_8);
+	}
+	
+	@Test
+	public void clearDisplay_FollowedByDisplay_EscapeSequencesWrittenBeforeContent()
+	{
+		TerminalIODevice device = deviceWithInput("");
+		device.clearDisplay();
+		assertEquals(0, output.size());
+		device.display("Home\n1 : Exit");
+		assertEquals("\033[H\033[2JHome\n1 : Exit", new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void acceptInput_LinesAvailable_ReturnLinesWithoutLineSeparators()
+	{
+		TerminalIODevice device = deviceWithInput("1\r\n22\n");
+		assertEquals("1", device.acceptInput());
+		assertEquals("22", device.acceptInput());
+	}
+	
+	@Test
+	public void acceptInput_EndOfInput_ThrowUncheckedIOException()
+	{
+		TerminalIODevice device = deviceWithInput("");
+		try
+		{
+			device.acceptInput();
+			fail("UncheckedIOException not thrown");
+		}
+		catch(UncheckedIOException e)
+		{
+			assertEquals(EOFException.class, e.getCause().getClass());
+		}
+	}
+	
+	@Test
+	public void start_MenuDrivenByTerminal_EveryFrameStartsWithClearSequence()
+	{
+		Menu menu = new Menu("Home", true);
+		menu.addOption("Exit", new IOption() {
+			@Override
+			public OptionActionResult optionSelected() 
+			{
+				return OptionActionResult.EXIT_MENU;
+			}
+		});
+		menu.setIODevice(deviceWithInput("x\n1\n"));
+		menu.start();
+		String frame = "\033[H\033[2JHome\n1 : Exit\nEnter your choice : ";
+		assertEquals(frame + frame + "\033[H\033[2J", new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
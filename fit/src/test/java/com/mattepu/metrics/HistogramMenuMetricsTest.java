@@ -0,0 +1,90 @@
+package com.mattepu.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.OptionActionResult;
+
+public class HistogramMenuMetricsTest 
+{
+	private HistogramMenuMetrics metrics;
+	
+	@Before
+	public void beforeEachTest()
+	{
+		metrics = new HistogramMenuMetrics();
+	}
+	
+	@Test
+	public void optionExecuted_SameNameInDifferentMenus_KeptApart()
+	{
+		metrics.optionExecuted("Home/Wifi", "Back", OptionActionResult.GO_UP, 1000);
+		metrics.optionExecuted("Home/Wifi", "Back", OptionActionResult.GO_UP, 3000);
+		metrics.optionExecuted("Home/Sound", "Back", OptionActionResult.GO_UP, 2000);
+		assertEquals(2, metrics.getOptionHistogram("Home/Wifi", "Back").getCount());
+		assertEquals(1, metrics.getOptionHistogram("Home/Sound", "Back").getCount());
+		assertNull(metrics.getOptionHistogram("Home", "Back"));
+	}
+	
+	@Test
+	public void optionExecuted_MoreOptionsThanMax_OthersRecordedTogether()
+	{
+		metrics = new HistogramMenuMetrics(2);
+		metrics.optionExecuted("Home/Wifi", "Back", OptionActionResult.GO_UP, 1000);
+		metrics.optionExecuted("Home/Sound", "Back", OptionActionResult.GO_UP, 1000);
+		for(int i = 0; i < 100; i++)
+		{
+			metrics.optionExecuted("Home/Items", "Item " + i, OptionActionResult.SUCCESS, 1000);
+		}
+		metrics.optionExecuted("Home/Wifi", "Back", OptionActionResult.GO_UP, 1000);
+		assertEquals(2, metrics.getOptionHistogram("Home/Wifi", "Back").getCount());
+		assertNull(metrics.getOptionHistogram("Home/Items", "Item 0"));
+		assertEquals(100, metrics.getOtherOptionsHistogram().getCount());
+		assertEquals(3, metrics.getOptionLatencies().size());
+		metrics.reset();
+		metrics.optionExecuted("Home/Items", "Item 0", OptionActionResult.SUCCESS, 1000);
+		assertEquals(1, metrics.getOptionHistogram("Home/Items", "Item 0").getCount());
+	}
+	
+	@Test
+	public void getOptionLatencies_SeveralOptions_SlowestFirst()
+	{
+		metrics.optionExecuted("Home", "Fast", OptionActionResult.SUCCESS, 1000);
+		metrics.optionExecuted("Home", "Slow", OptionActionResult.SUCCESS, 5000000);
+		assertEquals("Slow", metrics.getOptionLatencies().get(0).getOptionName());
+		assertEquals(1, metrics.getOptionLatencies().get(0).getLatency().getCount());
+	}
+	
+	@Test
+	public void register_PlatformServer_PercentilesReadableOverJmx() throws JMException
+	{
+		metrics.frameRendered("Home", 100, 2000);
+		metrics.optionExecuted("Home", "Backup", OptionActionResult.SUCCESS, 4000);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = metrics.register("test");
+		try
+		{
+			CompositeData renderTime = (CompositeData)server.getAttribute(name, "RenderTime");
+			assertEquals(1L, renderTime.get("count"));
+			assertEquals(2.0, (Double)renderTime.get("p50Micros"), 0.25);
+			CompositeData[] options = (CompositeData[])server.getAttribute(name, "OptionLatencies");
+			assertEquals("Backup", options[0].get("optionName"));
+			server.invoke(name, "reset", null, null);
+			assertEquals(0, metrics.getRenderHistogram().getCount());
+		}
+		finally
+		{
+			server.unregisterMBean(name);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.mattepu.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mattepu.IMenuMetrics;
+import com.mattepu.OptionActionResult;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrMenuMetricsTest 
+{
+	private Path recordingFile;
+	
+	@Before
+	public void beforeEachTest() throws IOException
+	{
+		recordingFile = Files.createTempFile("fit", ".jfr");
+	}
+	
+	@After
+	public void afterEachTest() throws IOException
+	{
+		Files.deleteIfExists(recordingFile);
+	}
+	
+	private List<RecordedEvent> fitEvents() throws IOException
+	{
+		List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+		for(RecordedEvent event : RecordingFile.readAllEvents(recordingFile))
+		{
+			if(event.getEventType().getName().startsWith("com.mattepu."))
+			{
+				events.add(event);
+			}
+		}
+		return events;
+	}
+	
+	private static void emitSession(JfrMenuMetrics metrics)
+	{
+		metrics.menuEntered("Home");
+		metrics.frameRendered("Home", 42, 1500);
+		metrics.inputAwaited("Home");
+		metrics.inputReceived("Home", 2000000);
+		metrics.optionStarted("Home", "Backup");
+		metrics.optionExecuted("Home", "Backup", OptionActionResult.SUCCESS, 3000000);
+		metrics.menuExited("Home");
+	}
+	
+	@Test
+	public void calls_RecordingEnablesEvents_EventsRecordedWithFields() throws IOException
+	{
+		try(Recording recording = new Recording())
+		{
+			recording.enable("com.mattepu.MenuEntered");
+			recording.enable("com.mattepu.MenuExited");
+			recording.enable("com.mattepu.FrameRendered");
+			recording.enable("com.mattepu.InputReceived");
+			recording.enable("com.mattepu.OptionExecuted");
+			recording.start();
+			emitSession(new JfrMenuMetrics());
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+		List<RecordedEvent> events = fitEvents();
+		assertEquals(5, events.size());
+		RecordedEvent frame = find(events, "com.mattepu.FrameRendered");
+		assertEquals(42, frame.getInt("frameLength"));
+		assertEquals(Duration.ofNanos(1500), frame.getDuration("renderTime"));
+		RecordedEvent option = find(events, "com.mattepu.OptionExecuted");
+		assertEquals("Home", option.getString("menuPath"));
+		assertEquals("Backup", option.getString("optionName"));
+		assertEquals("SUCCESS", option.getString("result"));
+		assertEquals(Duration.ofMillis(3), option.getDuration("executionTime"));
+	}
+	
+	@Test
+	public void calls_WorkStartedFirst_EventsSpanTheWork() throws Exception
+	{
+		try(Recording recording = new Recording())
+		{
+			recording.enable("com.mattepu.FrameRendered");
+			recording.enable("com.mattepu.InputReceived");
+			recording.enable("com.mattepu.OptionExecuted");
+			recording.start();
+			JfrMenuMetrics metrics = new JfrMenuMetrics();
+			metrics.frameRenderStarted("Home");
+			Thread.sleep(5);
+			metrics.frameRendered("Home", 42, 5000000);
+			metrics.inputAwaited("Home");
+			Thread.sleep(5);
+			metrics.inputReceived("Home", 5000000);
+			metrics.optionStarted("Home", "Backup");
+			Thread.sleep(5);
+			metrics.optionExecuted("Home", "Backup", OptionActionResult.SUCCESS, 5000000);
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+		List<RecordedEvent> events = fitEvents();
+		assertEquals(3, events.size());
+		for(RecordedEvent event : events)
+		{
+			assertTrue(event.getEventType().getName(), event.getDuration().compareTo(Duration.ofMillis(5)) >= 0);
+		}
+		RecordedEvent option = find(events, "com.mattepu.OptionExecuted");
+		assertEquals("Backup", option.getString("optionName"));
+	}
+	
+	@Test
+	public void calls_EventsNotEnabled_NothingRecorded() throws IOException
+	{
+		try(Recording recording = new Recording())
+		{
+			recording.start();
+			emitSession(new JfrMenuMetrics());
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+		assertTrue(fitEvents().isEmpty());
+	}
+	
+	@Test
+	public void calls_NextMetricsGiven_CallsPassedOn()
+	{
+		IMenuMetrics next = mock(IMenuMetrics.class);
+		emitSession(new JfrMenuMetrics(next));
+		verify(next).menuEntered("Home");
+		verify(next).frameRendered("Home", 42, 1500);
+		verify(next).inputAwaited("Home");
+		verify(next).inputReceived("Home", 2000000);
+		verify(next).optionStarted("Home", "Backup");
+		verify(next).optionExecuted("Home", "Backup", OptionActionResult.SUCCESS, 3000000);
+		verify(next).menuExited("Home");
+	}
+	
+	private static RecordedEvent find(List<RecordedEvent> events, String name)
+	{
+		for(RecordedEvent event : events)
+		{
+			if(event.getEventType().getName().equals(name))
+			{
+				return event;
+			}
+		}
+		throw new AssertionError(name + " not recorded");
+	}
+}
@@ -0,0 +1,92 @@
+package com.mattepu.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest 
+{
+	@Test
+	public void bucketOf_ConsecutiveBuckets_CoverEveryValueOnce()
+	{
+		for(int bucket = 0; bucket < 300; bucket++)
+		{
+			long lowest = LatencyHistogram.lowestValueOf(bucket);
+			long highest = LatencyHistogram.highestValueOf(bucket);
+			assertEquals(bucket, LatencyHistogram.bucketOf(lowest));
+			assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+			assertEquals(highest + 1, LatencyHistogram.lowestValueOf(bucket + 1));
+		}
+		assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE), LatencyHistogram.bucketOf(Long.MAX_VALUE - 1));
+	}
+	
+	@Test
+	public void getPercentile_UniformLatencies_WithinBucketPrecision()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(long i = 1; i <= 100000; i++)
+		{
+			histogram.record(i * 1000);
+		}
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000000L, histogram.getMax());
+		assertEquals(50000500.0, histogram.getMean(), 1);
+		assertWithin(50000000, histogram.getPercentile(50));
+		assertWithin(99000000, histogram.getPercentile(99));
+		assertEquals(100000000L, histogram.getPercentile(100));
+	}
+	
+	@Test
+	public void getPercentile_Empty_ReturnZero()
+	{
+		assertEquals(0, new LatencyHistogram().getPercentile(99));
+	}
+	
+	@Test
+	public void reset_AfterRecording_HistogramEmpty()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(42);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+	
+	@Test
+	public void record_ConcurrentThreads_EveryValueCounted() throws InterruptedException
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < 4; t++)
+		{
+			final long offset = t;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() 
+				{
+					for(int i = 0; i < 100000; i++)
+					{
+						histogram.record(i + offset);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+		assertEquals(400000, histogram.getCount());
+		assertEquals(100002, histogram.getMax());
+	}
+	
+	private static void assertWithin(long expected, long actual)
+	{
+		assertTrue(actual + " not within 12.5% of " + expected, Math.abs(actual - expected) <= expected / 8);
+	}
+}